@@ -0,0 +1,168 @@
+#!/usr/bin/env bash
+#
+# Compares insert throughput of one POST /devices per device against POST /devices/batch, with JDBC batching off
+# (hibernate.jdbc.batch_size=1) and at the configured batch sizes. Each request set is sent by a single curl process
+# over kept-alive connections, so the numbers measure the server rather than process startup.
+#
+# Requirements:
+#   - the application jar:      ./mvnw clean package -DskipTests
+#   - a running Postgres:       docker-compose up -d postgres
+#
+# Usage:
+#   perf/batch-insert-benchmark.sh
+#   DEVICES=20000 BATCH_SIZES="1 50 200" CONCURRENCY=4 perf/batch-insert-benchmark.sh
+#
+# Results are printed and written to target/batch-insert-benchmark.md. Benchmark devices are deleted afterwards.
+
+set -euo pipefail
+
+JAR=${JAR:-target/device-api-0.0.1-SNAPSHOT.jar}
+PORT=${PORT:-8080}
+DEVICES=${DEVICES:-10000}
+REQUEST_SIZE=${REQUEST_SIZE:-1000}
+BATCH_SIZES=${BATCH_SIZES:-"1 50"}
+CONCURRENCY=${CONCURRENCY:-1}
+RUNS=${RUNS:-3}
+REPORT=${REPORT:-target/batch-insert-benchmark.md}
+
+export SPRING_DATASOURCE_URL=${SPRING_DATASOURCE_URL:-jdbc:postgresql://localhost:5432/postgres}
+export SPRING_DATASOURCE_USERNAME=${SPRING_DATASOURCE_USERNAME:-postgres}
+export SPRING_DATASOURCE_PASSWORD=${SPRING_DATASOURCE_PASSWORD:-admin}
+
+BASE_URL="http://localhost:${PORT}"
+WORK=target/batch-insert-benchmark
+BRAND=batch-insert-benchmark
+
+now_ms() {
+	echo $(($(date +%s%N) / 1000000))
+}
+
+median() {
+	sort -n | awk '{ values[NR] = $1 } END { print (NR % 2) ? values[(NR + 1) / 2] : (values[NR / 2] + values[NR / 2 + 1]) / 2 }'
+}
+
+# Waits for the instance just started; fails as soon as it exits, so another process on the port is never measured
+wait_for_health() {
+	local pid=$1
+	for _ in $(seq 1 120); do
+		if ! kill -0 "$pid" 2>/dev/null; then
+			echo "application exited during startup, see target/batch-insert-benchmark-*.log" >&2
+			return 1
+		fi
+		if curl -fs "${BASE_URL}/actuator/health" > /dev/null; then
+			return 0
+		fi
+		sleep 0.5
+	done
+	echo "application did not become healthy" >&2
+	return 1
+}
+
+device_json() {
+	printf '{"name":"Bench device %d","brand":"%s","state":"AVAILABLE"}' "$1" "$BRAND"
+}
+
+# One curl config per mode: a request per device, or a request per REQUEST_SIZE devices with the bodies in files
+write_configs() {
+	mkdir -p "$WORK"
+	: > "$WORK/single.curl"
+	for i in $(seq 1 "$DEVICES"); do
+		[ "$i" -gt 1 ] && echo next >> "$WORK/single.curl"
+		printf 'url = "%s/devices"\nheader = "Content-Type: application/json"\ndata = "%s"\noutput = "/dev/null"\nwrite-out = "%%{http_code}\\n"\n' \
+			"$BASE_URL" "$(device_json "$i" | sed 's/"/\\"/g')" >> "$WORK/single.curl"
+	done
+
+	: > "$WORK/batch.curl"
+	local request=0
+	for ((from = 1; from <= DEVICES; from += REQUEST_SIZE)); do
+		request=$((request + 1))
+		{
+			printf '['
+			for ((i = from; i < from + REQUEST_SIZE && i <= DEVICES; i++)); do
+				[ "$i" -gt "$from" ] && printf ','
+				device_json "$i"
+			done
+			printf ']'
+		} > "$WORK/batch-${request}.json"
+		[ "$request" -gt 1 ] && echo next >> "$WORK/batch.curl"
+		printf 'url = "%s/devices/batch"\nheader = "Content-Type: application/json"\ndata-binary = "@%s"\noutput = "/dev/null"\nwrite-out = "%%{http_code}\\n"\n' \
+			"$BASE_URL" "$WORK/batch-${request}.json" >> "$WORK/batch.curl"
+	done
+}
+
+delete_benchmark_devices() {
+	curl -fs -o /dev/null -X DELETE -H 'Content-Type: application/json' -d "{\"brand\":\"${BRAND}\"}" "${BASE_URL}/devices"
+}
+
+# Sends every request of the mode once and prints the elapsed milliseconds; fails on any status other than 201
+send() {
+	local config=$1
+	local start statuses
+	start=$(now_ms)
+	statuses=$(curl -s --no-progress-meter --parallel --parallel-max "$CONCURRENCY" -K "$config")
+	local elapsed=$(($(now_ms) - start))
+	if echo "$statuses" | grep -qv '^201$'; then
+		echo "requests failed with: $(echo "$statuses" | grep -v '^201$' | sort | uniq -c | tr '\n' ' ')" >&2
+		exit 1
+	fi
+	echo "$elapsed"
+}
+
+run_mode() {
+	local label=$1 config=$2 batch_size=$3
+	local times=()
+	# Warm up the JIT and the connection pool
+	send "$config" > /dev/null
+	delete_benchmark_devices
+	for run in $(seq 1 "$RUNS"); do
+		times+=("$(send "$config")")
+		delete_benchmark_devices
+		echo "${label} (batch_size ${batch_size}) run ${run}: ${times[-1]} ms" >&2
+	done
+	local elapsed
+	elapsed=$(printf '%s\n' "${times[@]}" | median)
+	echo "| ${label} | ${batch_size} | ${DEVICES} | ${elapsed} ms | $(awk -v n="$DEVICES" -v ms="$elapsed" 'BEGIN { printf "%.0f", n * 1000 / ms }') |" \
+		| tee -a "$REPORT"
+}
+
+run_batch_size() {
+	local batch_size=$1
+
+	if curl -s -o /dev/null "${BASE_URL}/actuator/health"; then
+		echo "port ${PORT} is already in use; stop that process or set PORT" >&2
+		exit 1
+	fi
+	DEVICE_BATCH_SIZE=$batch_size java -jar "$JAR" --server.port="$PORT" --spring.jpa.show-sql=false \
+		> "target/batch-insert-benchmark-${batch_size}.log" 2>&1 &
+	local pid=$!
+	trap "kill $pid 2>/dev/null || true" EXIT
+
+	wait_for_health "$pid"
+	run_mode "POST /devices/batch (${REQUEST_SIZE} per request)" "$WORK/batch.curl" "$batch_size"
+	# A single insert is one statement whatever the batch size; measure it once, next to the largest batch size
+	if [ "$batch_size" = "${BATCH_SIZES##* }" ]; then
+		run_mode "POST /devices (one per request)" "$WORK/single.curl" "-"
+	fi
+
+	kill "$pid"
+	wait "$pid" 2>/dev/null || true
+	trap - EXIT
+}
+
+mkdir -p target
+write_configs
+{
+	echo "# Batch insert benchmark ($(date -u +%Y-%m-%dT%H:%M:%SZ))"
+	echo
+	echo "${DEVICES} devices, ${CONCURRENCY} concurrent request(s), median of ${RUNS} runs"
+	echo
+	echo "| path | hibernate.jdbc.batch_size | devices | elapsed | devices/s |"
+	echo "|------|---------------------------|---------|---------|-----------|"
+} > "$REPORT"
+
+for batch_size in $BATCH_SIZES; do
+	run_batch_size "$batch_size"
+done
+
+echo
+echo "Report written to ${REPORT}"
@@ -0,0 +1,169 @@
+#!/usr/bin/env bash
+#
+# Compares throughput and latency of the servlet stack (Tomcat + JPA) and the reactive profile (WebFlux on Netty +
+# R2DBC) on a page read, a single-device read and an NDJSON export. Every request set is sent by one curl process
+# over kept-alive connections, at each concurrency in CONCURRENCIES.
+#
+# Requirements:
+#   - the application jar:      ./mvnw clean package -DskipTests
+#   - a running Postgres:       docker-compose up -d postgres
+#
+# Usage:
+#   perf/reactive-benchmark.sh
+#   CONCURRENCIES="1 32 128" REQUESTS=5000 perf/reactive-benchmark.sh
+#
+# Results are printed and written to target/reactive-benchmark.md. Benchmark devices are deleted afterwards.
+
+set -euo pipefail
+
+JAR=${JAR:-target/device-api-0.0.1-SNAPSHOT.jar}
+PORT=${PORT:-8080}
+CONCURRENCIES=${CONCURRENCIES:-"1 16 64"}
+REQUESTS=${REQUESTS:-2000}
+EXPORTS=${EXPORTS:-40}
+SEED_DEVICES=${SEED_DEVICES:-5000}
+REPORT=${REPORT:-target/reactive-benchmark.md}
+
+export SPRING_DATASOURCE_URL=${SPRING_DATASOURCE_URL:-jdbc:postgresql://localhost:5432/postgres}
+export SPRING_DATASOURCE_USERNAME=${SPRING_DATASOURCE_USERNAME:-postgres}
+export SPRING_DATASOURCE_PASSWORD=${SPRING_DATASOURCE_PASSWORD:-admin}
+export SPRING_R2DBC_URL=${SPRING_R2DBC_URL:-r2dbc:postgresql://localhost:5432/postgres}
+
+BASE_URL="http://localhost:${PORT}"
+WORK=target/reactive-benchmark
+BRAND=reactive-benchmark
+
+now_ms() {
+	echo $(($(date +%s%N) / 1000000))
+}
+
+# Waits for the instance just started; fails as soon as it exits, so another process on the port is never measured
+wait_for_health() {
+	local pid=$1
+	for _ in $(seq 1 120); do
+		if ! kill -0 "$pid" 2>/dev/null; then
+			echo "application exited during startup, see target/reactive-benchmark-*.log" >&2
+			return 1
+		fi
+		if curl -fs "${BASE_URL}/actuator/health" > /dev/null; then
+			return 0
+		fi
+		sleep 0.5
+	done
+	echo "application did not become healthy" >&2
+	return 1
+}
+
+seed_devices() {
+	local batch=1000
+	local created=0
+	while [ "$created" -lt "$SEED_DEVICES" ]; do
+		local body="["
+		for i in $(seq 1 "$batch"); do
+			body+="{\"name\":\"Bench device $((created + i))\",\"brand\":\"${BRAND}\",\"state\":\"AVAILABLE\"},"
+		done
+		body="${body%,}]"
+		curl -fs -o /dev/null -H 'Content-Type: application/json' -d "$body" "${BASE_URL}/devices/batch"
+		created=$((created + batch))
+	done
+}
+
+delete_benchmark_devices() {
+	curl -fs -o /dev/null -X DELETE -H 'Content-Type: application/json' -d "{\"brand\":\"${BRAND}\"}" "${BASE_URL}/devices"
+}
+
+# One curl config per endpoint; single-device reads cycle through the seeded IDs
+write_configs() {
+	mkdir -p "$WORK"
+	local ids
+	mapfile -t ids < <(curl -fs -H 'Accept: application/x-ndjson' "${BASE_URL}/devices/brand/${BRAND}" \
+		| grep -o '"id":[0-9]*' | cut -d: -f2)
+	local request_options='output = "/dev/null"\nwrite-out = "%%{http_code} %%{time_total}\\n"\n'
+
+	: > "$WORK/page.curl"
+	: > "$WORK/device.curl"
+	for i in $(seq 1 "$REQUESTS"); do
+		[ "$i" -gt 1 ] && echo next | tee -a "$WORK/page.curl" >> "$WORK/device.curl"
+		printf "url = \"%s/devices?limit=50\"\n${request_options}" "$BASE_URL" >> "$WORK/page.curl"
+		printf "url = \"%s/devices/%s\"\n${request_options}" "$BASE_URL" "${ids[$((i % ${#ids[@]}))]}" \
+			>> "$WORK/device.curl"
+	done
+
+	: > "$WORK/export.curl"
+	for i in $(seq 1 "$EXPORTS"); do
+		[ "$i" -gt 1 ] && echo next >> "$WORK/export.curl"
+		printf "url = \"%s/devices/brand/%s\"\nheader = \"Accept: application/x-ndjson\"\n${request_options}" \
+			"$BASE_URL" "$BRAND" >> "$WORK/export.curl"
+	done
+}
+
+percentile() {
+	sort -n | awk -v p="$1" '{ values[NR] = $1 } END { i = int(NR * p / 100 + 0.999); if (i < 1) i = 1; printf "%.1f ms", values[i] * 1000 }'
+}
+
+# Sends every request of the config once and appends a report row
+measure() {
+	local stack=$1 label=$2 config=$3 concurrency=$4
+	local start output elapsed count
+	start=$(now_ms)
+	output=$(curl -s --no-progress-meter --parallel --parallel-max "$concurrency" -K "$config")
+	elapsed=$(($(now_ms) - start))
+	count=$(echo "$output" | wc -l)
+	local errors
+	errors=$(echo "$output" | awk '$1 != "200" { print $1 }' | sort | uniq -c | awk '{ printf "%s x %s ", $1, $2 }')
+	echo "| ${stack} | ${label} | ${concurrency} | $(awk -v n="$count" -v ms="$elapsed" 'BEGIN { printf "%.0f", n * 1000 / ms }') | $(echo "$output" | awk '{ print $2 }' | percentile 50) | $(echo "$output" | awk '{ print $2 }' | percentile 99) | ${errors:-none} |" \
+		| tee -a "$REPORT"
+}
+
+run_stack() {
+	local stack=$1 profiles=$2
+
+	if curl -s -o /dev/null "${BASE_URL}/actuator/health"; then
+		echo "port ${PORT} is already in use; stop that process or set PORT" >&2
+		exit 1
+	fi
+	SPRING_PROFILES_ACTIVE=$profiles java -jar "$JAR" --server.port="$PORT" --spring.jpa.show-sql=false \
+		> "target/reactive-benchmark-${stack}.log" 2>&1 &
+	local pid=$!
+	trap "kill $pid 2>/dev/null || true" EXIT
+
+	wait_for_health "$pid"
+	if [ "$stack" = "servlet" ]; then
+		seed_devices
+		write_configs
+	fi
+
+	# Warm up the JIT and both connection pools before measuring
+	curl -s --no-progress-meter --parallel --parallel-max 16 -K "$WORK/page.curl" > /dev/null
+	curl -s --no-progress-meter --parallel --parallel-max 16 -K "$WORK/device.curl" > /dev/null
+	curl -s --no-progress-meter --parallel --parallel-max 4 -K "$WORK/export.curl" > /dev/null
+
+	for concurrency in $CONCURRENCIES; do
+		measure "$stack" "GET /devices?limit=50" "$WORK/page.curl" "$concurrency"
+		measure "$stack" "GET /devices/{id}" "$WORK/device.curl" "$concurrency"
+		measure "$stack" "NDJSON export (${SEED_DEVICES} devices)" "$WORK/export.curl" "$concurrency"
+	done
+
+	if [ "$stack" = "reactive" ]; then
+		delete_benchmark_devices
+	fi
+	kill "$pid"
+	wait "$pid" 2>/dev/null || true
+	trap - EXIT
+}
+
+mkdir -p target
+{
+	echo "# Reactive benchmark ($(date -u +%Y-%m-%dT%H:%M:%SZ))"
+	echo
+	echo "${REQUESTS} reads and ${EXPORTS} exports per row"
+	echo
+	echo "| stack | request | concurrency | requests/s | p50 | p99 | errors |"
+	echo "|-------|---------|-------------|------------|-----|-----|--------|"
+} > "$REPORT"
+
+run_stack servlet ""
+run_stack reactive reactive
+
+echo
+echo "Report written to ${REPORT}"
@@ -0,0 +1,103 @@
+#!/usr/bin/env bash
+#
+# Compares cold-start time of the plain executable jar and the fast-startup build (Spring AOT + CDS archive).
+# Each run starts a fresh JVM and measures the time from launch until GET /devices answers 200, next to the startup
+# time Spring Boot logs.
+#
+# Requirements:
+#   - the fast-startup build:   ./mvnw -Pfast-startup clean package -DskipTests
+#     (target/device-api-0.0.1-SNAPSHOT.jar also serves the plain mode; AOT code is only used when enabled)
+#   - a running Postgres:       docker-compose up -d postgres
+#
+# Usage:
+#   perf/startup-benchmark.sh
+#   RUNS=10 perf/startup-benchmark.sh
+#
+# Results are printed and written to target/startup-benchmark.md.
+
+set -euo pipefail
+
+JAR=${JAR:-target/device-api-0.0.1-SNAPSHOT.jar}
+FAST_STARTUP_DIR=${FAST_STARTUP_DIR:-target/fast-startup}
+PORT=${PORT:-8080}
+RUNS=${RUNS:-5}
+TARGET_PATH=${TARGET_PATH:-/devices?limit=1}
+REPORT=${REPORT:-target/startup-benchmark.md}
+
+export SPRING_DATASOURCE_URL=${SPRING_DATASOURCE_URL:-jdbc:postgresql://localhost:5432/postgres}
+export SPRING_DATASOURCE_USERNAME=${SPRING_DATASOURCE_USERNAME:-postgres}
+export SPRING_DATASOURCE_PASSWORD=${SPRING_DATASOURCE_PASSWORD:-admin}
+
+URL="http://localhost:${PORT}${TARGET_PATH}"
+LOG=$(pwd)/target/startup-benchmark.log
+
+if [ ! -f "${FAST_STARTUP_DIR}/application.args" ]; then
+	echo "${FAST_STARTUP_DIR} is missing, build with ./mvnw -Pfast-startup package" >&2
+	exit 1
+fi
+
+now_ms() {
+	echo $(($(date +%s%N) / 1000000))
+}
+
+median() {
+	sort -n | awk '{ values[NR] = $1 } END { print (NR % 2) ? values[(NR + 1) / 2] : (values[NR / 2] + values[NR / 2 + 1]) / 2 }'
+}
+
+# Starts the mode once and prints the milliseconds until the first successful request
+run_once() {
+	local mode=$1
+	local start pid
+	start=$(now_ms)
+	if [ "$mode" = "jar" ]; then
+		java -jar "$JAR" --server.port="$PORT" > "$LOG" 2>&1 &
+	else
+		(cd "$FAST_STARTUP_DIR" && exec env SPRING_PROFILES_ACTIVE=fast-startup java @application.args --server.port="$PORT") > "$LOG" 2>&1 &
+	fi
+	pid=$!
+	trap 'kill $pid 2>/dev/null || true' EXIT
+
+	until curl -fs -o /dev/null "$URL"; do
+		if ! kill -0 "$pid" 2>/dev/null; then
+			echo "${mode} exited before answering, see ${LOG}" >&2
+			exit 1
+		fi
+		sleep 0.02
+	done
+	local elapsed=$(($(now_ms) - start))
+
+	kill "$pid"
+	wait "$pid" 2>/dev/null || true
+	trap - EXIT
+	echo "$elapsed"
+}
+
+run_mode() {
+	local mode=$1
+	local first_requests=() started=()
+	for run in $(seq 1 "$RUNS"); do
+		first_requests+=("$(run_once "$mode")")
+		started+=("$(sed -n 's/.*Started DeviceApiApplication in \([0-9.]*\) seconds.*/\1/p' "$LOG")")
+		echo "${mode} run ${run}: first request after ${first_requests[-1]} ms (Spring Boot reports ${started[-1]} s)" >&2
+	done
+	local first_request_median started_median
+	first_request_median=$(printf '%s\n' "${first_requests[@]}" | median)
+	started_median=$(printf '%s\n' "${started[@]}" | median)
+	echo "| ${mode} | ${first_request_median} ms | ${started_median} s | ${first_requests[*]} |" | tee -a "$REPORT"
+}
+
+mkdir -p target
+{
+	echo "# Startup benchmark ($(date -u +%Y-%m-%dT%H:%M:%SZ))"
+	echo
+	echo "Time from JVM launch to the first 200 from GET ${TARGET_PATH}, median of ${RUNS} runs"
+	echo
+	echo "| mode | first successful request | Spring Boot startup | runs (ms) |"
+	echo "|------|--------------------------|---------------------|-----------|"
+} > "$REPORT"
+
+run_mode jar
+run_mode fast-startup
+
+echo
+echo "Report written to ${REPORT}"
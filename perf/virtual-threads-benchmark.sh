@@ -0,0 +1,111 @@
+#!/usr/bin/env bash
+#
+# Compares throughput and p99 latency of the platform-thread and virtual-thread execution modes.
+#
+# Requirements:
+#   - the application jar:      ./mvnw clean package -DskipTests
+#   - a running Postgres:       docker-compose up -d postgres
+#   - wrk (https://github.com/wg/wrk) on the PATH
+#
+# Usage:
+#   perf/virtual-threads-benchmark.sh
+#   CONNECTIONS="200 2000" DURATION=60s perf/virtual-threads-benchmark.sh
+#
+# Results are printed and written to target/virtual-threads-benchmark.md.
+
+set -euo pipefail
+
+JAR=${JAR:-target/device-api-0.0.1-SNAPSHOT.jar}
+PORT=${PORT:-8080}
+DURATION=${DURATION:-30s}
+CONNECTIONS=${CONNECTIONS:-"200 2000 20000"}
+WRK_THREADS=${WRK_THREADS:-8}
+SEED_DEVICES=${SEED_DEVICES:-5000}
+TARGET_PATH=${TARGET_PATH:-/devices?limit=50}
+REPORT=${REPORT:-target/virtual-threads-benchmark.md}
+
+export SPRING_DATASOURCE_URL=${SPRING_DATASOURCE_URL:-jdbc:postgresql://localhost:5432/postgres}
+export SPRING_DATASOURCE_USERNAME=${SPRING_DATASOURCE_USERNAME:-postgres}
+export SPRING_DATASOURCE_PASSWORD=${SPRING_DATASOURCE_PASSWORD:-admin}
+
+BASE_URL="http://localhost:${PORT}"
+
+# 20k client connections need as many file descriptors on both sides
+ulimit -n 65535 2>/dev/null || echo "warning: could not raise the open file limit, high connection counts may fail"
+
+wait_for_health() {
+	for _ in $(seq 1 120); do
+		if curl -fs "${BASE_URL}/actuator/health" > /dev/null; then
+			return 0
+		fi
+		sleep 0.5
+	done
+	echo "application did not become healthy" >&2
+	return 1
+}
+
+seed_devices() {
+	local batch=1000
+	local created=0
+	while [ "$created" -lt "$SEED_DEVICES" ]; do
+		local body="["
+		for i in $(seq 1 "$batch"); do
+			body+="{\"name\":\"Bench device $((created + i))\",\"brand\":\"Brand $((i % 20))\",\"state\":\"AVAILABLE\"},"
+		done
+		body="${body%,}]"
+		curl -fs -o /dev/null -H 'Content-Type: application/json' -d "$body" "${BASE_URL}/devices/batch"
+		created=$((created + batch))
+	done
+}
+
+run_mode() {
+	local mode=$1
+	local profiles=$2
+
+	SPRING_PROFILES_ACTIVE=$profiles java -jar "$JAR" --server.port="$PORT" --spring.jpa.show-sql=false \
+		> "target/benchmark-${mode}.log" 2>&1 &
+	local pid=$!
+	trap 'kill $pid 2>/dev/null || true' EXIT
+
+	wait_for_health
+	if [ "$mode" = "platform" ]; then
+		seed_devices
+	fi
+
+	# Warm up the JIT and the connection pool before measuring
+	wrk -t"$WRK_THREADS" -c100 -d10s "${BASE_URL}${TARGET_PATH}" > /dev/null
+
+	for connections in $CONNECTIONS; do
+		local threads=$WRK_THREADS
+		if [ "$connections" -lt "$threads" ]; then
+			threads=$connections
+		fi
+		local output
+		output=$(wrk -t"$threads" -c"$connections" -d"$DURATION" --timeout 10s --latency "${BASE_URL}${TARGET_PATH}")
+		local rps p99 errors
+		rps=$(echo "$output" | awk '/Requests\/sec/ {print $2}')
+		p99=$(echo "$output" | awk '$1 == "99%" {print $2}')
+		errors=$(echo "$output" | awk '/Socket errors|Non-2xx/ {printf "%s ", $0}')
+		echo "| ${mode} | ${connections} | ${rps} | ${p99} | ${errors:-none} |" | tee -a "$REPORT"
+	done
+
+	kill "$pid"
+	wait "$pid" 2>/dev/null || true
+	trap - EXIT
+}
+
+mkdir -p target
+{
+	echo "# Virtual threads benchmark ($(date -u +%Y-%m-%dT%H:%M:%SZ))"
+	echo
+	echo "GET ${TARGET_PATH}, ${DURATION} per run"
+	echo
+	echo "| mode | connections | requests/sec | p99 latency | errors |"
+	echo "|------|-------------|--------------|-------------|--------|"
+} > "$REPORT"
+
+run_mode platform ""
+run_mode virtual virtual-threads
+
+echo
+echo "Report written to ${REPORT}"
@@ -0,0 +1,62 @@
+#!/usr/bin/env bash
+#
+# Turns the fast-startup application jar into a flat classpath and records a CDS archive of the classes loaded
+# while the Spring context starts. Run by ./mvnw -Pfast-startup package and by Dockerfile.fast-startup; the archive
+# only works with the JVM that created it, so the image records its own.
+#
+# Usage:
+#   scripts/cds-archive.sh target/device-api-0.0.1-SNAPSHOT.jar target/fast-startup
+#
+# The output directory holds application.jar (the application classes; CDS archives nothing from directories),
+# lib/ (the dependencies), application.jsa and application.args, the JVM options and main class to start it with:
+#
+#   cd target/fast-startup && SPRING_PROFILES_ACTIVE=fast-startup java @application.args
+#
+# The training run refreshes the context and exits before the web server starts. It skips migrations and has the
+# dialect stand in for JDBC metadata (fast-startup profile), so it never connects to the database it is given.
+
+set -euo pipefail
+
+if [ $# -ne 2 ]; then
+	echo "usage: $0 <application jar> <output directory>" >&2
+	exit 1
+fi
+
+JAR=$(cd "$(dirname "$1")" && pwd)/$(basename "$1")
+OUT=$2
+JAVA_BIN=${JAVA_HOME:+$JAVA_HOME/bin/}
+MAIN_CLASS=com.mateusascacibas.device_api.DeviceApiApplication
+AOT_INITIALIZER=BOOT-INF/classes/com/mateusascacibas/device_api/DeviceApiApplication__ApplicationContextInitializer.class
+
+rm -rf "$OUT"
+mkdir -p "$OUT/exploded"
+cd "$OUT"
+
+(cd exploded && "${JAVA_BIN}jar" -xf "$JAR")
+if [ ! -f "exploded/${AOT_INITIALIZER}" ]; then
+	echo "$JAR has no AOT-generated code, build it with ./mvnw -Pfast-startup package" >&2
+	exit 1
+fi
+
+"${JAVA_BIN}jar" -cf application.jar -C exploded/BOOT-INF/classes .
+mv exploded/BOOT-INF/lib lib
+
+# Keep the dependency order of the executable jar (BOOT-INF/classpath.idx lines read - "BOOT-INF/lib/<name>.jar")
+classpath=application.jar
+while IFS= read -r jar; do
+	classpath+=":lib/${jar}"
+done < <(sed -n 's|^- "BOOT-INF/lib/\(.*\)"$|\1|p' exploded/BOOT-INF/classpath.idx)
+rm -rf exploded
+
+SPRING_PROFILES_ACTIVE=${SPRING_PROFILES_ACTIVE:-fast-startup} "${JAVA_BIN}java" -cp "$classpath" \
+	-XX:ArchiveClassesAtExit=application.jsa -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+	"$MAIN_CLASS" --device.flyway.migrate-on-startup=false \
+	--spring.datasource.url=jdbc:postgresql://localhost:5432/cds-training \
+	--spring.datasource.username=cds-training --spring.datasource.password=cds-training > cds-training.log 2>&1 || {
+	cat cds-training.log >&2
+	exit 1
+}
+
+printf '%s\n' "-cp ${classpath}" "-XX:SharedArchiveFile=application.jsa" "-Dspring.aot.enabled=true" "$MAIN_CLASS" \
+	> application.args
+echo "CDS archive written to ${OUT}/application.jsa ($(du -h application.jsa | cut -f1))"
@@ -0,0 +1,48 @@
+package com.mateusascacibas.device_api.application.mapper;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mateusascacibas.device_api.application.dto.DeviceRequestDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+import com.mateusascacibas.device_api.domain.model.Device;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeviceMapperBenchmark {
+
+	private DeviceRequestDTO request;
+	private Device device;
+
+	@Setup
+	public void setUp() {
+		request = new DeviceRequestDTO("Galaxy Tab S9", "Samsung", StateEnum.AVAILABLE);
+		device = new Device(42L, "Galaxy Tab S9", "Samsung", StateEnum.AVAILABLE, LocalDateTime.now());
+	}
+
+	@Benchmark
+	public Device toEntity() {
+		return DeviceMapper.toEntity(request);
+	}
+
+	@Benchmark
+	public DeviceResponseDTO toDTO() {
+		return DeviceMapper.toDTO(device);
+	}
+}
@@ -0,0 +1,66 @@
+package com.mateusascacibas.device_api.application.service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.mateusascacibas.device_api.application.dto.DeviceRequestDTO;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+import com.mateusascacibas.device_api.domain.model.Device;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeviceServiceValidationBenchmark {
+
+	private DeviceService deviceService;
+	private Device availableDevice;
+	private Device inUseDevice;
+	private DeviceRequestDTO renameRequest;
+	private DeviceRequestDTO stateOnlyRequest;
+
+	@Setup
+	public void setUp() {
+		deviceService = new DeviceService();
+		availableDevice = new Device(1L, "Phone", "Samsung", StateEnum.AVAILABLE, LocalDateTime.now());
+		inUseDevice = new Device(2L, "Phone", "Samsung", StateEnum.IN_USE, LocalDateTime.now());
+		renameRequest = new DeviceRequestDTO("Tablet", "Apple", StateEnum.AVAILABLE);
+		stateOnlyRequest = new DeviceRequestDTO(null, null, StateEnum.INACTIVE);
+	}
+
+	@Benchmark
+	public void validateRenameOfAvailableDevice(Blackhole blackhole) {
+		deviceService.validateUpdate(renameRequest, availableDevice);
+		blackhole.consume(availableDevice);
+	}
+
+	@Benchmark
+	public void validateStateChangeOfInUseDevice(Blackhole blackhole) {
+		deviceService.validateUpdate(stateOnlyRequest, inUseDevice);
+		blackhole.consume(inUseDevice);
+	}
+
+	@Benchmark
+	public Object rejectRenameOfInUseDevice() {
+		try {
+			deviceService.validateUpdate(renameRequest, inUseDevice);
+			return null;
+		} catch (IllegalStateException ex) {
+			return ex;
+		}
+	}
+}
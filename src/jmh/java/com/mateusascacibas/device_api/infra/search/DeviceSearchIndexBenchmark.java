@@ -0,0 +1,55 @@
+package com.mateusascacibas.device_api.infra.search;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class DeviceSearchIndexBenchmark {
+
+	private static final String[] SERIES = { "Galaxy", "Pixel", "iPhone", "ThinkPad", "Surface", "Xperia", "Redmi",
+			"Moto", "Zenbook", "Inspiron", "Latitude", "Pavilion", "Aspire", "Yoga", "Nord", "Mate" };
+	private static final String[] VARIANTS = { "", " Pro", " Max", " Lite", " Plus", " Ultra", " Mini", " Air" };
+
+	@Param({ "1000000" })
+	private int devices;
+
+	// Selective name match, broad name prefix, short word prefix, brand substring, no match
+	@Param({ "s4711", "galaxy", "pix", "ul", "rand12", "nokia" })
+	private String query;
+
+	private DeviceSearchIndex index;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		index = new DeviceSearchIndex();
+		for (long id = 1; id <= devices; id++) {
+			String name = SERIES[random.nextInt(SERIES.length)] + " " + (char) ('A' + random.nextInt(26))
+					+ random.nextInt(10_000) + VARIANTS[random.nextInt(VARIANTS.length)];
+			index.index(id, name, "Brand" + random.nextInt(500));
+		}
+	}
+
+	@Benchmark
+	public List<Long> searchTop20() {
+		return index.search(query, 20);
+	}
+}
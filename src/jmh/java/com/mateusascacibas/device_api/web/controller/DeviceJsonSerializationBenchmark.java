@@ -0,0 +1,69 @@
+package com.mateusascacibas.device_api.web.controller;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mateusascacibas.device_api.application.dto.DevicePageDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeviceJsonSerializationBenchmark {
+
+	private static final int LIST_SIZE = 10_000;
+
+	private ObjectWriter deviceWriter;
+	private ObjectWriter pageWriter;
+	private DeviceResponseDTO device;
+	private DevicePageDTO page;
+
+	@Setup
+	public void setUp() {
+		// Same defaults Spring Boot applies to the ObjectMapper used by the message converters
+		ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		deviceWriter = objectMapper.writerFor(DeviceResponseDTO.class);
+		pageWriter = objectMapper.writerFor(DevicePageDTO.class);
+
+		LocalDateTime now = LocalDateTime.now();
+		StateEnum[] states = StateEnum.values();
+		List<DeviceResponseDTO> devices = new ArrayList<>(LIST_SIZE);
+		for (int i = 0; i < LIST_SIZE; i++) {
+			devices.add(new DeviceResponseDTO((long) i, "Device " + i, "Brand " + (i % 50), states[i % states.length],
+					now.minusMinutes(i), (long) (i % 7)));
+		}
+		device = devices.get(0);
+		page = new DevicePageDTO(devices, (long) LIST_SIZE);
+	}
+
+	@Benchmark
+	public byte[] serializeSingleDevice() throws JsonProcessingException {
+		return deviceWriter.writeValueAsBytes(device);
+	}
+
+	@Benchmark
+	public byte[] serializePageOf10kDevices() throws JsonProcessingException {
+		return pageWriter.writeValueAsBytes(page);
+	}
+}
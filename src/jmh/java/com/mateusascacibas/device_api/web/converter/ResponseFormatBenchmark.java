@@ -0,0 +1,87 @@
+package com.mateusascacibas.device_api.web.converter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mateusascacibas.device_api.application.dto.DevicePageDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.application.service.DeviceService;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+
+/**
+ * Serialization cost of a full list page (the largest response a list endpoint returns) in every negotiable
+ * format, with and without gzip. The payload size of each combination is printed once per fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseFormatBenchmark {
+
+	@Param({ "json", "smile", "cbor", "protobuf" })
+	private String format;
+
+	@Param({ "false", "true" })
+	private boolean gzip;
+
+	// Same mappers Spring MVC builds for its JSON, Smile and CBOR converters
+	private ObjectWriter writer;
+	private DevicePageDTO page;
+
+	@Setup
+	public void setUp() throws IOException {
+		writer = switch (format) {
+		case "json" -> Jackson2ObjectMapperBuilder.json().build().writerFor(DevicePageDTO.class);
+		case "smile" -> Jackson2ObjectMapperBuilder.smile().build().writerFor(DevicePageDTO.class);
+		case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build().writerFor(DevicePageDTO.class);
+		default -> null;
+		};
+
+		LocalDateTime now = LocalDateTime.now();
+		StateEnum[] states = StateEnum.values();
+		List<DeviceResponseDTO> devices = new ArrayList<>(DeviceService.MAX_PAGE_SIZE);
+		for (int i = 0; i < DeviceService.MAX_PAGE_SIZE; i++) {
+			devices.add(new DeviceResponseDTO(100_000L + i, "Device " + i, "Brand " + (i % 50), states[i % states.length],
+					now.minusMinutes(i), (long) (i % 7)));
+		}
+		page = new DevicePageDTO(devices, 100_000L + DeviceService.MAX_PAGE_SIZE);
+
+		System.out.printf("%n%s%s: %d bytes per %d-device page%n", format, gzip ? "+gzip" : "", serializePage().length,
+				DeviceService.MAX_PAGE_SIZE);
+	}
+
+	@Benchmark
+	public byte[] serializePage() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+		try (OutputStream out = gzip ? new GZIPOutputStream(bytes, 8192) : bytes) {
+			if (writer != null) {
+				writer.writeValue(out, page);
+			} else {
+				DeviceProtobufHttpMessageConverter.toMessage(page).writeTo(out);
+			}
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,64 @@
+package com.mateusascacibas.device_api.web.handler;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mateusascacibas.device_api.application.exception.DeviceNotFoundException;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GlobalExceptionHandlerBenchmark {
+
+	private GlobalExceptionHandler handler;
+	private ObjectMapper objectMapper;
+	private DeviceNotFoundException notFound;
+	private IllegalStateException conflict;
+
+	@Setup
+	public void setUp() {
+		handler = new GlobalExceptionHandler();
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		notFound = new DeviceNotFoundException(42L);
+		conflict = new IllegalStateException("Cannot update name or brand when device is IN_USE");
+	}
+
+	@Benchmark
+	public DeviceNotFoundException createNotFoundException() {
+		return new DeviceNotFoundException(42L);
+	}
+
+	@Benchmark
+	public ResponseEntity<Object> buildNotFoundResponse() {
+		return handler.handleDeviceNotFound(notFound);
+	}
+
+	@Benchmark
+	public ResponseEntity<Object> buildConflictResponse() {
+		return handler.handleIllegalState(conflict);
+	}
+
+	@Benchmark
+	public byte[] notFoundEndToEnd() throws JsonProcessingException {
+		// Throw site to serialized body, as a request for an unknown ID pays it
+		ResponseEntity<Object> response = handler.handleDeviceNotFound(new DeviceNotFoundException(42L));
+		return objectMapper.writeValueAsBytes(response.getBody());
+	}
+}
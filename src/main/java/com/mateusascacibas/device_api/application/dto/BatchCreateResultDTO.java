@@ -0,0 +1,6 @@
+package com.mateusascacibas.device_api.application.dto;
+
+import java.util.List;
+
+public record BatchCreateResultDTO(int created, int rejected, List<BatchItemResultDTO> results) {
+}
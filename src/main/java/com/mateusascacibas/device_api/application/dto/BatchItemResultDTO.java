@@ -0,0 +1,18 @@
+package com.mateusascacibas.device_api.application.dto;
+
+import java.util.List;
+
+public record BatchItemResultDTO(int index, BatchItemStatus status, DeviceResponseDTO device, List<String> errors) {
+
+	public enum BatchItemStatus {
+		CREATED, REJECTED
+	}
+
+	public static BatchItemResultDTO created(int index, DeviceResponseDTO device) {
+		return new BatchItemResultDTO(index, BatchItemStatus.CREATED, device, List.of());
+	}
+
+	public static BatchItemResultDTO rejected(int index, List<String> errors) {
+		return new BatchItemResultDTO(index, BatchItemStatus.REJECTED, null, errors);
+	}
+}
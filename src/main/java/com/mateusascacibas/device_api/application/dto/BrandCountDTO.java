@@ -0,0 +1,4 @@
+package com.mateusascacibas.device_api.application.dto;
+
+public record BrandCountDTO(String brand, Long count) {
+}
@@ -0,0 +1,10 @@
+package com.mateusascacibas.device_api.application.dto;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+
+public record ChangedDeviceDTO(Long id, String name, String brand, StateEnum state, LocalDateTime creationTime,
+		Long version, Instant lastModified) {
+}
@@ -0,0 +1,31 @@
+package com.mateusascacibas.device_api.application.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Position in the (time, id) order of device changes and deletions. Clients only see it as an opaque string.
+ */
+public record DeviceChangeToken(Instant time, long id) {
+
+	public static final DeviceChangeToken START = new DeviceChangeToken(Instant.EPOCH, 0L);
+
+	public String encode() {
+		String position = ChronoUnit.MICROS.between(Instant.EPOCH, time) + ":" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	public static DeviceChangeToken parse(String token) {
+		try {
+			String position = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+			int separator = position.indexOf(':');
+			long micros = Long.parseLong(position.substring(0, separator));
+			long id = Long.parseLong(position.substring(separator + 1));
+			return new DeviceChangeToken(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), id);
+		} catch (RuntimeException ex) {
+			throw new IllegalArgumentException("Invalid change token: " + token);
+		}
+	}
+}
@@ -0,0 +1,6 @@
+package com.mateusascacibas.device_api.application.dto;
+
+import java.util.List;
+
+public record DeviceChangesDTO(List<ChangedDeviceDTO> changed, List<Long> deleted, String nextToken, boolean hasMore) {
+}
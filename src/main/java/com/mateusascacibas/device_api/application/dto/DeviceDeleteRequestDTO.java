@@ -0,0 +1,8 @@
+package com.mateusascacibas.device_api.application.dto;
+
+import java.util.List;
+
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+
+public record DeviceDeleteRequestDTO(List<Long> ids, String brand, StateEnum state) {
+}
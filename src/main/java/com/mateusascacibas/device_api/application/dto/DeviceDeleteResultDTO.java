@@ -0,0 +1,10 @@
+package com.mateusascacibas.device_api.application.dto;
+
+import java.util.List;
+
+public record DeviceDeleteResultDTO(int deleted, int rejected, List<Long> notFound, List<Long> inUse) {
+
+	public static DeviceDeleteResultDTO of(int deleted, List<Long> notFound, List<Long> inUse) {
+		return new DeviceDeleteResultDTO(deleted, notFound.size() + inUse.size(), notFound, inUse);
+	}
+}
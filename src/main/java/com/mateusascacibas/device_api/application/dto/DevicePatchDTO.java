@@ -0,0 +1,13 @@
+package com.mateusascacibas.device_api.application.dto;
+
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+
+import jakarta.validation.constraints.Pattern;
+
+public record DevicePatchDTO(@Pattern(regexp = ".*\\S.*", message = "Name cannot be blank") String name,
+		@Pattern(regexp = ".*\\S.*", message = "Brand cannot be blank") String brand, StateEnum state) {
+
+	public boolean isEmpty() {
+		return name == null && brand == null && state == null;
+	}
+}
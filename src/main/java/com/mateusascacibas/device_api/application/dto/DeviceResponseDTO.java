@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 
 import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
 
-public record DeviceResponseDTO(Long id, String name, String brand, StateEnum state, LocalDateTime creationTime) {
+public record DeviceResponseDTO(Long id, String name, String brand, StateEnum state, LocalDateTime creationTime,
+		Long version) {
 
 }
@@ -0,0 +1,6 @@
+package com.mateusascacibas.device_api.application.dto;
+
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+
+public record DeviceStateDTO(Long id, String brand, StateEnum state) {
+}
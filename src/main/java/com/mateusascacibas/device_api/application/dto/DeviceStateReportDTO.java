@@ -0,0 +1,10 @@
+package com.mateusascacibas.device_api.application.dto;
+
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+
+public record DeviceStateReportDTO(Long id, String name, String brand, StateEnum state) {
+
+	public DevicePatchDTO toPatch() {
+		return new DevicePatchDTO(name, brand, state);
+	}
+}
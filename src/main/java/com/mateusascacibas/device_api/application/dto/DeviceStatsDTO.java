@@ -0,0 +1,7 @@
+package com.mateusascacibas.device_api.application.dto;
+
+import java.util.List;
+
+public record DeviceStatsDTO(long total, List<StateCountDTO> byState, List<BrandCountDTO> byBrand,
+		List<BrandStateCountDTO> byBrandAndState) {
+}
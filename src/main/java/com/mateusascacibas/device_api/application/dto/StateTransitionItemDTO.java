@@ -0,0 +1,16 @@
+package com.mateusascacibas.device_api.application.dto;
+
+public record StateTransitionItemDTO(Long id, TransitionStatus status, DeviceResponseDTO device) {
+
+	public enum TransitionStatus {
+		UPDATED, UNCHANGED, NOT_FOUND, PRECONDITION_FAILED
+	}
+
+	public static StateTransitionItemDTO updated(DeviceResponseDTO device) {
+		return new StateTransitionItemDTO(device.id(), TransitionStatus.UPDATED, device);
+	}
+
+	public static StateTransitionItemDTO of(Long id, TransitionStatus status) {
+		return new StateTransitionItemDTO(id, status, null);
+	}
+}
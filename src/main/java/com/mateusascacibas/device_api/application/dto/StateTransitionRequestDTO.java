@@ -0,0 +1,11 @@
+package com.mateusascacibas.device_api.application.dto;
+
+import java.util.List;
+
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+
+import jakarta.validation.constraints.NotNull;
+
+public record StateTransitionRequestDTO(List<Long> ids, String brand, StateEnum fromState,
+		@NotNull(message = "Target state cannot be null") StateEnum targetState) {
+}
@@ -0,0 +1,6 @@
+package com.mateusascacibas.device_api.application.dto;
+
+import java.util.List;
+
+public record StateTransitionResultDTO(int updated, int unchanged, int rejected, List<StateTransitionItemDTO> results) {
+}
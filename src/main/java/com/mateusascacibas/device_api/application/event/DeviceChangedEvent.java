@@ -0,0 +1,27 @@
+package com.mateusascacibas.device_api.application.event;
+
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+
+/**
+ * Published by DeviceService for every device write. Listeners should use
+ * {@code @TransactionalEventListener} so they only see changes that were committed.
+ * {@code device} is null for deletions.
+ */
+public record DeviceChangedEvent(Type type, Long id, DeviceResponseDTO device) {
+
+	public enum Type {
+		CREATED, UPDATED, DELETED
+	}
+
+	public static DeviceChangedEvent created(DeviceResponseDTO device) {
+		return new DeviceChangedEvent(Type.CREATED, device.id(), device);
+	}
+
+	public static DeviceChangedEvent updated(DeviceResponseDTO device) {
+		return new DeviceChangedEvent(Type.UPDATED, device.id(), device);
+	}
+
+	public static DeviceChangedEvent deleted(Long id) {
+		return new DeviceChangedEvent(Type.DELETED, id, null);
+	}
+}
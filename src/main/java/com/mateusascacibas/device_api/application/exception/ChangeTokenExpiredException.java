@@ -0,0 +1,8 @@
+package com.mateusascacibas.device_api.application.exception;
+
+public class ChangeTokenExpiredException extends RuntimeException{
+
+	public ChangeTokenExpiredException(String token) {
+		super("Change token " + token + " is older than the deletion history; sync again without a token");
+	}
+}
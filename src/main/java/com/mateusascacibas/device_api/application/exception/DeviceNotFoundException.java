@@ -3,6 +3,7 @@ package com.mateusascacibas.device_api.application.exception;
 public class DeviceNotFoundException extends RuntimeException{
 
 	public DeviceNotFoundException(Long id) {
-		super("Device not found with id: " + id);
+		// Unknown IDs are a client error thrown at scanner rates; a stack trace would only point at the same lookup
+		super("Device not found with id: " + id, null, false, false);
 	}
 }
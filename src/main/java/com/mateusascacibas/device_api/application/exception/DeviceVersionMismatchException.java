@@ -0,0 +1,12 @@
+package com.mateusascacibas.device_api.application.exception;
+
+public class DeviceVersionMismatchException extends RuntimeException{
+
+	public DeviceVersionMismatchException(Long id, Long expectedVersion, Long currentVersion) {
+		super("Device " + id + " is at version " + currentVersion + " but version " + expectedVersion + " was expected");
+	}
+
+	public DeviceVersionMismatchException(Long id, String ifMatch) {
+		super("If-Match " + ifMatch + " holds no strong ETag of device " + id);
+	}
+}
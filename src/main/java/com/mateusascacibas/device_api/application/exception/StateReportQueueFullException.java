@@ -0,0 +1,17 @@
+package com.mateusascacibas.device_api.application.exception;
+
+import java.time.Duration;
+
+public class StateReportQueueFullException extends RuntimeException{
+
+	private final Duration retryAfter;
+
+	public StateReportQueueFullException(int accepted, int total, Duration retryAfter) {
+		super("State report queue is full; " + accepted + " of " + total + " reports were accepted, retry the rest later");
+		this.retryAfter = retryAfter;
+	}
+
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+}
@@ -16,6 +16,6 @@ public class DeviceMapper {
 
 	public static DeviceResponseDTO toDTO(Device device) {
 		return new DeviceResponseDTO(device.getId(), device.getName(), device.getBrand(), device.getState(),
-				device.getCreationTime());
+				device.getCreationTime(), device.getVersion());
 	}
 }
@@ -0,0 +1,98 @@
+package com.mateusascacibas.device_api.application.service;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.application.event.DeviceChangedEvent;
+import com.mateusascacibas.device_api.infra.config.CacheConfig;
+
+/**
+ * Keeps the device cache in step with committed writes. Updates run after commit, so a reader that misses the cache
+ * meanwhile reloads the row as other transactions see it, and a rolled-back write never reaches the cache.
+ *
+ * <p>A reader caches what it loaded only if no device change committed while its query ran: the row it read may
+ * predate that change, and the change's own update of the cache may already have run.
+ */
+@Component
+public class DeviceCache {
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private SingleFlight singleFlight;
+
+	// Serializes the checks and puts of readers and of committed updates, whose listeners may run in any order
+	private final Lock writes = new ReentrantLock();
+
+	public DeviceResponseDTO get(Long id) {
+		Cache cache = cacheManager.getCache(CacheConfig.DEVICES_CACHE);
+		return cache != null ? cache.get(id, DeviceResponseDTO.class) : null;
+	}
+
+	public DeviceResponseDTO load(Long id, Supplier<DeviceResponseDTO> loader) {
+		long epoch = readStarted();
+		DeviceResponseDTO device = loader.get();
+		putIfUnchanged(id, device, epoch);
+		return device;
+	}
+
+	/**
+	 * Marks the start of a read whose result goes to {@link #putIfUnchanged}, for readers that cannot hand their
+	 * query to {@link #load} because it completes asynchronously.
+	 */
+	public long readStarted() {
+		return singleFlight.writeEpoch();
+	}
+
+	public void putIfUnchanged(Long id, DeviceResponseDTO device, long epoch) {
+		Cache cache = cacheManager.getCache(CacheConfig.DEVICES_CACHE);
+		if (cache == null) {
+			return;
+		}
+		writes.lock();
+		try {
+			// The epoch moves before the committed change reaches onDeviceChanged, which waits for this lock
+			if (singleFlight.writeEpoch() == epoch) {
+				cache.put(id, device);
+			}
+		} finally {
+			writes.unlock();
+		}
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onDeviceChanged(DeviceChangedEvent event) {
+		Cache cache = cacheManager.getCache(CacheConfig.DEVICES_CACHE);
+		if (cache == null || event.type() == DeviceChangedEvent.Type.CREATED) {
+			return;
+		}
+		if (event.type() == DeviceChangedEvent.Type.DELETED) {
+			cache.evict(event.id());
+			return;
+		}
+		writes.lock();
+		try {
+			// An update committed after this one may already be cached
+			DeviceResponseDTO cached = cache.get(event.id(), DeviceResponseDTO.class);
+			if (cached == null || !isNewer(cached, event.device())) {
+				cache.put(event.id(), event.device());
+			}
+		} finally {
+			writes.unlock();
+		}
+	}
+
+	private static boolean isNewer(DeviceResponseDTO device, DeviceResponseDTO other) {
+		return device.version() != null && other.version() != null && device.version() > other.version();
+	}
+}
@@ -1,82 +1,492 @@
 package com.mateusascacibas.device_api.application.service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.mateusascacibas.device_api.application.dto.BatchCreateResultDTO;
+import com.mateusascacibas.device_api.application.dto.BatchItemResultDTO;
+import com.mateusascacibas.device_api.application.dto.BrandCountDTO;
+import com.mateusascacibas.device_api.application.dto.BrandStateCountDTO;
+import com.mateusascacibas.device_api.application.dto.ChangedDeviceDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceChangeToken;
+import com.mateusascacibas.device_api.application.dto.DeviceChangesDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceDeleteRequestDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceDeleteResultDTO;
+import com.mateusascacibas.device_api.application.dto.DevicePageDTO;
+import com.mateusascacibas.device_api.application.dto.DevicePatchDTO;
 import com.mateusascacibas.device_api.application.dto.DeviceRequestDTO;
 import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceStateDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceStatsDTO;
+import com.mateusascacibas.device_api.application.dto.StateCountDTO;
+import com.mateusascacibas.device_api.application.dto.StateTransitionItemDTO;
+import com.mateusascacibas.device_api.application.dto.StateTransitionItemDTO.TransitionStatus;
+import com.mateusascacibas.device_api.application.dto.StateTransitionRequestDTO;
+import com.mateusascacibas.device_api.application.dto.StateTransitionResultDTO;
+import com.mateusascacibas.device_api.application.event.DeviceChangedEvent;
+import com.mateusascacibas.device_api.application.exception.ChangeTokenExpiredException;
 import com.mateusascacibas.device_api.application.exception.DeviceNotFoundException;
+import com.mateusascacibas.device_api.application.exception.DeviceVersionMismatchException;
 import com.mateusascacibas.device_api.application.mapper.DeviceMapper;
 import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
 import com.mateusascacibas.device_api.domain.model.Device;
+import com.mateusascacibas.device_api.domain.model.DeviceTombstone;
 import com.mateusascacibas.device_api.infra.repository.DeviceRepository;
+import com.mateusascacibas.device_api.infra.repository.DeviceTombstoneRepository;
+import com.mateusascacibas.device_api.infra.search.DeviceIdFilter;
+import com.mateusascacibas.device_api.infra.search.DeviceSearchIndex;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.Validator;
 
 @Service
 public class DeviceService {
 
+	public static final int MAX_PAGE_SIZE = 1000;
+	public static final int MAX_BATCH_SIZE = 10000;
+	public static final int MAX_STATS_TOP = 100;
+	public static final int MAX_SEARCH_LIMIT = 100;
+	public static final int MAX_TRANSITION_SIZE = 10000;
+	// IDs per IN list in state transitions; each chunk costs one locking SELECT, one UPDATE and one reload
+	static final int TRANSITION_CHUNK_SIZE = 1000;
+	public static final int MAX_DELETE_SIZE = 10000;
+	// Devices per bulk-delete transaction; bounds the row locks and undo a single commit holds
+	static final int DELETE_CHUNK_SIZE = 1000;
+	// IDs per IN list when a bulk insert restamps last_modified before it commits
+	static final int STAMP_CHUNK_SIZE = 1000;
+
 	@Autowired
 	private DeviceRepository deviceRepository;
 
+	@Autowired
+	private DeviceTombstoneRepository deviceTombstoneRepository;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private Validator validator;
+
+	@Autowired
+	private DeviceSearchIndex deviceSearchIndex;
+
+	@Autowired
+	private DeviceIdFilter deviceIdFilter;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private SingleFlight singleFlight;
+
+	@Autowired
+	private DeviceCache deviceCache;
+
+	@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+	private int batchSize;
+
+	@Value("${device.changes.settle-window:5s}")
+	private Duration changesSettleWindow;
+
+	@Value("${device.changes.tombstone-retention:30d}")
+	private Duration tombstoneRetention;
+
 	public DeviceResponseDTO createDevice(DeviceRequestDTO requestDTO) {
 		Device device = DeviceMapper.toEntity(requestDTO);
 		Device saved = deviceRepository.save(device);
-		return DeviceMapper.toDTO(saved);
+		deviceIdFilter.add(saved.getId());
+		DeviceResponseDTO response = DeviceMapper.toDTO(saved);
+		eventPublisher.publishEvent(DeviceChangedEvent.created(response));
+		return response;
 	}
 
+	@Transactional
+	public BatchCreateResultDTO createDevices(List<DeviceRequestDTO> requests) {
+		if (requests == null || requests.isEmpty()) {
+			throw new IllegalArgumentException("Batch must contain at least one device");
+		}
+		if (requests.size() > MAX_BATCH_SIZE) {
+			throw new IllegalArgumentException("Batch cannot contain more than " + MAX_BATCH_SIZE + " devices");
+		}
+
+		List<BatchItemResultDTO> results = new ArrayList<>(requests.size());
+		List<Long> createdIds = new ArrayList<>(requests.size());
+		// A batch_size of 0 turns JDBC batching off; the persistence context is then flushed after every insert
+		int flushEvery = Math.max(1, batchSize);
+		int created = 0;
+		for (int index = 0; index < requests.size(); index++) {
+			List<String> errors = validateBatchItem(requests.get(index));
+			if (!errors.isEmpty()) {
+				results.add(BatchItemResultDTO.rejected(index, errors));
+				continue;
+			}
+
+			Device saved = deviceRepository.save(DeviceMapper.toEntity(requests.get(index)));
+			createdIds.add(saved.getId());
+			// Added before the commit, so the device is never reported missing once it can be read
+			deviceIdFilter.add(saved.getId());
+			DeviceResponseDTO response = DeviceMapper.toDTO(saved);
+			results.add(BatchItemResultDTO.created(index, response));
+			eventPublisher.publishEvent(DeviceChangedEvent.created(response));
+
+			// Flush one JDBC batch at a time and drop the inserted entities from the persistence context
+			if (++created % flushEvery == 0) {
+				entityManager.flush();
+				entityManager.clear();
+			}
+		}
+		stampBeforeCommit(createdIds);
+		return new BatchCreateResultDTO(created, results.size() - created, results);
+	}
+
+	/**
+	 * Restamps last_modified on the rows a bulk insert created, as its last statement. Pollers of the change feed
+	 * (delta sync, the search index and ID filter of other instances) skip rows stamped more than the settle window
+	 * before they commit; stamped at persist time, the first rows of a large batch could fall that far behind.
+	 */
+	private void stampBeforeCommit(List<Long> ids) {
+		Instant committing = Device.now();
+		for (int from = 0; from < ids.size(); from += STAMP_CHUNK_SIZE) {
+			deviceRepository.stampLastModified(ids.subList(from, Math.min(ids.size(), from + STAMP_CHUNK_SIZE)), committing);
+		}
+	}
+
+	@Transactional
 	public DeviceResponseDTO updateDevice(Long id, DeviceRequestDTO requestDTO) {
+		return updateDevice(id, requestDTO, null);
+	}
+
+	@Transactional
+	public DeviceResponseDTO updateDevice(Long id, DeviceRequestDTO requestDTO, Long expectedVersion) {
+		requireKnownId(id);
 		Device device = deviceRepository.findById(id).orElseThrow(() -> new DeviceNotFoundException(id));
 
+		if (expectedVersion != null && !expectedVersion.equals(device.getVersion())) {
+			throw new DeviceVersionMismatchException(id, expectedVersion, device.getVersion());
+		}
+
 		validateUpdate(requestDTO, device);
+		applyUpdate(requestDTO, device);
 
-		if (requestDTO.state() != null) {
-			device.setState(requestDTO.state());
+		// Flush now so the returned DTO carries the incremented version; a concurrent update fails here
+		Device updated = deviceRepository.saveAndFlush(device);
+		DeviceResponseDTO response = DeviceMapper.toDTO(updated);
+		eventPublisher.publishEvent(DeviceChangedEvent.updated(response));
+		return response;
+	}
+
+	@Transactional
+	public DeviceResponseDTO patchDevice(Long id, DevicePatchDTO patch, Long expectedVersion) {
+		requireKnownId(id);
+		// The IN_USE guard and no-op detection run inside the UPDATE; a patched device costs one statement
+		Optional<DeviceResponseDTO> patched = deviceRepository.patchDtoById(id, patch, expectedVersion);
+		if (patched.isPresent()) {
+			eventPublisher.publishEvent(DeviceChangedEvent.updated(patched.get()));
+			return patched.get();
 		}
 
-		if (!StateEnum.IN_USE.equals(device.getState())) {
-			if (isNotBlank(requestDTO.name())) {
-				device.setName(requestDTO.name());
+		// Nothing was written: one read tells a missing, outdated or locked device from a no-op patch
+		DeviceResponseDTO current = deviceRepository.findDtoById(id).orElseThrow(() -> new DeviceNotFoundException(id));
+		if (expectedVersion != null && !expectedVersion.equals(current.version())) {
+			throw new DeviceVersionMismatchException(id, expectedVersion, current.version());
+		}
+		boolean nameChanged = patch.name() != null && !patch.name().equals(current.name());
+		boolean brandChanged = patch.brand() != null && !patch.brand().equals(current.brand());
+		if (StateEnum.IN_USE.equals(current.state()) && (nameChanged || brandChanged)) {
+			throw new IllegalStateException("Cannot update name or brand when device is IN_USE");
+		}
+		if (nameChanged || brandChanged || (patch.state() != null && patch.state() != current.state())) {
+			// The row changed between the UPDATE and this read
+			throw new OptimisticLockingFailureException("Device " + id + " was modified concurrently");
+		}
+		return current;
+	}
+
+	@Transactional
+	public StateTransitionResultDTO transitionStates(StateTransitionRequestDTO request) {
+		if (request.targetState() == null) {
+			throw new IllegalArgumentException("Target state cannot be null");
+		}
+		List<Long> ids = resolveTransitionIds(request);
+
+		List<StateTransitionItemDTO> results = new ArrayList<>(ids.size());
+		int updated = 0;
+		int unchanged = 0;
+		for (int from = 0; from < ids.size(); from += TRANSITION_CHUNK_SIZE) {
+			List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + TRANSITION_CHUNK_SIZE));
+
+			// Lock the rows so the outcome decided here is the one the UPDATE applies
+			Map<Long, DeviceStateDTO> current = deviceRepository.lockStatesByIdIn(chunk).stream()
+					.collect(Collectors.toMap(DeviceStateDTO::id, Function.identity()));
+			Map<Long, StateTransitionItemDTO> outcomes = new HashMap<>();
+			List<Long> eligible = new ArrayList<>();
+			for (Long id : chunk) {
+				TransitionStatus status = transitionStatusOf(current.get(id), request);
+				if (status == TransitionStatus.UPDATED) {
+					eligible.add(id);
+				} else {
+					outcomes.put(id, StateTransitionItemDTO.of(id, status));
+					unchanged += status == TransitionStatus.UNCHANGED ? 1 : 0;
+				}
 			}
-			if (isNotBlank(requestDTO.brand())) {
-				device.setBrand(requestDTO.brand());
+
+			if (!eligible.isEmpty()) {
+				updated += deviceRepository.updateStateByIdIn(eligible, request.fromState(), request.targetState(),
+						Device.now());
+				for (DeviceResponseDTO device : deviceRepository.findDtosByIdIn(eligible)) {
+					outcomes.put(device.id(), StateTransitionItemDTO.updated(device));
+					eventPublisher.publishEvent(DeviceChangedEvent.updated(device));
+				}
 			}
+			chunk.forEach(id -> results.add(outcomes.get(id)));
 		}
+		return new StateTransitionResultDTO(updated, unchanged, results.size() - updated - unchanged, results);
+	}
 
-		Device updated = deviceRepository.save(device);
-		return DeviceMapper.toDTO(updated);
+	/**
+	 * Writes coalesced state reports. Devices sharing the same report are written by one conditional UPDATE under
+	 * the PATCH rules, so reports that change nothing or rename an IN_USE device are skipped. Returns the number of
+	 * devices written.
+	 */
+	@Transactional
+	public int applyStateReports(Map<Long, DevicePatchDTO> reports) {
+		Map<DevicePatchDTO, List<Long>> idsByReport = reports.entrySet().stream()
+				.collect(Collectors.groupingBy(Map.Entry::getValue, HashMap::new,
+						Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+		int written = 0;
+		for (Map.Entry<DevicePatchDTO, List<Long>> group : idsByReport.entrySet()) {
+			for (DeviceResponseDTO device : deviceRepository.patchDtosByIdIn(group.getValue(), group.getKey())) {
+				eventPublisher.publishEvent(DeviceChangedEvent.updated(device));
+				written++;
+			}
+		}
+		return written;
 	}
 
+	// The coalesced reads below are single statements and run without a transaction: a caller waiting on another
+	// caller's query holds no pooled connection
 	public DeviceResponseDTO findDeviceByID(Long id) {
-		Device device = deviceRepository.findById(id).orElseThrow(() -> new DeviceNotFoundException(id));
-		return DeviceMapper.toDTO(device);
+		DeviceResponseDTO cached = deviceCache.get(id);
+		if (cached != null) {
+			return cached;
+		}
+		requireKnownId(id);
+		return singleFlight.execute("findDeviceByID", Arrays.asList(id), () -> deviceCache.load(id,
+				() -> deviceRepository.findDtoById(id).orElseThrow(() -> new DeviceNotFoundException(id))));
 	}
 
-	public List<DeviceResponseDTO> findAllDevices() {
-		List<Device> devices = deviceRepository.findAll();
-		return devices.stream().map(DeviceMapper::toDTO).toList();
+	public DevicePageDTO findAllDevices(Long after, int limit) {
+		int pageSize = validateLimit(limit);
+		Long cursor = cursorOf(after);
+		return singleFlight.execute("findAllDevices", List.of(cursor, pageSize),
+				() -> toPage(deviceRepository.findDtoPage(cursor, Limit.of(pageSize + 1)), pageSize));
 	}
 
-	public List<DeviceResponseDTO> findDevicesByBrand(String brand) {
-		List<Device> devices = deviceRepository.findByBrand(brand);
-		return devices.stream().map(DeviceMapper::toDTO).toList();
+	public DevicePageDTO findDevicesByBrand(String brand, Long after, int limit) {
+		int pageSize = validateLimit(limit);
+		Long cursor = cursorOf(after);
+		return singleFlight.execute("findDevicesByBrand", Arrays.asList(brand, cursor, pageSize),
+				() -> toPage(deviceRepository.findDtoPageByBrand(brand, cursor, Limit.of(pageSize + 1)), pageSize));
 	}
 
-	public List<DeviceResponseDTO> findDevicesByState(StateEnum state) {
-		List<Device> devices = deviceRepository.findByState(state);
-		List<DeviceResponseDTO> returnDevices = devices.stream().map(DeviceMapper::toDTO).toList();
-		return returnDevices;
+	public DevicePageDTO findDevicesByState(StateEnum state, Long after, int limit) {
+		int pageSize = validateLimit(limit);
+		Long cursor = cursorOf(after);
+		return singleFlight.execute("findDevicesByState", Arrays.asList(state, cursor, pageSize),
+				() -> toPage(deviceRepository.findDtoPageByState(state, cursor, Limit.of(pageSize + 1)), pageSize));
 	}
 
+	/**
+	 * Devices changed and deleted after the token position, merged in (time, id) order. Only changes older than
+	 * the settle window are reported, so a write that was stamped earlier but commits later is never skipped.
+	 */
+	@Transactional(readOnly = true)
+	public DeviceChangesDTO findChanges(String since, int limit) {
+		int pageSize = validateLimit(limit);
+		Instant now = Device.now();
+		DeviceChangeToken from = since != null ? DeviceChangeToken.parse(since) : DeviceChangeToken.START;
+		if (since != null && from.time().isBefore(now.minus(tombstoneRetention))) {
+			throw new ChangeTokenExpiredException(since);
+		}
+
+		Instant horizon = now.minus(changesSettleWindow);
+		List<ChangedDeviceDTO> changed = deviceRepository.findChangesAfter(from.time(), from.id(), horizon,
+				Limit.of(pageSize + 1));
+		List<DeviceTombstone> tombstones = deviceTombstoneRepository.findAfter(from.time(), from.id(), horizon,
+				Limit.of(pageSize + 1));
+
+		List<ChangedDeviceDTO> pageChanged = new ArrayList<>();
+		List<Long> pageDeleted = new ArrayList<>();
+		DeviceChangeToken last = from;
+		int nextChanged = 0;
+		int nextDeleted = 0;
+		while (nextChanged + nextDeleted < pageSize
+				&& (nextChanged < changed.size() || nextDeleted < tombstones.size())) {
+			ChangedDeviceDTO device = nextChanged < changed.size() ? changed.get(nextChanged) : null;
+			DeviceTombstone tombstone = nextDeleted < tombstones.size() ? tombstones.get(nextDeleted) : null;
+			if (tombstone == null || (device != null && isBefore(device, tombstone))) {
+				pageChanged.add(device);
+				last = new DeviceChangeToken(device.lastModified(), device.id());
+				nextChanged++;
+			} else {
+				pageDeleted.add(tombstone.getDeviceId());
+				last = new DeviceChangeToken(tombstone.getDeletedAt(), tombstone.getDeviceId());
+				nextDeleted++;
+			}
+		}
+
+		boolean hasMore = nextChanged < changed.size() || nextDeleted < tombstones.size();
+		// Once caught up the token moves to the horizon, so it keeps advancing for clients that see no changes
+		DeviceChangeToken next = hasMore || horizon.isBefore(last.time()) ? last
+				: new DeviceChangeToken(horizon, Long.MAX_VALUE);
+		return new DeviceChangesDTO(pageChanged, pageDeleted, next.encode(), hasMore);
+	}
+
+	@Scheduled(fixedDelayString = "${device.changes.tombstone-purge-interval:PT1H}")
+	@Transactional
+	public void purgeTombstones() {
+		deviceTombstoneRepository.deleteOlderThan(Device.now().minus(tombstoneRetention));
+	}
+
+	@Transactional(readOnly = true)
+	public DeviceStatsDTO getStatistics(int top) {
+		if (top < 1 || top > MAX_STATS_TOP) {
+			throw new IllegalArgumentException("Top must be between 1 and " + MAX_STATS_TOP);
+		}
+
+		Map<StateEnum, Long> stateCounts = new EnumMap<>(StateEnum.class);
+		for (StateEnum state : StateEnum.values()) {
+			stateCounts.put(state, 0L);
+		}
+		deviceRepository.countGroupedByState().forEach(count -> stateCounts.put(count.state(), count.count()));
+		List<StateCountDTO> byState = stateCounts.entrySet().stream()
+				.map(entry -> new StateCountDTO(entry.getKey(), entry.getValue()))
+				.toList();
+		long total = stateCounts.values().stream().mapToLong(Long::longValue).sum();
+
+		List<BrandCountDTO> byBrand = deviceRepository.countGroupedByBrand(Limit.of(top));
+		List<BrandStateCountDTO> byBrandAndState = byBrand.isEmpty() ? List.of()
+				: deviceRepository.countGroupedByBrandAndState(byBrand.stream().map(BrandCountDTO::brand).toList());
+
+		return new DeviceStatsDTO(total, byState, byBrand, byBrandAndState);
+	}
+
+	@Transactional(readOnly = true)
+	public List<DeviceResponseDTO> searchDevices(String query, int limit) {
+		if (query == null || query.isBlank()) {
+			throw new IllegalArgumentException("Search query cannot be blank");
+		}
+		if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+			throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SEARCH_LIMIT);
+		}
+
+		List<Long> ids = deviceSearchIndex.search(query, limit);
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		// The index only ranks IDs; load the current rows in one query and keep the ranked order
+		Map<Long, DeviceResponseDTO> devices = deviceRepository.findDtosByIdIn(ids).stream()
+				.collect(Collectors.toMap(DeviceResponseDTO::id, Function.identity()));
+		return ids.stream().map(devices::get).filter(Objects::nonNull).toList();
+	}
+
+	@Transactional(readOnly = true)
+	public void exportDevices(String brand, StateEnum state, Consumer<DeviceResponseDTO> consumer) {
+		// Rows are projected straight into DTOs, so nothing accumulates in the persistence context
+		try (Stream<DeviceResponseDTO> devices = streamDevices(brand, state)) {
+			devices.forEach(consumer);
+		}
+	}
+
+	@Transactional
 	public void deleteDevice(Long id) {
-		Device device = deviceRepository.findById(id).orElseThrow(() -> new DeviceNotFoundException(id));
-		if (StateEnum.IN_USE.equals(device.getState())) {
+		requireKnownId(id);
+		// The IN_USE guard runs inside the DELETE; only a miss costs a second statement to explain it
+		if (deviceRepository.deleteByIdUnlessInUse(id) == 0) {
+			if (deviceRepository.existsById(id)) {
+				throw new IllegalArgumentException("Cannot delete device when state is IN_USE");
+			}
+			throw new DeviceNotFoundException(id);
+		}
+		deviceTombstoneRepository.insert(id, Device.now());
+		deviceIdFilter.deleted(1);
+		eventPublisher.publishEvent(DeviceChangedEvent.deleted(id));
+	}
+
+	/**
+	 * Deletes the listed devices, or every device matching the brand/state filter, in chunks of
+	 * {@value #DELETE_CHUNK_SIZE} that each commit in their own transaction. A failure part way through keeps the
+	 * chunks already committed.
+	 */
+	public DeviceDeleteResultDTO deleteDevices(DeviceDeleteRequestDTO request) {
+		AtomicInteger deleted = new AtomicInteger();
+		List<Long> notFound = new ArrayList<>();
+		List<Long> inUse = new ArrayList<>();
+
+		if (request.ids() != null && !request.ids().isEmpty()) {
+			if (request.ids().size() > MAX_DELETE_SIZE) {
+				throw new IllegalArgumentException("Cannot delete more than " + MAX_DELETE_SIZE + " devices at once");
+			}
+			if (request.ids().stream().anyMatch(Objects::isNull)) {
+				throw new IllegalArgumentException("Device IDs cannot be null");
+			}
+			List<Long> ids = new ArrayList<>(new LinkedHashSet<>(request.ids()));
+			for (int from = 0; from < ids.size(); from += DELETE_CHUNK_SIZE) {
+				List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + DELETE_CHUNK_SIZE));
+				transactionTemplate.executeWithoutResult(status -> deleteChunk(chunk, deleted, notFound, inUse));
+			}
+			return DeviceDeleteResultDTO.of(deleted.get(), notFound, inUse);
+		}
+
+		if (!isNotBlank(request.brand()) && request.state() == null) {
+			throw new IllegalArgumentException("Provide device IDs or a brand/state filter");
+		}
+		if (StateEnum.IN_USE.equals(request.state())) {
 			throw new IllegalArgumentException("Cannot delete device when state is IN_USE");
 		}
-		deviceRepository.delete(device);
+		String brand = isNotBlank(request.brand()) ? request.brand() : null;
+		List<Long> chunk = List.of();
+		do {
+			Long after = chunk.isEmpty() ? 0L : chunk.get(chunk.size() - 1);
+			chunk = transactionTemplate.execute(status -> {
+				List<Long> ids = deviceRepository.findIdsForDeletion(brand, request.state(), after,
+						Limit.of(DELETE_CHUNK_SIZE));
+				deleteChunk(ids, deleted, notFound, inUse);
+				return ids;
+			});
+		} while (chunk.size() == DELETE_CHUNK_SIZE);
+		return DeviceDeleteResultDTO.of(deleted.get(), notFound, inUse);
 	}
 
-	private void validateUpdate(DeviceRequestDTO requestDTO, Device device) {
+	static void validateUpdate(DeviceRequestDTO requestDTO, Device device) {
 	    String newName = requestDTO.name() != null ? requestDTO.name() : device.getName();
 	    String newBrand = requestDTO.brand() != null ? requestDTO.brand() : device.getBrand();
 
@@ -98,9 +508,142 @@ public class DeviceService {
 	    }
 	}
 
+	// Shared with ReactiveDeviceService so both stacks apply a PUT the same way
+	static void applyUpdate(DeviceRequestDTO requestDTO, Device device) {
+		if (requestDTO.state() != null) {
+			device.setState(requestDTO.state());
+		}
+
+		if (!StateEnum.IN_USE.equals(device.getState())) {
+			if (isNotBlank(requestDTO.name())) {
+				device.setName(requestDTO.name());
+			}
+			if (isNotBlank(requestDTO.brand())) {
+				device.setBrand(requestDTO.brand());
+			}
+		}
+	}
+
+
+
+	private List<String> validateBatchItem(DeviceRequestDTO request) {
+		if (request == null) {
+			return List.of("Device cannot be null");
+		}
+		return validator.validate(request).stream()
+				.map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+				.sorted()
+				.toList();
+	}
+
+	private List<Long> resolveTransitionIds(StateTransitionRequestDTO request) {
+		if (request.ids() != null && !request.ids().isEmpty()) {
+			if (request.ids().size() > MAX_TRANSITION_SIZE) {
+				throw new IllegalArgumentException("Cannot transition more than " + MAX_TRANSITION_SIZE + " devices at once");
+			}
+			if (request.ids().stream().anyMatch(Objects::isNull)) {
+				throw new IllegalArgumentException("Device IDs cannot be null");
+			}
+			return new ArrayList<>(new LinkedHashSet<>(request.ids()));
+		}
+		if (!isNotBlank(request.brand()) && request.fromState() == null) {
+			throw new IllegalArgumentException("Provide device IDs or a brand/state filter");
+		}
+
+		List<Long> ids = deviceRepository.findIdsForStateTransition(request.brand(), request.fromState(),
+				request.targetState(), Limit.of(MAX_TRANSITION_SIZE + 1));
+		if (ids.size() > MAX_TRANSITION_SIZE) {
+			throw new IllegalArgumentException("Filter matches more than " + MAX_TRANSITION_SIZE + " devices; narrow it down");
+		}
+		return ids;
+	}
+
+	private TransitionStatus transitionStatusOf(DeviceStateDTO current, StateTransitionRequestDTO request) {
+		if (current == null) {
+			return TransitionStatus.NOT_FOUND;
+		}
+		// Devices already in the target state are reported as unchanged so retries stay idempotent
+		if (current.state() == request.targetState()) {
+			return TransitionStatus.UNCHANGED;
+		}
+		boolean brandMatches = !isNotBlank(request.brand()) || request.brand().equals(current.brand());
+		boolean stateMatches = request.fromState() == null || request.fromState() == current.state();
+		return brandMatches && stateMatches ? TransitionStatus.UPDATED : TransitionStatus.PRECONDITION_FAILED;
+	}
+
+	private void deleteChunk(List<Long> ids, AtomicInteger deleted, List<Long> notFound, List<Long> inUse) {
+		if (ids.isEmpty()) {
+			return;
+		}
+		// Lock the rows so a device cannot switch to IN_USE between this check and the DELETE
+		Map<Long, StateEnum> states = deviceRepository.lockStatesByIdIn(ids).stream()
+				.collect(Collectors.toMap(DeviceStateDTO::id, DeviceStateDTO::state));
+		List<Long> deletable = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			StateEnum state = states.get(id);
+			if (state == null) {
+				notFound.add(id);
+			} else if (StateEnum.IN_USE.equals(state)) {
+				inUse.add(id);
+			} else {
+				deletable.add(id);
+			}
+		}
+		if (deletable.isEmpty()) {
+			return;
+		}
+
+		deviceTombstoneRepository.insertForDeletableByIdIn(deletable, Device.now());
+		int deletedInChunk = deviceRepository.deleteByIdInUnlessInUse(deletable);
+		deleted.addAndGet(deletedInChunk);
+		deviceIdFilter.deleted(deletedInChunk);
+		for (Long id : deletable) {
+			eventPublisher.publishEvent(DeviceChangedEvent.deleted(id));
+		}
+	}
+
+	// Unknown IDs fail here without a query; an ID the filter cannot rule out is looked up as usual
+	private void requireKnownId(Long id) {
+		if (deviceIdFilter.definitelyAbsent(id)) {
+			throw new DeviceNotFoundException(id);
+		}
+	}
 
+	private Stream<DeviceResponseDTO> streamDevices(String brand, StateEnum state) {
+		if (brand != null) {
+			return deviceRepository.streamDtosByBrand(brand);
+		}
+		if (state != null) {
+			return deviceRepository.streamDtosByState(state);
+		}
+		return deviceRepository.streamDtos();
+	}
+
+	static int validateLimit(int limit) {
+		if (limit < 1 || limit > MAX_PAGE_SIZE) {
+			throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+		}
+		return limit;
+	}
+
+	static Long cursorOf(Long after) {
+		return after != null ? after : 0L;
+	}
+
+	static DevicePageDTO toPage(List<DeviceResponseDTO> devices, int pageSize) {
+		// One extra row is fetched to know whether another page exists without a COUNT query
+		boolean hasNext = devices.size() > pageSize;
+		List<DeviceResponseDTO> page = hasNext ? devices.subList(0, pageSize) : devices;
+		Long nextCursor = hasNext ? page.get(page.size() - 1).id() : null;
+		return new DevicePageDTO(page, nextCursor);
+	}
+
+	private static boolean isBefore(ChangedDeviceDTO device, DeviceTombstone tombstone) {
+		int byTime = device.lastModified().compareTo(tombstone.getDeletedAt());
+		return byTime != 0 ? byTime < 0 : device.id() < tombstone.getDeviceId();
+	}
 
-	private boolean isNotBlank(String value) {
+	private static boolean isNotBlank(String value) {
 		return value != null && !value.trim().isEmpty();
 	}
 
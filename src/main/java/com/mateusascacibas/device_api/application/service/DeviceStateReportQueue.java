@@ -0,0 +1,302 @@
+package com.mateusascacibas.device_api.application.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.mateusascacibas.device_api.application.dto.DevicePatchDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceStateReportDTO;
+import com.mateusascacibas.device_api.application.exception.StateReportQueueFullException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind buffer for the device state reports of {@code POST /devices/state-reports}.
+ *
+ * <p>Reports wait in memory keyed by device ID. A newer report for a pending device overrides the fields it
+ * carries (last write wins), so a device reporting every few seconds costs at most one write per flush interval,
+ * and none when the report matches what is stored. Every flush hands the pending reports to
+ * {@link DeviceService#applyStateReports} in chunks that each commit in their own transaction.
+ *
+ * <p>When a chunk fails, its reports are retried one device at a time so a single bad report cannot hold back the
+ * others. A report that fails on its own goes back into the queue until it has failed
+ * {@code device.state-reports.max-attempts} times, then it is dropped and counted in
+ * {@code device.state_reports.dropped}; the device's next report starts over.
+ *
+ * <p>When {@code device.state-reports.capacity} devices are pending, reports for other devices are rejected until
+ * the next flush. Pending reports are flushed before the application shuts down, retrying until none are left or
+ * the database has refused {@code max-attempts} flushes; whatever is still pending then is dropped, logged and
+ * counted.
+ */
+@Service
+public class DeviceStateReportQueue {
+
+	public static final int MAX_REPORTS_PER_REQUEST = 10000;
+	// Width of the name and brand columns
+	public static final int MAX_FIELD_LENGTH = 255;
+
+	private static final Logger log = LoggerFactory.getLogger(DeviceStateReportQueue.class);
+
+	@Autowired
+	private DeviceService deviceService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${device.state-reports.capacity:100000}")
+	private int capacity;
+
+	@Value("${device.state-reports.flush-batch-size:1000}")
+	private int flushBatchSize;
+
+	@Value("${device.state-reports.flush-interval:PT1S}")
+	private Duration flushInterval;
+
+	@Value("${device.state-reports.max-attempts:5}")
+	private int maxAttempts;
+
+	private final Map<Long, DevicePatchDTO> pending = new ConcurrentHashMap<>();
+	// Pending devices; kept next to the map because ConcurrentHashMap.size() is only an estimate under contention
+	private final AtomicInteger pendingCount = new AtomicInteger();
+	// Failed writes per pending device; only touched while holding the flush lock
+	private final Map<Long, Integer> failedAttempts = new HashMap<>();
+	// A lock rather than synchronized so a virtual thread waiting on the database does not pin its carrier
+	private final Lock flushLock = new ReentrantLock();
+	private volatile boolean closed;
+
+	private Counter received;
+	private Counter coalesced;
+	private Counter rejected;
+	private Counter flushed;
+	private Counter written;
+	private Counter dropped;
+
+	@PostConstruct
+	void init() {
+		Gauge.builder("device.state_reports.pending", pendingCount, AtomicInteger::get)
+				.description("Devices with a state report waiting for the next flush").register(meterRegistry);
+		received = counter("device.state_reports.received", "State reports accepted into the queue");
+		coalesced = counter("device.state_reports.coalesced", "State reports merged into one already pending");
+		rejected = counter("device.state_reports.rejected", "State reports refused because the queue was full");
+		flushed = counter("device.state_reports.flushed", "Coalesced state reports handed to the database");
+		written = counter("device.state_reports.written", "Devices actually changed by a flushed state report");
+		dropped = counter("device.state_reports.dropped", "State reports given up on after repeated write failures");
+	}
+
+	/**
+	 * Queues the reports in order and returns how many were accepted. Reports for devices that are already
+	 * pending are always accepted; the first report that would grow a full queue stops the submission.
+	 */
+	public int submit(List<DeviceStateReportDTO> reports) {
+		validate(reports);
+
+		for (int index = 0; index < reports.size(); index++) {
+			DeviceStateReportDTO report = reports.get(index);
+			if (!offer(report.id(), report.toPatch())) {
+				rejected.increment(reports.size() - index);
+				throw new StateReportQueueFullException(index, reports.size(), flushInterval);
+			}
+			received.increment();
+		}
+		return reports.size();
+	}
+
+	public int pendingCount() {
+		return pendingCount.get();
+	}
+
+	/**
+	 * Writes everything pending. A chunk that fails is retried device by device; when two devices in a row fail,
+	 * the database is taken to be unavailable, the untried reports go back into the queue behind any newer report
+	 * for the same device, and the failure propagates to the scheduler.
+	 */
+	@Scheduled(fixedDelayString = "${device.state-reports.flush-interval:PT1S}")
+	public void flush() {
+		flushLock.lock();
+		try {
+			flushPending();
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	@PreDestroy
+	void shutdown() {
+		closed = true;
+		flushLock.lock();
+		try {
+			// A pass that completes retries every failing report on its own, so each one uses up an attempt and the
+			// loop ends within max-attempts such passes; passes the database refuses are bounded the same way
+			int refusedFlushes = 0;
+			while (pendingCount.get() > 0 && refusedFlushes < maxAttempts) {
+				try {
+					flushPending();
+				} catch (RuntimeException ex) {
+					refusedFlushes++;
+					log.warn("Flushing state reports on shutdown failed ({} of {} attempts)", refusedFlushes, maxAttempts, ex);
+				}
+			}
+			dropPending(refusedFlushes);
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	private void flushPending() {
+		Iterator<Long> ids = pending.keySet().iterator();
+		while (ids.hasNext()) {
+			Map<Long, DevicePatchDTO> chunk = new HashMap<>();
+			while (ids.hasNext() && chunk.size() < flushBatchSize) {
+				Long id = ids.next();
+				DevicePatchDTO report = pending.remove(id);
+				if (report != null) {
+					pendingCount.decrementAndGet();
+					chunk.put(id, report);
+				}
+			}
+			if (chunk.isEmpty()) {
+				continue;
+			}
+
+			try {
+				written.increment(deviceService.applyStateReports(chunk));
+				flushed.increment(chunk.size());
+				chunk.keySet().forEach(failedAttempts::remove);
+			} catch (RuntimeException ex) {
+				if (chunk.size() == 1) {
+					chunk.forEach(this::retryOrDrop);
+				} else {
+					flushOneByOne(chunk);
+				}
+			}
+		}
+	}
+
+	private void flushOneByOne(Map<Long, DevicePatchDTO> chunk) {
+		RuntimeException previousFailure = null;
+		Iterator<Map.Entry<Long, DevicePatchDTO>> reports = chunk.entrySet().iterator();
+		while (reports.hasNext()) {
+			Map.Entry<Long, DevicePatchDTO> report = reports.next();
+			reports.remove();
+			try {
+				written.increment(deviceService.applyStateReports(Map.of(report.getKey(), report.getValue())));
+				flushed.increment();
+				failedAttempts.remove(report.getKey());
+				previousFailure = null;
+			} catch (RuntimeException ex) {
+				retryOrDrop(report.getKey(), report.getValue());
+				if (previousFailure != null) {
+					chunk.forEach(this::requeue);
+					throw ex;
+				}
+				previousFailure = ex;
+			}
+		}
+	}
+
+	private void retryOrDrop(Long id, DevicePatchDTO report) {
+		int attempts = failedAttempts.merge(id, 1, Integer::sum);
+		if (attempts < maxAttempts) {
+			requeue(id, report);
+			return;
+		}
+		failedAttempts.remove(id);
+		dropped.increment();
+		log.warn("Dropped state report for device {} after {} failed writes", id, attempts);
+	}
+
+	private void dropPending(int refusedFlushes) {
+		int lost = 0;
+		for (Long id : pending.keySet()) {
+			if (pending.remove(id) != null) {
+				pendingCount.decrementAndGet();
+				lost++;
+			}
+		}
+		failedAttempts.clear();
+		if (lost > 0) {
+			dropped.increment(lost);
+			log.error("Dropped {} pending state reports on shutdown after {} refused flushes", lost, refusedFlushes);
+		}
+	}
+
+	private boolean offer(Long id, DevicePatchDTO report) {
+		boolean[] accepted = new boolean[1];
+		pending.compute(id, (key, current) -> {
+			if (current != null) {
+				accepted[0] = true;
+				coalesced.increment();
+				return merge(current, report);
+			}
+			if (closed || pendingCount.get() >= capacity) {
+				return null;
+			}
+			accepted[0] = true;
+			pendingCount.incrementAndGet();
+			return report;
+		});
+		return accepted[0];
+	}
+
+	private void requeue(Long id, DevicePatchDTO report) {
+		pending.compute(id, (key, current) -> {
+			if (current != null) {
+				return merge(report, current);
+			}
+			pendingCount.incrementAndGet();
+			return report;
+		});
+	}
+
+	private static DevicePatchDTO merge(DevicePatchDTO older, DevicePatchDTO newer) {
+		return new DevicePatchDTO(newer.name() != null ? newer.name() : older.name(),
+				newer.brand() != null ? newer.brand() : older.brand(),
+				newer.state() != null ? newer.state() : older.state());
+	}
+
+	private void validate(List<DeviceStateReportDTO> reports) {
+		if (reports == null || reports.isEmpty()) {
+			throw new IllegalArgumentException("Provide at least one state report");
+		}
+		if (reports.size() > MAX_REPORTS_PER_REQUEST) {
+			throw new IllegalArgumentException("Cannot submit more than " + MAX_REPORTS_PER_REQUEST + " state reports at once");
+		}
+		for (DeviceStateReportDTO report : reports) {
+			if (report == null || report.id() == null) {
+				throw new IllegalArgumentException("Device IDs cannot be null");
+			}
+			if (report.toPatch().isEmpty()) {
+				throw new IllegalArgumentException("State report for device " + report.id() + " carries no fields");
+			}
+			if ((report.name() != null && report.name().isBlank()) || (report.brand() != null && report.brand().isBlank())) {
+				throw new IllegalArgumentException("Device name and brand cannot be blank");
+			}
+			// Caught here rather than when the flush writes the report, where it would fail its whole chunk
+			if ((report.name() != null && report.name().length() > MAX_FIELD_LENGTH)
+					|| (report.brand() != null && report.brand().length() > MAX_FIELD_LENGTH)) {
+				throw new IllegalArgumentException("Device name and brand cannot exceed " + MAX_FIELD_LENGTH + " characters");
+			}
+		}
+	}
+
+	private Counter counter(String name, String description) {
+		return Counter.builder(name).description(description).register(meterRegistry);
+	}
+}
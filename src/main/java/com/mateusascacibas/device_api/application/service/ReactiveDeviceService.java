@@ -0,0 +1,161 @@
+package com.mateusascacibas.device_api.application.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import com.mateusascacibas.device_api.application.dto.DevicePageDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceRequestDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.application.event.DeviceChangedEvent;
+import com.mateusascacibas.device_api.application.exception.DeviceNotFoundException;
+import com.mateusascacibas.device_api.application.exception.DeviceVersionMismatchException;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+import com.mateusascacibas.device_api.domain.model.Device;
+import com.mateusascacibas.device_api.infra.repository.ReactiveDeviceRepository;
+import com.mateusascacibas.device_api.infra.search.DeviceIdFilter;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of the {@link DeviceService} CRUD, page and export methods for the reactive profile.
+ * It applies the same validation, cache, ID filter and change events, so both stacks answer alike and the search
+ * index, SSE feed and caches follow writes from either. Events are published after the write commits.
+ *
+ * <p>Reads are not coalesced: a waiting caller holds no thread here, and the cache still absorbs repeated lookups.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDeviceService {
+
+	@Autowired
+	private ReactiveDeviceRepository deviceRepository;
+
+	@Autowired
+	private TransactionalOperator transactionalOperator;
+
+	@Autowired
+	private DeviceIdFilter deviceIdFilter;
+
+	@Autowired
+	private DeviceCache deviceCache;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	public Mono<DeviceResponseDTO> createDevice(DeviceRequestDTO requestDTO) {
+		return deviceRepository.nextId()
+				// Added before the insert, so the device is never reported missing once it can be read
+				.doOnNext(deviceIdFilter::add)
+				.flatMap(id -> deviceRepository.insert(id, requestDTO.name(), requestDTO.brand(), requestDTO.state()))
+				.doOnNext(response -> eventPublisher.publishEvent(DeviceChangedEvent.created(response)));
+	}
+
+	public Mono<DeviceResponseDTO> updateDevice(Long id, DeviceRequestDTO requestDTO, Long expectedVersion) {
+		return Mono.defer(() -> {
+			requireKnownId(id);
+			return deviceRepository.findDtoById(id);
+		}).switchIfEmpty(Mono.error(() -> new DeviceNotFoundException(id))).flatMap(current -> {
+			if (expectedVersion != null && !expectedVersion.equals(current.version())) {
+				return Mono.error(new DeviceVersionMismatchException(id, expectedVersion, current.version()));
+			}
+			Device device = new Device(current.id(), current.name(), current.brand(), current.state(),
+					current.creationTime());
+			DeviceService.validateUpdate(requestDTO, device);
+			DeviceService.applyUpdate(requestDTO, device);
+			if (device.getName().equals(current.name()) && device.getBrand().equals(current.brand())
+					&& device.getState() == current.state()) {
+				// Like a JPA flush of an unchanged entity: nothing is written and the version stays
+				return Mono.just(current);
+			}
+			// The version in the WHERE clause plays the part of the JPA @Version check
+			return deviceRepository.updateIfVersion(id, current.version(), device.getName(), device.getBrand(),
+					device.getState()).switchIfEmpty(Mono.error(() ->
+							new OptimisticLockingFailureException("Device " + id + " was modified concurrently")));
+		}).doOnNext(response -> eventPublisher.publishEvent(DeviceChangedEvent.updated(response)));
+	}
+
+	public Mono<DeviceResponseDTO> findDeviceByID(Long id) {
+		return Mono.defer(() -> {
+			DeviceResponseDTO cached = deviceCache.get(id);
+			if (cached != null) {
+				return Mono.just(cached);
+			}
+			requireKnownId(id);
+			long epoch = deviceCache.readStarted();
+			return deviceRepository.findDtoById(id)
+					.switchIfEmpty(Mono.error(() -> new DeviceNotFoundException(id)))
+					.doOnNext(device -> deviceCache.putIfUnchanged(id, device, epoch));
+		});
+	}
+
+	public Mono<DevicePageDTO> findAllDevices(Long after, int limit) {
+		return Mono.defer(() -> {
+			int pageSize = DeviceService.validateLimit(limit);
+			return toPage(deviceRepository.findDtoPage(DeviceService.cursorOf(after), pageSize + 1), pageSize);
+		});
+	}
+
+	public Mono<DevicePageDTO> findDevicesByBrand(String brand, Long after, int limit) {
+		return Mono.defer(() -> {
+			int pageSize = DeviceService.validateLimit(limit);
+			return toPage(deviceRepository.findDtoPageByBrand(brand, DeviceService.cursorOf(after), pageSize + 1),
+					pageSize);
+		});
+	}
+
+	public Mono<DevicePageDTO> findDevicesByState(StateEnum state, Long after, int limit) {
+		return Mono.defer(() -> {
+			int pageSize = DeviceService.validateLimit(limit);
+			return toPage(deviceRepository.findDtoPageByState(state, DeviceService.cursorOf(after), pageSize + 1),
+					pageSize);
+		});
+	}
+
+	/**
+	 * Streams the devices in ID order, fetching further rows only as fast as the subscriber requests them.
+	 */
+	public Flux<DeviceResponseDTO> exportDevices(String brand, StateEnum state) {
+		if (brand != null) {
+			return deviceRepository.streamDtosByBrand(brand);
+		}
+		if (state != null) {
+			return deviceRepository.streamDtosByState(state);
+		}
+		return deviceRepository.streamDtos();
+	}
+
+	public Mono<Void> deleteDevice(Long id) {
+		return Mono.defer(() -> {
+			requireKnownId(id);
+			// The IN_USE guard runs inside the DELETE; the tombstone commits with it, as on the JPA side
+			Mono<Void> delete = deviceRepository.deleteByIdUnlessInUse(id).flatMap(deleted -> {
+				if (deleted == 0) {
+					return deviceRepository.existsById(id).flatMap(exists -> Mono.error(exists
+							? new IllegalArgumentException("Cannot delete device when state is IN_USE")
+							: new DeviceNotFoundException(id)));
+				}
+				return deviceRepository.insertTombstone(id, Device.now());
+			});
+			return delete.as(transactionalOperator::transactional);
+		}).then(Mono.fromRunnable(() -> {
+			deviceIdFilter.deleted(1);
+			eventPublisher.publishEvent(DeviceChangedEvent.deleted(id));
+		}));
+	}
+
+	// Unknown IDs fail here without a query; an ID the filter cannot rule out is looked up as usual
+	private void requireKnownId(Long id) {
+		if (deviceIdFilter.definitelyAbsent(id)) {
+			throw new DeviceNotFoundException(id);
+		}
+	}
+
+	private static Mono<DevicePageDTO> toPage(Flux<DeviceResponseDTO> devices, int pageSize) {
+		return devices.collectList().map(page -> DeviceService.toPage(page, pageSize));
+	}
+}
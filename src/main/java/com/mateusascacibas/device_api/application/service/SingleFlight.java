@@ -0,0 +1,110 @@
+package com.mateusascacibas.device_api.application.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.mateusascacibas.device_api.application.event.DeviceChangedEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coalesces concurrent identical reads: the first caller for an operation and its arguments runs the query, and
+ * callers arriving while it is in flight wait for and share its result (or exception) instead of running their own.
+ *
+ * <p>Flights are keyed by a write epoch that moves forward once every device change commits, so a read that starts
+ * after a write returned never joins a query that started before it. A caller that waits longer than
+ * {@code device.single-flight.max-wait} stops waiting and runs the query itself.
+ */
+@Component
+public class SingleFlight {
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${device.single-flight.enabled:true}")
+	private boolean enabled;
+
+	@Value("${device.single-flight.max-wait:200ms}")
+	private Duration maxWait;
+
+	private final Map<Key, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+	private final AtomicLong writeEpoch = new AtomicLong();
+
+	public <T> T execute(String operation, List<?> arguments, Supplier<T> loader) {
+		if (!enabled) {
+			return loader.get();
+		}
+
+		Key key = new Key(operation, arguments, writeEpoch.get());
+		CompletableFuture<Object> flight = new CompletableFuture<>();
+		CompletableFuture<Object> leader = flights.putIfAbsent(key, flight);
+		if (leader != null) {
+			return await(operation, leader, loader);
+		}
+
+		try {
+			T result = loader.get();
+			flight.complete(result);
+			return result;
+		} catch (RuntimeException | Error e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} finally {
+			flights.remove(key, flight);
+		}
+	}
+
+	/**
+	 * Moves forward once per committed device change, before any other listener sees the change, so a reader that
+	 * captured it before its query can tell whether a write committed meanwhile.
+	 */
+	public long writeEpoch() {
+		return writeEpoch.get();
+	}
+
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onDeviceChanged(DeviceChangedEvent event) {
+		writeEpoch.incrementAndGet();
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T await(String operation, CompletableFuture<Object> leader, Supplier<T> loader) {
+		try {
+			T result = (T) leader.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+			meterRegistry.counter("device.single_flight.coalesced", "operation", operation).increment();
+			return result;
+		} catch (TimeoutException e) {
+			meterRegistry.counter("device.single_flight.wait_timeouts", "operation", operation).increment();
+			return loader.get();
+		} catch (ExecutionException e) {
+			meterRegistry.counter("device.single_flight.coalesced", "operation", operation).increment();
+			// The leader's own exception, e.g. DeviceNotFoundException, so it maps to the same response
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw (Error) e.getCause();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for a coalesced read", e);
+		}
+	}
+
+	private record Key(String operation, List<?> arguments, long epoch) {
+	}
+}
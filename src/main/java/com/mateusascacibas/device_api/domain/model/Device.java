@@ -1,6 +1,8 @@
 package com.mateusascacibas.device_api.domain.model;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
 
@@ -12,14 +14,19 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
 @Table(name = "devices")
 public class Device {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Databases that used IDENTITY get devices_seq moved past their IDs by db/migration/postgresql/V2
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "devices_seq")
+    @SequenceGenerator(name = "devices_seq", sequenceName = "devices_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -35,6 +42,13 @@ public class Device {
     @Column(name = "creation_time", nullable = false, updatable = false)
     private LocalDateTime creationTime;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(name = "last_modified", nullable = false)
+    private Instant lastModified;
+
     public Device() {
     }
 
@@ -49,6 +63,17 @@ public class Device {
     @PrePersist
     public void prePersist() {
         this.creationTime = LocalDateTime.now();
+        this.lastModified = now();
+    }
+
+    @PreUpdate
+    public void preUpdate() {
+        this.lastModified = now();
+    }
+
+    // Truncated to the column precision so change tokens compare equal to the stored value
+    public static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MICROS);
     }
 
     public Long getId() {
@@ -70,6 +95,14 @@ public class Device {
     public LocalDateTime getCreationTime() {
         return creationTime;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
     
     public void setName(String name) {
         this.name = name;
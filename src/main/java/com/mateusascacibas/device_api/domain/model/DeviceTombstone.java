@@ -0,0 +1,39 @@
+package com.mateusascacibas.device_api.domain.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Marks a deleted device so delta sync can tell clients to drop it.
+ */
+@Entity
+@Table(name = "device_tombstones")
+public class DeviceTombstone {
+
+    @Id
+    @Column(name = "device_id")
+    private Long deviceId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+
+    public DeviceTombstone() {
+    }
+
+    public DeviceTombstone(Long deviceId, Instant deletedAt) {
+        this.deviceId = deviceId;
+        this.deletedAt = deletedAt;
+    }
+
+    public Long getDeviceId() {
+        return deviceId;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+}
@@ -0,0 +1,11 @@
+package com.mateusascacibas.device_api.infra.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+	public static final String DEVICES_CACHE = "devices";
+}
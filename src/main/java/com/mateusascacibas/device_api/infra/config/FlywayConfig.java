@@ -0,0 +1,25 @@
+package com.mateusascacibas.device_api.infra.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FlywayConfig {
+
+	/**
+	 * Migrates on startup unless {@code device.flyway.migrate-on-startup} is false. Unlike
+	 * {@code spring.flyway.enabled}, this is read at runtime, so it also works for an AOT-processed build: the CDS
+	 * training run starts without a database, and replicas can leave migrations to a single release job.
+	 */
+	@Bean
+	public FlywayMigrationStrategy flywayMigrationStrategy(
+			@Value("${device.flyway.migrate-on-startup:true}") boolean migrateOnStartup) {
+		return flyway -> {
+			if (migrateOnStartup) {
+				flyway.migrate();
+			}
+		};
+	}
+}
@@ -0,0 +1,75 @@
+package com.mateusascacibas.device_api.infra.config;
+
+import java.lang.reflect.Method;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.web.reactive.WebFluxRegistrations;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.reactive.result.condition.RequestCondition;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+
+import com.mateusascacibas.device_api.web.controller.NdjsonExportCondition;
+import com.mateusascacibas.device_api.web.controller.ReactiveNdjsonExportCondition;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.r2dbc.spi.ConnectionFactory;
+
+/**
+ * Web and R2DBC setup of the reactive profile (SPRING_PROFILES_ACTIVE=reactive), which serves the device routes
+ * with WebFlux on Netty and reads and writes single devices over R2DBC. JPA, Flyway and the JDBC pool stay up for
+ * the bulk and reporting endpoints the reactive controller hands to {@code DeviceService}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveConfig {
+
+	// Tomcat is on the classpath for the servlet stack and would otherwise host the reactive one too
+	@Bean
+	public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+		return new NettyReactiveWebServerFactory();
+	}
+
+	// Boot skips the JDBC pool once an R2DBC ConnectionFactory exists; JPA and Flyway still need it here
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource dataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean
+	public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+		return DatabaseClient.create(connectionFactory);
+	}
+
+	// The R2DBC transaction manager is deliberately not a bean: a second TransactionManager would make the JPA one
+	// back off and leave @Transactional unable to choose between them
+	@Bean
+	public TransactionalOperator reactiveTransactionalOperator(ConnectionFactory connectionFactory) {
+		return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+	}
+
+	// NDJSON exports answer only requests that rank NDJSON first, as on the servlet stack
+	@Bean
+	public WebFluxRegistrations reactiveNdjsonExportRegistrations() {
+		return new WebFluxRegistrations() {
+			@Override
+			public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+				return new RequestMappingHandlerMapping() {
+					@Override
+					protected RequestCondition<?> getCustomMethodCondition(Method method) {
+						return NdjsonExportCondition.appliesTo(method) ? new ReactiveNdjsonExportCondition() : null;
+					}
+				};
+			}
+		};
+	}
+}
@@ -0,0 +1,54 @@
+package com.mateusascacibas.device_api.infra.config;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.condition.RequestCondition;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import com.mateusascacibas.device_api.web.controller.NdjsonExportCondition;
+import com.mateusascacibas.device_api.web.converter.DeviceProtobufHttpMessageConverter;
+import com.mateusascacibas.device_api.web.filter.ConcurrencyLimitFilter;
+
+// The reactive profile has its own web setup in ReactiveConfig
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WebConfig implements WebMvcConfigurer {
+
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		// Appended after the JSON, Smile and CBOR converters so JSON stays the default for Accept: */*
+		converters.add(new DeviceProtobufHttpMessageConverter());
+	}
+
+	// Device routes only: actuator probes and the API docs must answer even while devices shed load
+	@Bean
+	public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilterRegistration(ConcurrencyLimitFilter filter) {
+		FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+		registration.addUrlPatterns("/devices", "/devices/*");
+		return registration;
+	}
+
+	// NDJSON exports answer only requests that rank NDJSON first; everything else on the list routes gets a page
+	@Bean
+	public WebMvcRegistrations ndjsonExportRegistrations() {
+		return new WebMvcRegistrations() {
+			@Override
+			public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+				return new RequestMappingHandlerMapping() {
+					@Override
+					protected RequestCondition<?> getCustomMethodCondition(Method method) {
+						return NdjsonExportCondition.appliesTo(method) ? new NdjsonExportCondition() : null;
+					}
+				};
+			}
+		};
+	}
+}
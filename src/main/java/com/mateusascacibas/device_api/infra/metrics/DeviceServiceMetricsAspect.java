@@ -0,0 +1,63 @@
+package com.mateusascacibas.device_api.infra.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import com.mateusascacibas.device_api.application.exception.ChangeTokenExpiredException;
+import com.mateusascacibas.device_api.application.exception.DeviceNotFoundException;
+import com.mateusascacibas.device_api.application.exception.DeviceVersionMismatchException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+@Aspect
+@Component
+public class DeviceServiceMetricsAspect {
+
+	public static final String METRIC_NAME = "device.service";
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Around("execution(public * com.mateusascacibas.device_api.application.service.DeviceService.*(..))")
+	public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		String outcome = "success";
+		try {
+			return joinPoint.proceed();
+		} catch (Throwable ex) {
+			outcome = outcomeOf(ex);
+			throw ex;
+		} finally {
+			sample.stop(Timer.builder(METRIC_NAME)
+					.description("Time spent in DeviceService methods")
+					.tag("method", joinPoint.getSignature().getName())
+					.tag("outcome", outcome)
+					.register(meterRegistry));
+		}
+	}
+
+	// Mirrors the status codes GlobalExceptionHandler maps these exceptions to
+	private String outcomeOf(Throwable ex) {
+		if (ex instanceof DeviceNotFoundException) {
+			return "not_found";
+		}
+		if (ex instanceof DeviceVersionMismatchException) {
+			return "precondition_failed";
+		}
+		if (ex instanceof ChangeTokenExpiredException) {
+			return "gone";
+		}
+		if (ex instanceof IllegalStateException || ex instanceof OptimisticLockingFailureException) {
+			return "conflict";
+		}
+		if (ex instanceof IllegalArgumentException) {
+			return "bad_request";
+		}
+		return "error";
+	}
+}
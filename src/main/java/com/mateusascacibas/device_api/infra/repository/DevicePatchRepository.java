@@ -0,0 +1,24 @@
+package com.mateusascacibas.device_api.infra.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import com.mateusascacibas.device_api.application.dto.DevicePatchDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+
+public interface DevicePatchRepository {
+
+	/**
+	 * Applies the non-null fields of the patch with a single conditional UPDATE. The row is only written when it
+	 * exists, matches the expected version (if given), is not IN_USE or keeps its name and brand, and at least one
+	 * field actually changes. Returns the updated device, or empty when no row was written.
+	 */
+	Optional<DeviceResponseDTO> patchDtoById(Long id, DevicePatchDTO patch, Long expectedVersion);
+
+	/**
+	 * Applies the same patch to every listed device with one UPDATE under the same conditions as
+	 * {@link #patchDtoById}. Returns the devices that were written; missing, locked and unchanged ones are skipped.
+	 */
+	List<DeviceResponseDTO> patchDtosByIdIn(Collection<Long> ids, DevicePatchDTO patch);
+}
@@ -0,0 +1,154 @@
+package com.mateusascacibas.device_api.infra.repository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
+
+import com.mateusascacibas.device_api.application.dto.DevicePatchDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+import com.mateusascacibas.device_api.domain.model.Device;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+public class DevicePatchRepositoryImpl implements DevicePatchRepository {
+
+	private static final String RETURNING_COLUMNS = " returning id, name, brand, state, creation_time, version";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private Boolean returningSupported;
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public Optional<DeviceResponseDTO> patchDtoById(Long id, DevicePatchDTO patch, Long expectedVersion) {
+		if (patch.isEmpty()) {
+			return Optional.empty();
+		}
+		String update = patchStatement(patch, expectedVersion, "id = :id");
+		Instant modifiedAt = Device.now();
+
+		if (supportsReturning()) {
+			// One round trip: the UPDATE hands back the row it wrote, mapped straight to the DTO so a stale
+			// Device already held by the persistence context is never returned
+			List<Object[]> rows = bind(returning(update), id, patch, expectedVersion, modifiedAt).getResultList();
+			return rows.stream().findFirst().map(DevicePatchRepositoryImpl::toDto);
+		}
+
+		if (bind(entityManager.createNativeQuery(update), id, patch, expectedVersion, modifiedAt).executeUpdate() == 0) {
+			return Optional.empty();
+		}
+		return entityManager.createQuery(DeviceRepository.DEVICE_DTO_SELECT + "where d.id = :id", DeviceResponseDTO.class)
+				.setParameter("id", id).getResultStream().findFirst();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<DeviceResponseDTO> patchDtosByIdIn(Collection<Long> ids, DevicePatchDTO patch) {
+		if (ids.isEmpty() || patch.isEmpty()) {
+			return List.of();
+		}
+		String update = patchStatement(patch, null, "id in (:id)");
+		Instant modifiedAt = Device.now();
+
+		if (supportsReturning()) {
+			List<Object[]> rows = bind(returning(update), ids, patch, null, modifiedAt).getResultList();
+			return rows.stream().map(DevicePatchRepositoryImpl::toDto).toList();
+		}
+
+		if (bind(entityManager.createNativeQuery(update), ids, patch, null, modifiedAt).executeUpdate() == 0) {
+			return List.of();
+		}
+		// The rows this UPDATE wrote are the ones carrying its timestamp
+		return entityManager.createQuery(DeviceRepository.DEVICE_DTO_SELECT
+				+ "where d.id in :ids and d.lastModified = :modifiedAt order by d.id", DeviceResponseDTO.class)
+				.setParameter("ids", ids).setParameter("modifiedAt", modifiedAt).getResultList();
+	}
+
+	/**
+	 * Builds the UPDATE from the fields present in the patch only, so at most a handful of statement shapes reach
+	 * the database and each writes just the columns the client sent.
+	 */
+	static String patchStatement(DevicePatchDTO patch, Long expectedVersion, String idCondition) {
+		List<String> assignments = new ArrayList<>();
+		List<String> changes = new ArrayList<>();
+		List<String> unchangedWhileInUse = new ArrayList<>();
+		if (patch.name() != null) {
+			assignments.add("name = :name");
+			changes.add("name <> :name");
+			unchangedWhileInUse.add("name = :name");
+		}
+		if (patch.brand() != null) {
+			assignments.add("brand = :brand");
+			changes.add("brand <> :brand");
+			unchangedWhileInUse.add("brand = :brand");
+		}
+		if (patch.state() != null) {
+			assignments.add("state = :state");
+			changes.add("state <> :state");
+		}
+		assignments.add("version = version + 1");
+		assignments.add("last_modified = :modifiedAt");
+
+		StringBuilder sql = new StringBuilder("update devices set ").append(String.join(", ", assignments))
+				.append(" where ").append(idCondition);
+		if (expectedVersion != null) {
+			sql.append(" and version = :version");
+		}
+		if (!unchangedWhileInUse.isEmpty()) {
+			sql.append(" and (state <> :inUse or (").append(String.join(" and ", unchangedWhileInUse)).append("))");
+		}
+		return sql.append(" and (").append(String.join(" or ", changes)).append(")").toString();
+	}
+
+	private Query returning(String update) {
+		return entityManager.createNativeQuery(update + RETURNING_COLUMNS).unwrap(NativeQuery.class)
+				.addScalar("id", Long.class).addScalar("name", String.class).addScalar("brand", String.class)
+				.addScalar("state", String.class).addScalar("creation_time", LocalDateTime.class)
+				.addScalar("version", Long.class);
+	}
+
+	private static DeviceResponseDTO toDto(Object[] row) {
+		return new DeviceResponseDTO((Long) row[0], (String) row[1], (String) row[2], StateEnum.valueOf((String) row[3]),
+				(LocalDateTime) row[4], (Long) row[5]);
+	}
+
+	private static Query bind(Query query, Object id, DevicePatchDTO patch, Long expectedVersion, Instant modifiedAt) {
+		query.setParameter("id", id);
+		query.setParameter("modifiedAt", modifiedAt);
+		if (patch.name() != null) {
+			query.setParameter("name", patch.name());
+		}
+		if (patch.brand() != null) {
+			query.setParameter("brand", patch.brand());
+		}
+		if (patch.name() != null || patch.brand() != null) {
+			query.setParameter("inUse", StateEnum.IN_USE.name());
+		}
+		if (patch.state() != null) {
+			query.setParameter("state", patch.state().name());
+		}
+		if (expectedVersion != null) {
+			query.setParameter("version", expectedVersion);
+		}
+		return query;
+	}
+
+	private boolean supportsReturning() {
+		if (returningSupported == null) {
+			returningSupported = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+					.getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+		}
+		return returningSupported;
+	}
+}
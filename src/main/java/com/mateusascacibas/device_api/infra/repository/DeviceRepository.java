@@ -1,16 +1,127 @@
 package com.mateusascacibas.device_api.infra.repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import com.mateusascacibas.device_api.application.dto.BrandCountDTO;
+import com.mateusascacibas.device_api.application.dto.BrandStateCountDTO;
+import com.mateusascacibas.device_api.application.dto.ChangedDeviceDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceChangeToken;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceStateDTO;
+import com.mateusascacibas.device_api.application.dto.StateCountDTO;
 import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
 import com.mateusascacibas.device_api.domain.model.Device;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
 @Repository
-public interface DeviceRepository extends JpaRepository<Device, Long>{
+public interface DeviceRepository extends JpaRepository<Device, Long>, DevicePatchRepository {
+
+	String STREAM_FETCH_SIZE = "500";
+	String DEVICE_DTO_SELECT = "select new com.mateusascacibas.device_api.application.dto.DeviceResponseDTO("
+			+ "d.id, d.name, d.brand, d.state, d.creationTime, d.version) from Device d ";
+
+	@Query(DEVICE_DTO_SELECT + "where d.id = :id")
+	Optional<DeviceResponseDTO> findDtoById(Long id);
+
+	@Query(DEVICE_DTO_SELECT + "where d.id in :ids")
+	List<DeviceResponseDTO> findDtosByIdIn(Collection<Long> ids);
+
+	@Query("select d.version from Device d where d.id = :id")
+	Optional<Long> findVersionById(Long id);
+
+	@Query(DEVICE_DTO_SELECT + "where d.id > :after order by d.id")
+	List<DeviceResponseDTO> findDtoPage(Long after, Limit limit);
+
+	@Query(DEVICE_DTO_SELECT + "where d.brand = :brand and d.id > :after order by d.id")
+	List<DeviceResponseDTO> findDtoPageByBrand(String brand, Long after, Limit limit);
+
+	@Query(DEVICE_DTO_SELECT + "where d.state = :state and d.id > :after order by d.id")
+	List<DeviceResponseDTO> findDtoPageByState(StateEnum state, Long after, Limit limit);
+
+	@Query("select d.id from Device d where d.id > :after order by d.id")
+	List<Long> findIdPage(Long after, Limit limit);
+
+
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+	@Query(DEVICE_DTO_SELECT + "order by d.id")
+	Stream<DeviceResponseDTO> streamDtos();
+
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+	@Query(DEVICE_DTO_SELECT + "where d.brand = :brand order by d.id")
+	Stream<DeviceResponseDTO> streamDtosByBrand(String brand);
+
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+	@Query(DEVICE_DTO_SELECT + "where d.state = :state order by d.id")
+	Stream<DeviceResponseDTO> streamDtosByState(StateEnum state);
+
+	@Query("select new com.mateusascacibas.device_api.application.dto.StateCountDTO(d.state, count(d)) "
+			+ "from Device d group by d.state")
+	List<StateCountDTO> countGroupedByState();
+
+	@Query("select new com.mateusascacibas.device_api.application.dto.BrandCountDTO(d.brand, count(d)) "
+			+ "from Device d group by d.brand order by count(d) desc, d.brand")
+	List<BrandCountDTO> countGroupedByBrand(Limit limit);
+
+	@Query("select new com.mateusascacibas.device_api.application.dto.BrandStateCountDTO(d.brand, d.state, count(d)) "
+			+ "from Device d where d.brand in :brands group by d.brand, d.state order by d.brand, d.state")
+	List<BrandStateCountDTO> countGroupedByBrandAndState(Collection<String> brands);
+
+	@Query("select d.id from Device d where (:brand is null or d.brand = :brand) "
+			+ "and (:fromState is null or d.state = :fromState) and d.state <> :targetState order by d.id")
+	List<Long> findIdsForStateTransition(String brand, StateEnum fromState, StateEnum targetState, Limit limit);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select new com.mateusascacibas.device_api.application.dto.DeviceStateDTO(d.id, d.brand, d.state) "
+			+ "from Device d where d.id in :ids")
+	List<DeviceStateDTO> lockStatesByIdIn(Collection<Long> ids);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("update Device d set d.state = :targetState, d.version = d.version + 1, d.lastModified = :modifiedAt "
+			+ "where d.id in :ids and d.state <> :targetState and (:fromState is null or d.state = :fromState)")
+	int updateStateByIdIn(Collection<Long> ids, StateEnum fromState, StateEnum targetState, Instant modifiedAt);
+
+	@Query("select new com.mateusascacibas.device_api.application.dto.ChangedDeviceDTO("
+			+ "d.id, d.name, d.brand, d.state, d.creationTime, d.version, d.lastModified) from Device d "
+			+ "where (d.lastModified > :time or (d.lastModified = :time and d.id > :id)) and d.lastModified <= :horizon "
+			+ "order by d.lastModified, d.id")
+	List<ChangedDeviceDTO> findChangesAfter(Instant time, Long id, Instant horizon, Limit limit);
+
+	// Positions only, served from idx_devices_last_modified_id alone
+	@Query("select new com.mateusascacibas.device_api.application.dto.DeviceChangeToken(d.lastModified, d.id) from Device d "
+			+ "where (d.lastModified > :time or (d.lastModified = :time and d.id > :id)) and d.lastModified <= :horizon "
+			+ "order by d.lastModified, d.id")
+	List<DeviceChangeToken> findChangeTokensAfter(Instant time, Long id, Instant horizon, Limit limit);
+
+	@Query("select d.id from Device d where (:brand is null or d.brand = :brand) and (:state is null or d.state = :state) "
+			+ "and d.state <> com.mateusascacibas.device_api.domain.enumerator.StateEnum.IN_USE and d.id > :after order by d.id")
+	List<Long> findIdsForDeletion(String brand, StateEnum state, Long after, Limit limit);
+
+	@Modifying(flushAutomatically = true)
+	@Query("update Device d set d.lastModified = :modifiedAt where d.id in :ids")
+	int stampLastModified(Collection<Long> ids, Instant modifiedAt);
+
+	@Modifying
+	@Query("delete from Device d where d.id = :id "
+			+ "and d.state <> com.mateusascacibas.device_api.domain.enumerator.StateEnum.IN_USE")
+	int deleteByIdUnlessInUse(Long id);
 
-	List<Device> findByBrand(String brand);
-	List<Device> findByState(StateEnum state);
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("delete from Device d where d.id in :ids "
+			+ "and d.state <> com.mateusascacibas.device_api.domain.enumerator.StateEnum.IN_USE")
+	int deleteByIdInUnlessInUse(Collection<Long> ids);
 }
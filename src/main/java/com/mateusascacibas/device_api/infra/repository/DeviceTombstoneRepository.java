@@ -0,0 +1,35 @@
+package com.mateusascacibas.device_api.infra.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.mateusascacibas.device_api.domain.model.DeviceTombstone;
+
+@Repository
+public interface DeviceTombstoneRepository extends JpaRepository<DeviceTombstone, Long> {
+
+	@Query("select t from DeviceTombstone t where (t.deletedAt > :time or (t.deletedAt = :time and t.deviceId > :id)) "
+			+ "and t.deletedAt <= :horizon order by t.deletedAt, t.deviceId")
+	List<DeviceTombstone> findAfter(Instant time, Long id, Instant horizon, Limit limit);
+
+	@Modifying
+	@Query("insert into DeviceTombstone (deviceId, deletedAt) values (:deviceId, :deletedAt)")
+	int insert(Long deviceId, Instant deletedAt);
+
+	// Run on locked rows right before the matching DELETE so exactly the deleted devices get a tombstone
+	@Modifying
+	@Query("insert into DeviceTombstone (deviceId, deletedAt) select d.id, :deletedAt from Device d where d.id in :ids "
+			+ "and d.state <> com.mateusascacibas.device_api.domain.enumerator.StateEnum.IN_USE")
+	int insertForDeletableByIdIn(Collection<Long> ids, Instant deletedAt);
+
+	@Modifying
+	@Query("delete from DeviceTombstone t where t.deletedAt < :before")
+	int deleteOlderThan(Instant before);
+}
@@ -0,0 +1,193 @@
+package com.mateusascacibas.device_api.infra.repository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+import com.mateusascacibas.device_api.domain.model.Device;
+
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC access to {@code devices} for the reactive profile: the single-device reads and writes and the keyset pages
+ * and exports, in the same SQL shapes and indexes the JPA repository uses. Statements target PostgreSQL.
+ *
+ * <p>New IDs come from {@code devices_seq} the way Hibernate's pooled optimizer takes them (allocationSize 50): a
+ * {@code nextval} reserves the 50 IDs ending at the value it returns, so both stacks, and any number of instances,
+ * can insert into the same table without colliding.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDeviceRepository {
+
+	static final int ID_ALLOCATION_SIZE = 50;
+	// Rows per round trip while an export streams; the next batch is only fetched once the client has taken this one
+	static final int STREAM_FETCH_SIZE = 500;
+	private static final String DEVICE_COLUMNS = "id, name, brand, state, creation_time, version";
+	private static final String DEVICE_SELECT = "select " + DEVICE_COLUMNS + " from devices ";
+
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	private final AtomicReference<IdBlock> ids = new AtomicReference<>(new IdBlock(1, 0));
+
+	public Mono<DeviceResponseDTO> findDtoById(long id) {
+		return databaseClient.sql(DEVICE_SELECT + "where id = :id")
+				.bind("id", id)
+				.map(ReactiveDeviceRepository::toDto)
+				.one();
+	}
+
+	public Flux<DeviceResponseDTO> findDtoPage(long after, int limit) {
+		return databaseClient.sql(DEVICE_SELECT + "where id > :after order by id limit :limit")
+				.bind("after", after)
+				.bind("limit", limit)
+				.map(ReactiveDeviceRepository::toDto)
+				.all();
+	}
+
+	public Flux<DeviceResponseDTO> findDtoPageByBrand(String brand, long after, int limit) {
+		return databaseClient.sql(DEVICE_SELECT + "where brand = :brand and id > :after order by id limit :limit")
+				.bind("brand", brand)
+				.bind("after", after)
+				.bind("limit", limit)
+				.map(ReactiveDeviceRepository::toDto)
+				.all();
+	}
+
+	public Flux<DeviceResponseDTO> findDtoPageByState(StateEnum state, long after, int limit) {
+		return databaseClient.sql(DEVICE_SELECT + "where state = :state and id > :after order by id limit :limit")
+				.bind("state", state.name())
+				.bind("after", after)
+				.bind("limit", limit)
+				.map(ReactiveDeviceRepository::toDto)
+				.all();
+	}
+
+	public Flux<DeviceResponseDTO> streamDtos() {
+		return stream(databaseClient.sql(DEVICE_SELECT + "order by id"));
+	}
+
+	public Flux<DeviceResponseDTO> streamDtosByBrand(String brand) {
+		return stream(databaseClient.sql(DEVICE_SELECT + "where brand = :brand order by id").bind("brand", brand));
+	}
+
+	public Flux<DeviceResponseDTO> streamDtosByState(StateEnum state) {
+		return stream(databaseClient.sql(DEVICE_SELECT + "where state = :state order by id").bind("state", state.name()));
+	}
+
+	/**
+	 * Reserves the ID of a device about to be inserted.
+	 */
+	public Mono<Long> nextId() {
+		return Mono.defer(() -> {
+			long id = ids.get().take();
+			if (id > 0) {
+				return Mono.just(id);
+			}
+			// Concurrent callers may each fetch a block; the one replaced first only leaves a gap in the IDs
+			return databaseClient.sql("select nextval('devices_seq')")
+					.map(row -> row.get(0, Long.class))
+					.one()
+					.map(last -> {
+						IdBlock block = new IdBlock(Math.max(1, last - ID_ALLOCATION_SIZE + 1), last);
+						long first = block.take();
+						ids.set(block);
+						return first;
+					});
+		});
+	}
+
+	public Mono<DeviceResponseDTO> insert(long id, String name, String brand, StateEnum state) {
+		LocalDateTime creationTime = LocalDateTime.now();
+		return databaseClient.sql("insert into devices (id, name, brand, state, creation_time, version, last_modified) "
+						+ "values (:id, :name, :brand, :state, :creationTime, 0, :lastModified)")
+				.bind("id", id)
+				.bind("name", name)
+				.bind("brand", brand)
+				.bind("state", state.name())
+				.bind("creationTime", creationTime)
+				.bind("lastModified", Device.now())
+				.fetch()
+				.rowsUpdated()
+				.thenReturn(new DeviceResponseDTO(id, name, brand, state, creationTime, 0L));
+	}
+
+	/**
+	 * Writes the device if it is still at the given version and returns the row as written, or nothing when it was
+	 * deleted or changed in the meantime.
+	 */
+	public Mono<DeviceResponseDTO> updateIfVersion(long id, long version, String name, String brand, StateEnum state) {
+		return databaseClient.sql("update devices set name = :name, brand = :brand, state = :state, "
+						+ "version = version + 1, last_modified = :lastModified where id = :id and version = :version "
+						+ "returning " + DEVICE_COLUMNS)
+				.bind("name", name)
+				.bind("brand", brand)
+				.bind("state", state.name())
+				.bind("lastModified", Device.now())
+				.bind("id", id)
+				.bind("version", version)
+				.map(ReactiveDeviceRepository::toDto)
+				.one();
+	}
+
+	public Mono<Long> deleteByIdUnlessInUse(long id) {
+		return databaseClient.sql("delete from devices where id = :id and state <> :inUse")
+				.bind("id", id)
+				.bind("inUse", StateEnum.IN_USE.name())
+				.fetch()
+				.rowsUpdated();
+	}
+
+	public Mono<Boolean> existsById(long id) {
+		return databaseClient.sql("select 1 from devices where id = :id")
+				.bind("id", id)
+				.map(row -> Boolean.TRUE)
+				.one()
+				.defaultIfEmpty(Boolean.FALSE);
+	}
+
+	public Mono<Void> insertTombstone(long deviceId, Instant deletedAt) {
+		return databaseClient.sql("insert into device_tombstones (device_id, deleted_at) values (:deviceId, :deletedAt)")
+				.bind("deviceId", deviceId)
+				.bind("deletedAt", deletedAt)
+				.fetch()
+				.rowsUpdated()
+				.then();
+	}
+
+	private static Flux<DeviceResponseDTO> stream(DatabaseClient.GenericExecuteSpec spec) {
+		return spec.filter(statement -> statement.fetchSize(STREAM_FETCH_SIZE))
+				.map(ReactiveDeviceRepository::toDto)
+				.all();
+	}
+
+	private static DeviceResponseDTO toDto(Readable row) {
+		return new DeviceResponseDTO(row.get("id", Long.class), row.get("name", String.class),
+				row.get("brand", String.class), StateEnum.valueOf(row.get("state", String.class)),
+				row.get("creation_time", LocalDateTime.class), row.get("version", Long.class));
+	}
+
+	private record IdBlock(AtomicLong next, long last) {
+
+		IdBlock(long first, long last) {
+			this(new AtomicLong(first), last);
+		}
+
+		// The next free ID, or 0 once the block is used up
+		long take() {
+			long id = next.getAndIncrement();
+			return id <= last ? id : 0;
+		}
+	}
+}
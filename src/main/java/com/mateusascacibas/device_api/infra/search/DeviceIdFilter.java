@@ -0,0 +1,263 @@
+package com.mateusascacibas.device_api.infra.search;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.mateusascacibas.device_api.application.dto.DeviceChangeToken;
+import com.mateusascacibas.device_api.domain.model.Device;
+import com.mateusascacibas.device_api.infra.repository.DeviceRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Bloom filter over device IDs that lets lookups of IDs no device ever had fail without a database query.
+ *
+ * <p>The filter has no false negatives for devices it has seen: {@link #definitelyAbsent} is only true for an ID
+ * that was never added. Devices created here are added by {@code DeviceService}; devices created by other
+ * instances are added by {@link #refresh()}, which follows the delta-sync feed of {@code (last_modified, id)}
+ * positions from the index alone, like the search index does. Writes stamp {@code last_modified} at most the
+ * settle window before they commit, so a device is never skipped; until the first build completes every ID may
+ * exist, and for up to the settle window plus one refresh interval another instance's new device may still be
+ * reported missing here.
+ *
+ * <p>Deleted IDs cannot be taken out of a Bloom filter and keep costing a query, as every ID did before. The filter
+ * is rebuilt from the database once deletions exceed a tenth of the devices it was built with (and
+ * {@value #MIN_REBUILD_DELETIONS}), or once it has filled up past twice the configured false-positive rate.
+ */
+@Component
+public class DeviceIdFilter {
+
+	// IDs per keyset page while rebuilding
+	static final int REBUILD_PAGE_SIZE = 10000;
+	// Deletions that always allow a rebuild, however few devices the filter was built with
+	static final int MIN_REBUILD_DELETIONS = 1000;
+	// Change positions read per query while refreshing
+	static final int REFRESH_PAGE_SIZE = 1000;
+
+	@Autowired
+	private DeviceRepository deviceRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${device.id-filter.enabled:true}")
+	private boolean enabled;
+
+	@Value("${device.id-filter.expected-devices:1000000}")
+	private long expectedDevices;
+
+	@Value("${device.id-filter.false-positive-rate:0.01}")
+	private double falsePositiveRate;
+
+	@Value("${device.changes.settle-window:5s}")
+	private Duration settleWindow;
+
+	private volatile Bits current;
+	// Filter being rebuilt; receives every ID added meanwhile so none is lost in the swap
+	private volatile Bits building;
+	private DeviceChangeToken changesRead;
+	private long devicesAtBuild;
+	private final AtomicLong deletedSinceBuild = new AtomicLong();
+	// Guards rebuild and refresh; a lock rather than synchronized so a virtual thread paging the database does not
+	// pin its carrier
+	private final Lock maintenance = new ReentrantLock();
+
+	private Counter shortCircuits;
+
+	@PostConstruct
+	void init() {
+		Gauge.builder("device.id_filter.false_positive_rate", this, DeviceIdFilter::falsePositiveRate)
+				.description("Estimated share of unknown IDs the filter cannot rule out").register(meterRegistry);
+		shortCircuits = Counter.builder("device.id_filter.short_circuits")
+				.description("Lookups answered as not found without a database query").register(meterRegistry);
+	}
+
+	/**
+	 * Returns true when no device with this ID exists, false when it may exist and the database must be asked.
+	 */
+	public boolean definitelyAbsent(Long id) {
+		Bits bits = current;
+		if (id == null || bits == null || bits.mightContain(id)) {
+			return false;
+		}
+		shortCircuits.increment();
+		return true;
+	}
+
+	public void add(Long id) {
+		// The rebuilt filter is written first: once it replaces the current one, building is already cleared
+		Bits pending = building;
+		if (pending != null) {
+			pending.add(id);
+		}
+		Bits bits = current;
+		if (bits != null) {
+			bits.add(id);
+		}
+	}
+
+	public void deleted(int count) {
+		deletedSinceBuild.addAndGet(count);
+	}
+
+	public double falsePositiveRate() {
+		Bits bits = current;
+		return bits == null ? 1.0 : bits.falsePositiveRate();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		if (!enabled) {
+			return;
+		}
+
+		maintenance.lock();
+		try {
+			rebuildFilter();
+		} finally {
+			maintenance.unlock();
+		}
+	}
+
+	private void rebuildFilter() {
+		// Devices committed after the scan are stamped no earlier than this, and are read by the next refresh
+		DeviceChangeToken scanStart = new DeviceChangeToken(Device.now().minus(settleWindow), 0L);
+		long devices = deviceRepository.count();
+		Bits next = new Bits(Math.max(expectedDevices, 2 * devices), falsePositiveRate);
+		building = next;
+		try {
+			long deletedBefore = deletedSinceBuild.get();
+			Long after = 0L;
+			List<Long> page;
+			do {
+				page = deviceRepository.findIdPage(after, Limit.of(REBUILD_PAGE_SIZE));
+				page.forEach(next::add);
+				after = page.isEmpty() ? after : page.get(page.size() - 1);
+			} while (page.size() == REBUILD_PAGE_SIZE);
+
+			current = next;
+			devicesAtBuild = devices;
+			deletedSinceBuild.addAndGet(-deletedBefore);
+			changesRead = scanStart;
+		} finally {
+			building = null;
+		}
+	}
+
+	/**
+	 * Adds the devices other instances created since the last refresh, and rebuilds the filter once deletions or
+	 * insertions have made it too stale or too full.
+	 */
+	@Scheduled(fixedDelayString = "${device.id-filter.refresh-interval:PT1S}")
+	public void refresh() {
+		maintenance.lock();
+		try {
+			refreshFilter();
+		} finally {
+			maintenance.unlock();
+		}
+	}
+
+	private void refreshFilter() {
+		Bits bits = current;
+		if (bits == null) {
+			return;
+		}
+		boolean stale = deletedSinceBuild.get() > Math.max(MIN_REBUILD_DELETIONS, devicesAtBuild / 10);
+		if (stale || bits.falsePositiveRate() > 2 * falsePositiveRate) {
+			rebuildFilter();
+			return;
+		}
+
+		// Updated devices are read too: only the change feed is ordered closely enough to commits
+		Instant horizon = Device.now().minus(settleWindow);
+		DeviceChangeToken from = changesRead;
+		List<DeviceChangeToken> changed;
+		do {
+			changed = deviceRepository.findChangeTokensAfter(from.time(), from.id(), horizon, Limit.of(REFRESH_PAGE_SIZE));
+			for (DeviceChangeToken change : changed) {
+				add(change.id());
+				from = change;
+			}
+		} while (changed.size() == REFRESH_PAGE_SIZE);
+		changesRead = from;
+	}
+
+	/**
+	 * Bit array with {@code k} probes per ID from double hashing. Bits are only ever set, with a CAS per word, so
+	 * adds and lookups need no lock.
+	 */
+	private static final class Bits {
+
+		private final AtomicLongArray words;
+		private final long size;
+		private final int hashCount;
+		private final AtomicLong setBits = new AtomicLong();
+
+		Bits(long expectedIds, double falsePositiveRate) {
+			double ln2 = Math.log(2);
+			long bits = (long) Math.ceil(-expectedIds * Math.log(falsePositiveRate) / (ln2 * ln2));
+			this.words = new AtomicLongArray(Math.toIntExact(Math.max(1, (bits + 63) / 64)));
+			this.size = words.length() * 64L;
+			this.hashCount = (int) Math.max(1, Math.round((double) size / expectedIds * ln2));
+		}
+
+		void add(long id) {
+			long hash = mix(id);
+			long step = mix(hash) | 1;
+			for (int probe = 0; probe < hashCount; probe++) {
+				long bit = Math.floorMod(hash + probe * step, size);
+				int word = (int) (bit >>> 6);
+				long mask = 1L << bit;
+				long value = words.get(word);
+				while ((value & mask) == 0) {
+					if (words.compareAndSet(word, value, value | mask)) {
+						setBits.incrementAndGet();
+						break;
+					}
+					value = words.get(word);
+				}
+			}
+		}
+
+		boolean mightContain(long id) {
+			long hash = mix(id);
+			long step = mix(hash) | 1;
+			for (int probe = 0; probe < hashCount; probe++) {
+				long bit = Math.floorMod(hash + probe * step, size);
+				if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		double falsePositiveRate() {
+			return Math.pow((double) setBits.get() / size, hashCount);
+		}
+
+		// SplitMix64 finalizer: sequential IDs land on unrelated bits
+		private static long mix(long value) {
+			long z = value + 0x9E3779B97F4A7C15L;
+			z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+			z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+			return z ^ (z >>> 31);
+		}
+	}
+}
@@ -0,0 +1,481 @@
+package com.mateusascacibas.device_api.infra.search;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.mateusascacibas.device_api.application.dto.ChangedDeviceDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceChangeToken;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.application.event.DeviceChangedEvent;
+import com.mateusascacibas.device_api.domain.model.Device;
+import com.mateusascacibas.device_api.domain.model.DeviceTombstone;
+import com.mateusascacibas.device_api.infra.repository.DeviceRepository;
+import com.mateusascacibas.device_api.infra.repository.DeviceTombstoneRepository;
+
+/**
+ * In-memory inverted index for ranked prefix and substring search over device name and brand.
+ *
+ * <p>Names are indexed by their trigrams and by the first one to three characters of the name
+ * ({@code ^} grams) and of every later word ({@code ~} grams). Each gram maps to a sorted array of
+ * internal document slots. Matches are ranked in tiers: name prefix, a later word of the name starting
+ * with the query, substring of the name (queries of three or more characters), then the same tiers on
+ * the brand. Each name tier intersects its own gram arrays and stops as soon as the limit is filled, so
+ * broad queries cost about as much as selective ones. Within a tier, matches are returned in index order.
+ *
+ * <p>Brands repeat across many devices, so they are kept as brand to devices lists and matched by
+ * scanning the distinct brands instead of being indexed per device. The index is rebuilt from the
+ * database at startup and kept current from committed device changes. Changes made by other instances
+ * are read by {@link #refresh()} from the delta-sync queries ({@code last_modified} and tombstones), once
+ * they are older than the settle window; until then this instance's results may lag behind theirs.
+ * Every entry keeps the version it was indexed at, so a row read by a scan never replaces a newer one.
+ */
+@Component
+public class DeviceSearchIndex {
+
+	public static final int GRAM_LENGTH = 3;
+	// Changed devices and tombstones read per query while refreshing
+	static final int REFRESH_PAGE_SIZE = 1000;
+
+	private static final int NO_MATCH = -1;
+	private static final int NAME_PREFIX = 0;
+	private static final int WORD_PREFIX = 1;
+	private static final int SUBSTRING = 2;
+	private static final char NAME_START_MARK = '^';
+	private static final char WORD_START_MARK = '~';
+
+	@Autowired
+	private DeviceRepository deviceRepository;
+
+	@Autowired
+	private DeviceTombstoneRepository deviceTombstoneRepository;
+
+	@Value("${device.changes.settle-window:5s}")
+	private Duration settleWindow;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<Long, Integer> slotsById = new HashMap<>();
+	private final Map<String, Postings> nameGrams = new HashMap<>();
+	private final Map<String, Postings> devicesByBrand = new HashMap<>();
+	private long[] ids = new long[1024];
+	private long[] versions = new long[1024];
+	private String[] names = new String[1024];
+	private String[] brands = new String[1024];
+	private int[] freeSlots = new int[16];
+	private int freeSlotCount;
+	private int slotCount;
+	private Set<Long> changedDuringRebuild;
+	// Delta-sync positions read up to; null until the first rebuild completed
+	private volatile DeviceChangeToken changesRead;
+	private DeviceChangeToken tombstonesRead;
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void rebuild() {
+		// Rows committed after the scan started carry a last_modified no older than this
+		DeviceChangeToken scanStart = new DeviceChangeToken(Device.now().minus(settleWindow), 0L);
+		lock.writeLock().lock();
+		try {
+			changedDuringRebuild = new HashSet<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		try (Stream<DeviceResponseDTO> devices = deviceRepository.streamDtos()) {
+			devices.forEach(device -> {
+				lock.writeLock().lock();
+				try {
+					// A live change is newer than the row read by this scan
+					if (!changedDuringRebuild.contains(device.id())) {
+						put(device.id(), device.name(), device.brand(), device.version());
+					}
+				} finally {
+					lock.writeLock().unlock();
+				}
+			});
+		} finally {
+			lock.writeLock().lock();
+			try {
+				changedDuringRebuild = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+		tombstonesRead = scanStart;
+		changesRead = scanStart;
+	}
+
+	/**
+	 * Applies the device changes and deletions committed since the previous refresh, including those made by
+	 * other instances. Local changes were already applied from their events and are skipped by version.
+	 */
+	@Scheduled(fixedDelayString = "${device.search.refresh-interval:PT1S}")
+	public void refresh() {
+		DeviceChangeToken from = changesRead;
+		if (from == null) {
+			return;
+		}
+
+		Instant horizon = Device.now().minus(settleWindow);
+		List<ChangedDeviceDTO> changed;
+		do {
+			changed = deviceRepository.findChangesAfter(from.time(), from.id(), horizon, Limit.of(REFRESH_PAGE_SIZE));
+			for (ChangedDeviceDTO device : changed) {
+				lock.writeLock().lock();
+				try {
+					put(device.id(), device.name(), device.brand(), device.version());
+				} finally {
+					lock.writeLock().unlock();
+				}
+				from = new DeviceChangeToken(device.lastModified(), device.id());
+			}
+		} while (changed.size() == REFRESH_PAGE_SIZE);
+		changesRead = from;
+
+		List<DeviceTombstone> tombstones;
+		do {
+			tombstones = deviceTombstoneRepository.findAfter(tombstonesRead.time(), tombstonesRead.id(), horizon,
+					Limit.of(REFRESH_PAGE_SIZE));
+			for (DeviceTombstone tombstone : tombstones) {
+				remove(tombstone.getDeviceId());
+				tombstonesRead = new DeviceChangeToken(tombstone.getDeletedAt(), tombstone.getDeviceId());
+			}
+		} while (tombstones.size() == REFRESH_PAGE_SIZE);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onDeviceChanged(DeviceChangedEvent event) {
+		if (event.type() == DeviceChangedEvent.Type.DELETED) {
+			remove(event.id());
+		} else {
+			index(event.id(), event.device().name(), event.device().brand(), event.device().version());
+		}
+	}
+
+	public void index(Long id, String name, String brand) {
+		index(id, name, brand, null);
+	}
+
+	/**
+	 * Indexes the device unless it is already indexed at a newer version; a null version always replaces.
+	 */
+	public void index(Long id, String name, String brand, Long version) {
+		lock.writeLock().lock();
+		try {
+			markChanged(id);
+			put(id, name, brand, version);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long id) {
+		lock.writeLock().lock();
+		try {
+			markChanged(id);
+			Integer slot = slotsById.remove(id);
+			if (slot != null) {
+				unindex(slot);
+				names[slot] = null;
+				brands[slot] = null;
+				pushFreeSlot(slot);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return slotsById.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the IDs of the best {@code limit} matches for {@code query}, best first. Queries shorter than
+	 * {@link #GRAM_LENGTH} characters only match the start of words.
+	 */
+	public List<Long> search(String query, int limit) {
+		String term = normalize(query);
+		if (term.isEmpty() || limit < 1) {
+			return List.of();
+		}
+
+		lock.readLock().lock();
+		try {
+			List<Long> result = new ArrayList<>(limit);
+			String prefix = term.substring(0, Math.min(term.length(), GRAM_LENGTH));
+			addNameMatches(NAME_START_MARK + prefix, term, NAME_PREFIX, limit, result);
+			addNameMatches(WORD_START_MARK + prefix, term, WORD_PREFIX, limit, result);
+			if (term.length() >= GRAM_LENGTH) {
+				addNameMatches(null, term, SUBSTRING, limit, result);
+			}
+			addBrandMatches(term, limit, result);
+			return result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Appends, in index order, the devices whose name matches {@code term} at exactly {@code tier}, until
+	 * {@code result} holds {@code limit} IDs. Candidates are the intersection of the trigrams of the term and
+	 * of {@code anchorGram} when given; each one is verified, since grams only approximate the match.
+	 */
+	private void addNameMatches(String anchorGram, String term, int tier, int limit, List<Long> result) {
+		if (result.size() >= limit) {
+			return;
+		}
+		List<Postings> lists = new ArrayList<>();
+		if (anchorGram != null) {
+			lists.add(nameGrams.get(anchorGram));
+		}
+		for (int i = 0; i + GRAM_LENGTH <= term.length(); i++) {
+			lists.add(nameGrams.get(term.substring(i, i + GRAM_LENGTH)));
+		}
+		if (lists.contains(null)) {
+			return;
+		}
+		lists.sort(Comparator.comparingInt(Postings::size));
+
+		Postings smallest = lists.get(0);
+		int[] cursors = new int[lists.size()];
+		candidates:
+		for (int i = 0; i < smallest.size(); i++) {
+			int slot = smallest.get(i);
+			for (int list = 1; list < lists.size(); list++) {
+				cursors[list] = lists.get(list).seek(slot, cursors[list]);
+				if (!lists.get(list).containsAt(slot, cursors[list])) {
+					continue candidates;
+				}
+			}
+			if (score(names[slot], term) == tier) {
+				result.add(ids[slot]);
+				if (result.size() == limit) {
+					return;
+				}
+			}
+		}
+	}
+
+	private void addBrandMatches(String term, int limit, List<Long> result) {
+		if (result.size() >= limit) {
+			return;
+		}
+		List<Map.Entry<String, Integer>> matchingBrands = new ArrayList<>();
+		for (String brand : devicesByBrand.keySet()) {
+			int score = score(brand, term);
+			if (score != NO_MATCH) {
+				matchingBrands.add(Map.entry(brand, score));
+			}
+		}
+		matchingBrands.sort(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+
+		Set<Long> nameMatches = new HashSet<>(result);
+		for (Map.Entry<String, Integer> brand : matchingBrands) {
+			Postings devices = devicesByBrand.get(brand.getKey());
+			for (int i = 0; i < devices.size(); i++) {
+				long id = ids[devices.get(i)];
+				if (!nameMatches.contains(id)) {
+					result.add(id);
+					if (result.size() == limit) {
+						return;
+					}
+				}
+			}
+		}
+	}
+
+	private void put(Long id, String name, String brand, Long version) {
+		Integer existing = slotsById.get(id);
+		int slot;
+		if (existing != null) {
+			slot = existing;
+			if (version != null && versions[slot] > version) {
+				return;
+			}
+			unindex(slot);
+		} else {
+			slot = allocateSlot();
+			slotsById.put(id, slot);
+			ids[slot] = id;
+		}
+
+		versions[slot] = version != null ? version : Long.MIN_VALUE;
+		names[slot] = normalize(name);
+		brands[slot] = normalize(brand);
+		for (String gram : documentGrams(names[slot])) {
+			nameGrams.computeIfAbsent(gram, key -> new Postings()).add(slot);
+		}
+		devicesByBrand.computeIfAbsent(brands[slot], key -> new Postings()).add(slot);
+	}
+
+	private void unindex(int slot) {
+		for (String gram : documentGrams(names[slot])) {
+			removeFrom(nameGrams, gram, slot);
+		}
+		removeFrom(devicesByBrand, brands[slot], slot);
+	}
+
+	private void markChanged(Long id) {
+		if (changedDuringRebuild != null) {
+			changedDuringRebuild.add(id);
+		}
+	}
+
+	private int allocateSlot() {
+		if (freeSlotCount > 0) {
+			return freeSlots[--freeSlotCount];
+		}
+		if (slotCount == ids.length) {
+			int capacity = slotCount * 2;
+			ids = Arrays.copyOf(ids, capacity);
+			versions = Arrays.copyOf(versions, capacity);
+			names = Arrays.copyOf(names, capacity);
+			brands = Arrays.copyOf(brands, capacity);
+		}
+		return slotCount++;
+	}
+
+	private void pushFreeSlot(int slot) {
+		if (freeSlotCount == freeSlots.length) {
+			freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+		}
+		freeSlots[freeSlotCount++] = slot;
+	}
+
+	private static void removeFrom(Map<String, Postings> index, String key, int slot) {
+		Postings postings = index.get(key);
+		if (postings != null && postings.remove(slot) && postings.size() == 0) {
+			index.remove(key);
+		}
+	}
+
+	private static Set<String> documentGrams(String text) {
+		Set<String> grams = new HashSet<>();
+		for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+			grams.add(text.substring(i, i + GRAM_LENGTH));
+		}
+		for (int i = 0; i < text.length(); i++) {
+			if (isWordStart(text, i)) {
+				char mark = i == 0 ? NAME_START_MARK : WORD_START_MARK;
+				for (int length = 1; length <= GRAM_LENGTH && i + length <= text.length(); length++) {
+					grams.add(mark + text.substring(i, i + length));
+				}
+			}
+		}
+		return grams;
+	}
+
+	/**
+	 * The tier at which {@code term} matches {@code text}: {@link #NAME_PREFIX}, {@link #WORD_PREFIX},
+	 * {@link #SUBSTRING} (terms of at least {@link #GRAM_LENGTH} characters only) or {@link #NO_MATCH}.
+	 */
+	private static int score(String text, String term) {
+		if (text.startsWith(term)) {
+			return NAME_PREFIX;
+		}
+		boolean substring = false;
+		for (int at = text.indexOf(term, 1); at >= 0; at = text.indexOf(term, at + 1)) {
+			if (isWordStart(text, at)) {
+				return WORD_PREFIX;
+			}
+			substring = true;
+		}
+		return substring && term.length() >= GRAM_LENGTH ? SUBSTRING : NO_MATCH;
+	}
+
+	private static boolean isWordStart(String text, int index) {
+		return Character.isLetterOrDigit(text.charAt(index))
+				&& (index == 0 || !Character.isLetterOrDigit(text.charAt(index - 1)));
+	}
+
+	private static String normalize(String value) {
+		return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Sorted, growable set of document slots.
+	 */
+	private static final class Postings {
+
+		private int[] slots = new int[4];
+		private int size;
+
+		int size() {
+			return size;
+		}
+
+		int get(int index) {
+			return slots[index];
+		}
+
+		/**
+		 * Position of the first slot not less than {@code slot}, searching forward from {@code from} with
+		 * galloping steps, so walking a list with ascending targets stays close to a linear merge.
+		 */
+		int seek(int slot, int from) {
+			int low = from;
+			int step = 1;
+			while (low + step < size && slots[low + step] < slot) {
+				low += step;
+				step <<= 1;
+			}
+			int at = Arrays.binarySearch(slots, low, Math.min(size, low + step + 1), slot);
+			return at >= 0 ? at : -at - 1;
+		}
+
+		boolean containsAt(int slot, int index) {
+			return index < size && slots[index] == slot;
+		}
+
+		void add(int slot) {
+			int at = size > 0 && slots[size - 1] < slot ? size : Arrays.binarySearch(slots, 0, size, slot);
+			if (at < 0) {
+				at = -at - 1;
+			} else if (at < size) {
+				return;
+			}
+			if (size == slots.length) {
+				slots = Arrays.copyOf(slots, size * 2);
+			}
+			System.arraycopy(slots, at, slots, at + 1, size - at);
+			slots[at] = slot;
+			size++;
+		}
+
+		boolean remove(int slot) {
+			int at = Arrays.binarySearch(slots, 0, size, slot);
+			if (at < 0) {
+				return false;
+			}
+			System.arraycopy(slots, at + 1, slots, at, size - at - 1);
+			size--;
+			return true;
+		}
+	}
+}
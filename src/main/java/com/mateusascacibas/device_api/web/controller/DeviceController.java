@@ -1,16 +1,40 @@
 package com.mateusascacibas.device_api.web.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import com.mateusascacibas.device_api.application.dto.BatchCreateResultDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceChangesDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceDeleteRequestDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceDeleteResultDTO;
+import com.mateusascacibas.device_api.application.dto.DevicePageDTO;
+import com.mateusascacibas.device_api.application.dto.DevicePatchDTO;
 import com.mateusascacibas.device_api.application.dto.DeviceRequestDTO;
 import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceStateReportDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceStatsDTO;
+import com.mateusascacibas.device_api.application.dto.StateTransitionRequestDTO;
+import com.mateusascacibas.device_api.application.dto.StateTransitionResultDTO;
 import com.mateusascacibas.device_api.application.service.DeviceService;
+import com.mateusascacibas.device_api.application.service.DeviceStateReportQueue;
 import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+import com.mateusascacibas.device_api.web.sse.DeviceEventBroadcaster;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -23,12 +47,26 @@ import jakarta.validation.Valid;
 
 @RestController
 @RequestMapping("/devices")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Tag(name = "Device Controller", description = "Handles all device operations such as creation, retrieval, update, and deletion")
 public class DeviceController {
 
+    private static final String DEFAULT_PAGE_SIZE = "50";
+    private static final String DEFAULT_CHANGES_PAGE_SIZE = "1000";
+    private static final int NDJSON_FLUSH_INTERVAL = 500;
+
     @Autowired
     private DeviceService deviceService;
 
+    @Autowired
+    private DeviceStateReportQueue deviceStateReportQueue;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DeviceEventBroadcaster deviceEventBroadcaster;
+
     @Operation(
         summary = "Create a new device",
         description = "Registers a new device with the given name, brand, and state.",
@@ -56,51 +94,300 @@ public class DeviceController {
         return ResponseEntity.created(location).body(response);
     }
 
-    @Operation(summary = "Update an existing device", description = "Updates the attributes of an existing device by ID")
+    @Operation(
+        summary = "Create devices in bulk",
+        description = "Validates each device independently and inserts the valid ones using JDBC batching. The response reports the outcome of every item by its position in the request.",
+        responses = {
+            @ApiResponse(responseCode = "201", description = "All devices successfully created"),
+            @ApiResponse(responseCode = "207", description = "Some devices were rejected; see the per-item results"),
+            @ApiResponse(responseCode = "400", description = "Empty or oversized batch", content = @Content)
+        }
+    )
+    @PostMapping("/batch")
+    public ResponseEntity<BatchCreateResultDTO> createDevices(
+            @RequestBody
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                description = "Array of device creation payloads",
+                required = true,
+                content = @Content(
+                    examples = @ExampleObject(
+                        name = "Example Batch",
+                        value = "[{\"name\":\"Tablet\",\"brand\":\"Apple\",\"state\":\"AVAILABLE\"},{\"name\":\"Phone\",\"brand\":\"Samsung\",\"state\":\"IN_USE\"}]"
+                    )
+                )
+            )
+            List<DeviceRequestDTO> requests) {
+        BatchCreateResultDTO response = deviceService.createDevices(requests);
+        HttpStatus status = response.rejected() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status).body(response);
+    }
+
+    @Operation(
+        summary = "Change the state of many devices",
+        description = "Moves the devices with the given IDs, or all devices matching a brand and/or state filter, to the target state with set-based UPDATEs. fromState and brand also act as preconditions for listed IDs. Devices already in the target state are left untouched; the response reports the outcome for every ID.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Every device was updated or already in the target state"),
+            @ApiResponse(responseCode = "207", description = "Some devices were not found or did not match the filter; see the per-ID results"),
+            @ApiResponse(responseCode = "400", description = "Missing target state, no IDs or filter, or too many devices", content = @Content)
+        }
+    )
+    @PostMapping("/state-transitions")
+    public ResponseEntity<StateTransitionResultDTO> transitionStates(
+            @RequestBody
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                description = "IDs or a brand/state filter, and the target state",
+                required = true,
+                content = @Content(
+                    examples = @ExampleObject(
+                        name = "Example Transition",
+                        value = "{\"ids\":[1,2,3],\"fromState\":\"AVAILABLE\",\"targetState\":\"IN_USE\"}"
+                    )
+                )
+            )
+            @Valid StateTransitionRequestDTO request) {
+        StateTransitionResultDTO response = deviceService.transitionStates(request);
+        HttpStatus status = response.rejected() == 0 ? HttpStatus.OK : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status).body(response);
+    }
+
+    @Operation(
+        summary = "Report device states",
+        description = "Accepts state reports into a write-behind queue and returns immediately. Reports are coalesced per device (fields of a newer report win) and written in batched UPDATEs on the next flush under the PATCH rules: a report that changes nothing writes nothing, and one that renames an IN_USE device is dropped.",
+        responses = {
+            @ApiResponse(responseCode = "202", description = "All reports were queued"),
+            @ApiResponse(responseCode = "400", description = "Empty or oversized request, or a report without ID or fields", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Queue full; the message says how many reports were queued. Retry the rest after Retry-After seconds", content = @Content)
+        }
+    )
+    @PostMapping("/state-reports")
+    public ResponseEntity<Void> reportStates(
+            @RequestBody
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                description = "Array of state reports; name and brand are optional",
+                required = true,
+                content = @Content(
+                    examples = @ExampleObject(
+                        name = "Example Reports",
+                        value = "[{\"id\":1,\"state\":\"IN_USE\"},{\"id\":2,\"state\":\"AVAILABLE\"}]"
+                    )
+                )
+            )
+            List<DeviceStateReportDTO> reports) {
+        deviceStateReportQueue.submit(reports);
+        return ResponseEntity.accepted().build();
+    }
+
+    @Operation(summary = "Update an existing device", description = "Updates the attributes of an existing device by ID. Send If-Match with the device ETag to reject the update when the device changed in the meantime")
     @PutMapping("/{id}")
     public ResponseEntity<DeviceResponseDTO> updateDevice(
             @Parameter(description = "ID of the device to update") @PathVariable Long id,
+            @Parameter(description = "ETag of the device version the update is based on") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody DeviceRequestDTO request) {
-        DeviceResponseDTO response = deviceService.updateDevice(id, request);
-        return ResponseEntity.ok(response);
+        DeviceResponseDTO response = deviceService.updateDevice(id, request, versionOf(id, ifMatch));
+        return ResponseEntity.ok().eTag(DeviceETags.etagOf(response.version())).body(response);
     }
 
-    @Operation(summary = "Find device by ID", description = "Retrieves a device using its unique ID")
+    @Operation(
+        summary = "Partially update a device",
+        description = "Changes only the fields present in the body with a single conditional UPDATE. Name and brand cannot change while the device is IN_USE. A patch that changes nothing writes nothing and returns the device as stored. Send If-Match with the device ETag to reject the patch when the device changed in the meantime",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Device patched, or already matching the patch"),
+            @ApiResponse(responseCode = "400", description = "Blank name or brand", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Device not found", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Name or brand change on an IN_USE device", content = @Content),
+            @ApiResponse(responseCode = "412", description = "If-Match does not hold the current ETag", content = @Content)
+        }
+    )
+    @PatchMapping("/{id}")
+    public ResponseEntity<DeviceResponseDTO> patchDevice(
+            @Parameter(description = "ID of the device to patch") @PathVariable Long id,
+            @Parameter(description = "ETag of the device version the patch is based on") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                description = "Fields to change; omitted fields keep their value",
+                required = true,
+                content = @Content(
+                    examples = @ExampleObject(
+                        name = "Example Patch",
+                        value = "{\"state\":\"INACTIVE\"}"
+                    )
+                )
+            )
+            DevicePatchDTO patch) {
+        DeviceResponseDTO response = deviceService.patchDevice(id, patch, versionOf(id, ifMatch));
+        return ResponseEntity.ok().eTag(DeviceETags.etagOf(response.version())).body(response);
+    }
+
+    @Operation(summary = "Find device by ID", description = "Retrieves a device using its unique ID. Returns 304 when If-None-Match holds the current ETag")
     @GetMapping("/{id}")
     public ResponseEntity<DeviceResponseDTO> findDeviceById(
-            @Parameter(description = "ID of the device to retrieve") @PathVariable Long id) {
+            @Parameter(description = "ID of the device to retrieve") @PathVariable Long id,
+            @Parameter(description = "ETag of a previously retrieved representation") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // A revalidation reads the same cached device as a plain GET and only skips sending the body
         DeviceResponseDTO response = deviceService.findDeviceByID(id);
-        return ResponseEntity.ok(response);
+        String etag = DeviceETags.etagOf(response.version());
+        if (ifNoneMatch != null && DeviceETags.matchesAny(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(response);
     }
 
-    @Operation(summary = "Get all devices", description = "Retrieves a list of all registered devices")
+    @Operation(summary = "Get all devices", description = "Retrieves a page of registered devices ordered by ID. Pass the returned nextCursor as 'after' to fetch the following page")
     @GetMapping
-    public ResponseEntity<List<DeviceResponseDTO>> findAllDevices() {
-        List<DeviceResponseDTO> response = deviceService.findAllDevices();
-        return ResponseEntity.ok(response);
+    public ResponseEntity<DevicePageDTO> findAllDevices(
+            @Parameter(description = "Return only devices with an ID greater than this cursor") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of devices in the page (1-1000)") @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        DevicePageDTO response = deviceService.findAllDevices(after, limit);
+        return ResponseEntity.ok().eTag(DeviceETags.etagOf(response)).varyBy(HttpHeaders.ACCEPT).body(response);
     }
 
-    @Operation(summary = "Get devices by brand", description = "Retrieves devices filtered by brand")
+    @Operation(summary = "Get devices by brand", description = "Retrieves a page of devices filtered by brand, ordered by ID")
     @GetMapping("/brand/{brand}")
-    public ResponseEntity<List<DeviceResponseDTO>> findDevicesByBrand(
-            @Parameter(description = "Brand name to filter devices") @PathVariable String brand) {
-        List<DeviceResponseDTO> response = deviceService.findDevicesByBrand(brand);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<DevicePageDTO> findDevicesByBrand(
+            @Parameter(description = "Brand name to filter devices") @PathVariable String brand,
+            @Parameter(description = "Return only devices with an ID greater than this cursor") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of devices in the page (1-1000)") @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        DevicePageDTO response = deviceService.findDevicesByBrand(brand, after, limit);
+        return ResponseEntity.ok().eTag(DeviceETags.etagOf(response)).varyBy(HttpHeaders.ACCEPT).body(response);
     }
 
-    @Operation(summary = "Get devices by state", description = "Retrieves devices filtered by their state")
+    @Operation(summary = "Get devices by state", description = "Retrieves a page of devices filtered by their state, ordered by ID")
     @GetMapping("/state/{state}")
-    public ResponseEntity<List<DeviceResponseDTO>> findDevicesByState(
-            @Parameter(description = "State to filter devices (AVAILABLE, IN_USE, INACTIVE)") @PathVariable StateEnum state) {
-        List<DeviceResponseDTO> response = deviceService.findDevicesByState(state);
+    public ResponseEntity<DevicePageDTO> findDevicesByState(
+            @Parameter(description = "State to filter devices (AVAILABLE, IN_USE, INACTIVE)") @PathVariable StateEnum state,
+            @Parameter(description = "Return only devices with an ID greater than this cursor") @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of devices in the page (1-1000)") @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        DevicePageDTO response = deviceService.findDevicesByState(state, after, limit);
+        return ResponseEntity.ok().eTag(DeviceETags.etagOf(response)).varyBy(HttpHeaders.ACCEPT).body(response);
+    }
+
+    @Operation(summary = "Get device statistics", description = "Returns device counts by state, by brand and by brand and state, computed in the database. Brand breakdowns are limited to the top brands by device count")
+    @GetMapping("/stats")
+    public ResponseEntity<DeviceStatsDTO> getStatistics(
+            @Parameter(description = "Number of brands to include, ordered by device count (1-100)") @RequestParam(defaultValue = "10") int top) {
+        DeviceStatsDTO response = deviceService.getStatistics(top);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Search devices", description = "Ranked prefix and substring search over device name and brand. Name matches rank above brand matches; queries shorter than three characters match the start of words only")
+    @GetMapping("/search")
+    public ResponseEntity<List<DeviceResponseDTO>> searchDevices(
+            @Parameter(description = "Text to look for in the device name or brand") @RequestParam String q,
+            @Parameter(description = "Maximum number of results (1-100)") @RequestParam(defaultValue = "20") int limit) {
+        List<DeviceResponseDTO> response = deviceService.searchDevices(q, limit);
         return ResponseEntity.ok(response);
     }
 
-    @Operation(summary = "Delete a device", description = "Deletes a device by ID if not in use")
+    @Operation(summary = "Get device changes since a token", description = "Delta sync: returns the devices created or updated and the IDs of devices deleted after the position in 'since', oldest first, plus the token to pass on the next call. Omit 'since' to start from the beginning; keep calling while hasMore is true. Changes become visible after a short settle delay. 410 means the token is older than the deletion history and the client must sync again from scratch")
+    @GetMapping("/changes")
+    public ResponseEntity<DeviceChangesDTO> findChanges(
+            @Parameter(description = "nextToken from the previous response") @RequestParam(required = false) String since,
+            @Parameter(description = "Maximum number of changed plus deleted devices (1-1000)") @RequestParam(defaultValue = DEFAULT_CHANGES_PAGE_SIZE) int limit) {
+        DeviceChangesDTO response = deviceService.findChanges(since, limit);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Stream device changes", description = "Server-Sent Events feed of committed device changes: 'created', 'updated' and 'deleted' events carrying {type, id, device}. Reconnect with Last-Event-ID to resume; a 'reset' event means the missed changes are no longer available and the client should reload the devices it tracks")
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(
+            @Parameter(description = "ID of the last event received, to resume after a disconnect") @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return deviceEventBroadcaster.subscribe(lastEventId);
+    }
+
+    @Operation(summary = "Export all devices as NDJSON", description = "Streams every registered device ordered by ID as newline-delimited JSON")
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAllDevices() {
+        return ndjson(null, null);
+    }
+
+    @Operation(summary = "Export devices by brand as NDJSON", description = "Streams devices filtered by brand as newline-delimited JSON")
+    @GetMapping(value = "/brand/{brand}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportDevicesByBrand(
+            @Parameter(description = "Brand name to filter devices") @PathVariable String brand) {
+        return ndjson(brand, null);
+    }
+
+    @Operation(summary = "Export devices by state as NDJSON", description = "Streams devices filtered by their state as newline-delimited JSON")
+    @GetMapping(value = "/state/{state}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportDevicesByState(
+            @Parameter(description = "State to filter devices (AVAILABLE, IN_USE, INACTIVE)") @PathVariable StateEnum state) {
+        return ndjson(null, state);
+    }
+
+    @Operation(summary = "Delete a device", description = "Deletes a device by ID if not in use, with a single conditional DELETE")
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteDevice(
             @Parameter(description = "ID of the device to delete") @PathVariable Long id) {
         deviceService.deleteDevice(id);
         return ResponseEntity.noContent().build();
     }
+
+    @Operation(
+        summary = "Delete devices in bulk",
+        description = "Deletes the devices with the given IDs, or all devices matching a brand and/or state filter, in chunks that each commit in their own transaction. IN_USE devices are never deleted; the response lists the IDs that were not found or are in use.",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Every listed or matching device was deleted"),
+            @ApiResponse(responseCode = "207", description = "Some devices were not found or are in use; see notFound and inUse"),
+            @ApiResponse(responseCode = "400", description = "No IDs or filter, an IN_USE filter, or too many IDs", content = @Content)
+        }
+    )
+    @DeleteMapping
+    public ResponseEntity<DeviceDeleteResultDTO> deleteDevices(
+            @RequestBody
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                description = "IDs or a brand/state filter",
+                required = true,
+                content = @Content(
+                    examples = @ExampleObject(
+                        name = "Example Bulk Delete",
+                        value = "{\"brand\":\"Nokia\",\"state\":\"INACTIVE\"}"
+                    )
+                )
+            )
+            DeviceDeleteRequestDTO request) {
+        DeviceDeleteResultDTO response = deviceService.deleteDevices(request);
+        HttpStatus status = response.rejected() == 0 ? HttpStatus.OK : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status).body(response);
+    }
+
+    /**
+     * Version the write must apply to, or null when If-Match is absent or "*". Several candidate versions resolve
+     * to whichever one is current, if any.
+     */
+    private Long versionOf(Long id, String ifMatch) {
+        List<Long> versions = DeviceETags.versionsOf(id, ifMatch);
+        if (versions == null) {
+            return null;
+        }
+        if (versions.size() == 1) {
+            return versions.get(0);
+        }
+        Long current = deviceService.findDeviceByID(id).version();
+        return versions.contains(current) ? current : versions.get(0);
+    }
+
+    private ResponseEntity<StreamingResponseBody> ndjson(String brand, StateEnum state) {
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writerFor(DeviceResponseDTO.class)
+                    .withRootValueSeparator("\n").writeValues(out)) {
+                AtomicInteger written = new AtomicInteger();
+                deviceService.exportDevices(brand, state, device -> {
+                    try {
+                        writer.write(device);
+                        // Flush the first row right away so clients get the first byte without waiting for a full buffer
+                        if (written.getAndIncrement() % NDJSON_FLUSH_INTERVAL == 0) {
+                            writer.flush();
+                        }
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                if (written.get() > 0) {
+                    writer.flush();
+                    out.write('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
 }
@@ -0,0 +1,101 @@
+package com.mateusascacibas.device_api.web.controller;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.mateusascacibas.device_api.application.dto.DevicePageDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.application.exception.DeviceVersionMismatchException;
+
+/**
+ * Entity tags of devices and device pages, and the If-Match / If-None-Match rules, shared by the servlet and the
+ * reactive controllers so both stacks answer conditional requests the same way.
+ */
+final class DeviceETags {
+
+	// entity-tag = [ "W/" ] DQUOTE *etagc DQUOTE (RFC 9110, section 8.8.3)
+	private static final String ENTITY_TAG_SYNTAX = "(W/)?\"([^\"\\x00-\\x20\\x7F]*)\"";
+	private static final Pattern ENTITY_TAG = Pattern.compile(ENTITY_TAG_SYNTAX);
+	private static final Pattern ENTITY_TAG_LIST = Pattern.compile(
+			"\\s*" + ENTITY_TAG_SYNTAX + "(\\s*,\\s*" + ENTITY_TAG_SYNTAX + ")*\\s*");
+	private static final Pattern DEVICE_VERSION = Pattern.compile("\\d{1,18}");
+
+	private DeviceETags() {
+	}
+
+	static String etagOf(Long version) {
+		return "\"" + version + "\"";
+	}
+
+	static String etagOf(DevicePageDTO page) {
+		// A page changes when a device enters, leaves or gets a new version, or the cursor moves. The 128-bit prefix
+		// of a SHA-256 over those values makes two different pages sharing a tag, and a false 304, practically impossible
+		MessageDigest digest = newSha256();
+		ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * 2);
+		buffer.putLong(page.nextCursor() == null ? -1 : page.nextCursor()).putLong(page.content().size());
+		digest.update(buffer.array());
+		for (DeviceResponseDTO device : page.content()) {
+			buffer.clear();
+			buffer.putLong(device.id() == null ? -1 : device.id()).putLong(device.version() == null ? -1 : device.version());
+			digest.update(buffer.array());
+		}
+		byte[] hash = Arrays.copyOf(digest.digest(), 16);
+		// Weak: pages are only revalidated with If-None-Match, and Tomcat skips compression for strong ETags
+		return "W/\"p" + HexFormat.of().formatHex(hash) + "\"";
+	}
+
+	static boolean matchesAny(String ifNoneMatch, String etag) {
+		for (String candidate : ifNoneMatch.split(",")) {
+			String tag = candidate.trim();
+			if (tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if (tag.equals("*") || tag.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Device versions listed in If-Match, or null when the header is absent or "*". If-Match uses strong comparison:
+	 * weak tags and tags that are not device ETags never match and fail with 412. Only a header that is not a list
+	 * of entity tags is a 400. With several versions the write applies to whichever one is current, if any.
+	 */
+	static List<Long> versionsOf(Long id, String ifMatch) {
+		if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+			return null;
+		}
+		if (!ENTITY_TAG_LIST.matcher(ifMatch).matches()) {
+			throw new IllegalArgumentException("If-Match must be \"*\" or a list of entity tags");
+		}
+
+		List<Long> versions = new ArrayList<>();
+		Matcher tags = ENTITY_TAG.matcher(ifMatch);
+		while (tags.find()) {
+			if (tags.group(1) == null && DEVICE_VERSION.matcher(tags.group(2)).matches()) {
+				versions.add(Long.valueOf(tags.group(2)));
+			}
+		}
+		if (versions.isEmpty()) {
+			throw new DeviceVersionMismatchException(id, ifMatch);
+		}
+		return versions;
+	}
+
+	private static MessageDigest newSha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException ex) {
+			// Every Java platform is required to support SHA-256
+			throw new IllegalStateException(ex);
+		}
+	}
+}
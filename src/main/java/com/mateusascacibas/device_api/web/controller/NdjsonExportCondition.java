@@ -0,0 +1,95 @@
+package com.mateusascacibas.device_api.web.controller;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.cors.CorsUtils;
+import org.springframework.web.servlet.mvc.condition.AbstractRequestCondition;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Routes a list request to its NDJSON export only when NDJSON is the type the client prefers. Spring MVC picks a
+ * {@code produces} mapping whenever the type is acceptable at all, even at {@code q=0} or ranked below JSON; this
+ * condition makes the choice by quality instead, and the concurrency limit filter uses the same rule to exempt exports.
+ */
+public class NdjsonExportCondition extends AbstractRequestCondition<NdjsonExportCondition> {
+
+	// Higher quality first; at equal quality concrete types before application/* and application/* before */*
+	private static final Comparator<MediaType> PREFERENCE = Comparator.comparingDouble(MediaType::getQualityValue)
+			.reversed()
+			.thenComparing(MediaType::isWildcardType)
+			.thenComparing(MediaType::isWildcardSubtype);
+
+	/**
+	 * Whether the handler method streams NDJSON and should only match requests that prefer it.
+	 */
+	public static boolean appliesTo(Method method) {
+		RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+		return mapping != null && List.of(mapping.produces()).contains(MediaType.APPLICATION_NDJSON_VALUE);
+	}
+
+	/**
+	 * Whether the highest ranked type in {@code Accept} is NDJSON. Types with {@code q=0} are not acceptable and are
+	 * ignored; a missing or malformed header, or one that ranks JSON or a wildcard first, selects the paged response.
+	 */
+	public static boolean prefersNdjson(HttpServletRequest request) {
+		return prefersNdjson(Collections.list(request.getHeaders(HttpHeaders.ACCEPT)));
+	}
+
+	/**
+	 * The same rule over the raw {@code Accept} header values, for the reactive stack.
+	 */
+	public static boolean prefersNdjson(List<String> headers) {
+		if (headers == null || headers.isEmpty()) {
+			return false;
+		}
+		List<MediaType> accepted;
+		try {
+			accepted = new ArrayList<>(MediaType.parseMediaTypes(headers));
+		} catch (InvalidMediaTypeException e) {
+			return false;
+		}
+		accepted.removeIf(type -> type.getQualityValue() == 0);
+		// List.sort is stable, so types of equal rank keep the order the client sent them in
+		accepted.sort(PREFERENCE);
+		return !accepted.isEmpty() && MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(accepted.get(0));
+	}
+
+	@Override
+	protected Collection<MediaType> getContent() {
+		return List.of(MediaType.APPLICATION_NDJSON);
+	}
+
+	@Override
+	protected String getToStringInfix() {
+		return " || ";
+	}
+
+	@Override
+	public NdjsonExportCondition combine(NdjsonExportCondition other) {
+		return this;
+	}
+
+	@Override
+	public NdjsonExportCondition getMatchingCondition(HttpServletRequest request) {
+		if (CorsUtils.isPreFlightRequest(request)) {
+			return this;
+		}
+		return prefersNdjson(request) ? this : null;
+	}
+
+	@Override
+	public int compareTo(NdjsonExportCondition other, HttpServletRequest request) {
+		return 0;
+	}
+}
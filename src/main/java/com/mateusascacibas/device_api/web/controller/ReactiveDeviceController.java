@@ -0,0 +1,264 @@
+package com.mateusascacibas.device_api.web.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import com.mateusascacibas.device_api.application.dto.BatchCreateResultDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceChangesDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceDeleteRequestDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceDeleteResultDTO;
+import com.mateusascacibas.device_api.application.dto.DevicePageDTO;
+import com.mateusascacibas.device_api.application.dto.DevicePatchDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceRequestDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceStateReportDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceStatsDTO;
+import com.mateusascacibas.device_api.application.dto.StateTransitionRequestDTO;
+import com.mateusascacibas.device_api.application.dto.StateTransitionResultDTO;
+import com.mateusascacibas.device_api.application.service.DeviceService;
+import com.mateusascacibas.device_api.application.service.DeviceStateReportQueue;
+import com.mateusascacibas.device_api.application.service.ReactiveDeviceService;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+import com.mateusascacibas.device_api.web.sse.DeviceEventBroadcaster;
+
+import jakarta.validation.Valid;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The {@code /devices} API of the reactive profile, with the routes, status codes, ETags and error bodies of
+ * {@link DeviceController}. Single-device reads and writes, pages and NDJSON exports run on R2DBC without blocking;
+ * the bulk, patch, statistics, search and delta-sync endpoints stay on JPA and are called on the bounded elastic
+ * scheduler so they never hold an event loop. The OpenAPI docs describe the servlet controller only.
+ */
+@RestController
+@RequestMapping("/devices")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDeviceController {
+
+    private static final String DEFAULT_PAGE_SIZE = "50";
+    private static final String DEFAULT_CHANGES_PAGE_SIZE = "1000";
+    // Rows written per chunk of an NDJSON export; each chunk is flushed and the next one is only read once the
+    // client has taken it
+    private static final int NDJSON_FLUSH_INTERVAL = 500;
+    // Stands for an absent or "*" If-Match, since a Mono cannot carry null
+    private static final long NO_VERSION = -1;
+
+    @Autowired
+    private ReactiveDeviceService reactiveDeviceService;
+
+    @Autowired
+    private DeviceService deviceService;
+
+    @Autowired
+    private DeviceStateReportQueue deviceStateReportQueue;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DeviceEventBroadcaster deviceEventBroadcaster;
+
+    @PostMapping
+    public Mono<ResponseEntity<DeviceResponseDTO>> createDevice(@Valid @RequestBody DeviceRequestDTO request) {
+        return reactiveDeviceService.createDevice(request)
+                .map(response -> ResponseEntity.created(URI.create("/devices/" + response.id())).body(response));
+    }
+
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<BatchCreateResultDTO>> createDevices(@RequestBody List<DeviceRequestDTO> requests) {
+        return blocking(() -> deviceService.createDevices(requests)).map(response -> {
+            HttpStatus status = response.rejected() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+            return ResponseEntity.status(status).body(response);
+        });
+    }
+
+    @PostMapping("/state-transitions")
+    public Mono<ResponseEntity<StateTransitionResultDTO>> transitionStates(
+            @RequestBody @Valid StateTransitionRequestDTO request) {
+        return blocking(() -> deviceService.transitionStates(request)).map(response -> {
+            HttpStatus status = response.rejected() == 0 ? HttpStatus.OK : HttpStatus.MULTI_STATUS;
+            return ResponseEntity.status(status).body(response);
+        });
+    }
+
+    // Only enqueues; the queue is flushed by its own scheduled task
+    @PostMapping("/state-reports")
+    public ResponseEntity<Void> reportStates(@RequestBody List<DeviceStateReportDTO> reports) {
+        deviceStateReportQueue.submit(reports);
+        return ResponseEntity.accepted().build();
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<DeviceResponseDTO>> updateDevice(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody DeviceRequestDTO request) {
+        return versionOf(id, ifMatch)
+                .flatMap(version -> reactiveDeviceService.updateDevice(id, request, expected(version)))
+                .map(response -> ResponseEntity.ok().eTag(DeviceETags.etagOf(response.version())).body(response));
+    }
+
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<DeviceResponseDTO>> patchDevice(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody DevicePatchDTO patch) {
+        return versionOf(id, ifMatch)
+                .flatMap(version -> blocking(() -> deviceService.patchDevice(id, patch, expected(version))))
+                .map(response -> ResponseEntity.ok().eTag(DeviceETags.etagOf(response.version())).body(response));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<DeviceResponseDTO>> findDeviceById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // A revalidation reads the same cached device as a plain GET and only skips sending the body
+        return reactiveDeviceService.findDeviceByID(id).map(response -> {
+            String etag = DeviceETags.etagOf(response.version());
+            if (ifNoneMatch != null && DeviceETags.matchesAny(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+            }
+            return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(response);
+        });
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<DevicePageDTO>> findAllDevices(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        return reactiveDeviceService.findAllDevices(after, limit).map(ReactiveDeviceController::page);
+    }
+
+    @GetMapping("/brand/{brand}")
+    public Mono<ResponseEntity<DevicePageDTO>> findDevicesByBrand(
+            @PathVariable String brand,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        return reactiveDeviceService.findDevicesByBrand(brand, after, limit).map(ReactiveDeviceController::page);
+    }
+
+    @GetMapping("/state/{state}")
+    public Mono<ResponseEntity<DevicePageDTO>> findDevicesByState(
+            @PathVariable StateEnum state,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        return reactiveDeviceService.findDevicesByState(state, after, limit).map(ReactiveDeviceController::page);
+    }
+
+    @GetMapping("/stats")
+    public Mono<DeviceStatsDTO> getStatistics(@RequestParam(defaultValue = "10") int top) {
+        return blocking(() -> deviceService.getStatistics(top));
+    }
+
+    @GetMapping("/search")
+    public Mono<List<DeviceResponseDTO>> searchDevices(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        return blocking(() -> deviceService.searchDevices(q, limit));
+    }
+
+    @GetMapping("/changes")
+    public Mono<DeviceChangesDTO> findChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = DEFAULT_CHANGES_PAGE_SIZE) int limit) {
+        return blocking(() -> deviceService.findChanges(since, limit));
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Mono<Void> streamEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+            ServerHttpResponse response) {
+        response.getHeaders().setContentType(MediaType.TEXT_EVENT_STREAM);
+        // Frames arrive already rendered; each one is flushed as soon as it is written
+        return response.writeAndFlushWith(deviceEventBroadcaster.stream(lastEventId)
+                .map(frame -> Mono.just(response.bufferFactory().wrap(frame.getBytes(StandardCharsets.UTF_8)))));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<Void> exportAllDevices(ServerHttpResponse response) {
+        return ndjson(response, reactiveDeviceService.exportDevices(null, null));
+    }
+
+    @GetMapping(value = "/brand/{brand}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<Void> exportDevicesByBrand(@PathVariable String brand, ServerHttpResponse response) {
+        return ndjson(response, reactiveDeviceService.exportDevices(brand, null));
+    }
+
+    @GetMapping(value = "/state/{state}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<Void> exportDevicesByState(@PathVariable StateEnum state, ServerHttpResponse response) {
+        return ndjson(response, reactiveDeviceService.exportDevices(null, state));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteDevice(@PathVariable Long id) {
+        return reactiveDeviceService.deleteDevice(id).then(Mono.fromSupplier(() -> ResponseEntity.noContent().build()));
+    }
+
+    @DeleteMapping
+    public Mono<ResponseEntity<DeviceDeleteResultDTO>> deleteDevices(@RequestBody DeviceDeleteRequestDTO request) {
+        return blocking(() -> deviceService.deleteDevices(request)).map(response -> {
+            HttpStatus status = response.rejected() == 0 ? HttpStatus.OK : HttpStatus.MULTI_STATUS;
+            return ResponseEntity.status(status).body(response);
+        });
+    }
+
+    private static ResponseEntity<DevicePageDTO> page(DevicePageDTO response) {
+        return ResponseEntity.ok().eTag(DeviceETags.etagOf(response)).varyBy(HttpHeaders.ACCEPT).body(response);
+    }
+
+    /**
+     * Version the write must apply to, or {@link #NO_VERSION} when If-Match is absent or "*". Several candidate
+     * versions resolve to whichever one is current, if any.
+     */
+    private Mono<Long> versionOf(Long id, String ifMatch) {
+        return Mono.defer(() -> {
+            List<Long> versions = DeviceETags.versionsOf(id, ifMatch);
+            if (versions == null) {
+                return Mono.just(NO_VERSION);
+            }
+            if (versions.size() == 1) {
+                return Mono.just(versions.get(0));
+            }
+            return reactiveDeviceService.findDeviceByID(id).map(DeviceResponseDTO::version)
+                    .map(current -> versions.contains(current) ? current : versions.get(0));
+        });
+    }
+
+    private static Long expected(Long version) {
+        return version == NO_VERSION ? null : version;
+    }
+
+    private Mono<Void> ndjson(ServerHttpResponse response, Flux<DeviceResponseDTO> devices) {
+        ObjectWriter writer = objectMapper.writerFor(DeviceResponseDTO.class);
+        response.getHeaders().setContentType(MediaType.APPLICATION_NDJSON);
+        return response.writeAndFlushWith(devices.buffer(NDJSON_FLUSH_INTERVAL).map(rows -> Mono.fromCallable(() -> {
+            ByteArrayOutputStream chunk = new ByteArrayOutputStream(rows.size() * 128);
+            for (DeviceResponseDTO row : rows) {
+                writer.writeValue(chunk, row);
+                chunk.write('\n');
+            }
+            return response.bufferFactory().wrap(chunk.toByteArray());
+        })));
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
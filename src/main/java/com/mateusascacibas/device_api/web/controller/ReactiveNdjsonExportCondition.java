@@ -0,0 +1,46 @@
+package com.mateusascacibas.device_api.web.controller;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.cors.reactive.CorsUtils;
+import org.springframework.web.reactive.result.condition.AbstractRequestCondition;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * WebFlux counterpart of {@link NdjsonExportCondition}: the reactive profile routes a list request to its NDJSON
+ * export by the same rule, only when NDJSON is the type the client ranks first.
+ */
+public class ReactiveNdjsonExportCondition extends AbstractRequestCondition<ReactiveNdjsonExportCondition> {
+
+	@Override
+	protected Collection<MediaType> getContent() {
+		return List.of(MediaType.APPLICATION_NDJSON);
+	}
+
+	@Override
+	protected String getToStringInfix() {
+		return " || ";
+	}
+
+	@Override
+	public ReactiveNdjsonExportCondition combine(ReactiveNdjsonExportCondition other) {
+		return this;
+	}
+
+	@Override
+	public ReactiveNdjsonExportCondition getMatchingCondition(ServerWebExchange exchange) {
+		if (CorsUtils.isPreFlightRequest(exchange.getRequest())) {
+			return this;
+		}
+		List<String> accept = exchange.getRequest().getHeaders().get(HttpHeaders.ACCEPT);
+		return NdjsonExportCondition.prefersNdjson(accept) ? this : null;
+	}
+
+	@Override
+	public int compareTo(ReactiveNdjsonExportCondition other, ServerWebExchange exchange) {
+		return 0;
+	}
+}
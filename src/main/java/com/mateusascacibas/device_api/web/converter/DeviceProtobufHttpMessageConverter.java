@@ -0,0 +1,117 @@
+package com.mateusascacibas.device_api.web.converter;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.google.protobuf.Message;
+import com.mateusascacibas.device_api.application.dto.DevicePageDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+
+/**
+ * Writes device responses as {@code application/x-protobuf} messages of {@code src/main/proto/device.proto}: a
+ * device, a page of devices or a list of devices. Write-only; request bodies are still read as JSON.
+ */
+public class DeviceProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+	public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+	private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+	public DeviceProtobufHttpMessageConverter() {
+		super(PROTOBUF);
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return clazz == DeviceResponseDTO.class || clazz == DevicePageDTO.class;
+	}
+
+	@Override
+	public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	protected boolean canRead(MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+		return (supports(clazz) || isDeviceList(type)) && canWrite(mediaType);
+	}
+
+	@Override
+	protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+		toMessage(body).writeTo(outputMessage.getBody());
+	}
+
+	@Override
+	public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+		throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+	}
+
+	@Override
+	protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+		throw new HttpMessageNotReadableException("Protobuf request bodies are not supported", inputMessage);
+	}
+
+	static Message toMessage(Object body) {
+		if (body instanceof DeviceResponseDTO device) {
+			return toProto(device);
+		}
+		if (body instanceof DevicePageDTO page) {
+			DeviceProtos.DevicePage.Builder builder = DeviceProtos.DevicePage.newBuilder();
+			page.content().forEach(device -> builder.addContent(toProto(device)));
+			if (page.nextCursor() != null) {
+				builder.setNextCursor(page.nextCursor());
+			}
+			return builder.build();
+		}
+		DeviceProtos.DeviceList.Builder builder = DeviceProtos.DeviceList.newBuilder();
+		for (Object device : (List<?>) body) {
+			builder.addDevices(toProto((DeviceResponseDTO) device));
+		}
+		return builder.build();
+	}
+
+	private static DeviceProtos.Device toProto(DeviceResponseDTO device) {
+		// Unset fields cost nothing on the wire; proto3 has no nulls, so missing values are simply left out
+		DeviceProtos.Device.Builder builder = DeviceProtos.Device.newBuilder();
+		if (device.id() != null) {
+			builder.setId(device.id());
+		}
+		if (device.name() != null) {
+			builder.setName(device.name());
+		}
+		if (device.brand() != null) {
+			builder.setBrand(device.brand());
+		}
+		if (device.state() != null) {
+			builder.setState(DeviceProtos.State.valueOf(device.state().name()));
+		}
+		if (device.creationTime() != null) {
+			builder.setCreationTimeMicros(ChronoUnit.MICROS.between(EPOCH, device.creationTime()));
+		}
+		if (device.version() != null) {
+			builder.setVersion(device.version());
+		}
+		return builder.build();
+	}
+
+	private static boolean isDeviceList(Type type) {
+		return type instanceof ParameterizedType parameterized && parameterized.getRawType() instanceof Class<?> raw
+				&& List.class.isAssignableFrom(raw)
+				&& parameterized.getActualTypeArguments()[0] == DeviceResponseDTO.class;
+	}
+}
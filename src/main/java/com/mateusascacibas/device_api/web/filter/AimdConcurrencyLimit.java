@@ -0,0 +1,89 @@
+package com.mateusascacibas.device_api.web.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Concurrency limit adjusted by additive increase, multiplicative decrease (AIMD).
+ *
+ * <p>A request that finishes within the latency threshold while at least half the limit is in use raises the limit
+ * by {@code 1 / limit}, about one per limit's worth of requests. A request that is slower than the threshold or
+ * fails cuts the limit by the backoff ratio. Only requests started after the previous cut can cut it again, so the
+ * requests that were already queued behind a slowdown count once.
+ */
+public class AimdConcurrencyLimit {
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final long latencyThresholdNanos;
+	private final double backoffRatio;
+	private final AtomicInteger inflight = new AtomicInteger();
+	// Replaced by compare-and-set rather than guarded by a monitor, which would pin a virtual thread that waits on it
+	private final AtomicReference<State> state;
+
+	public AimdConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos,
+			double backoffRatio) {
+		if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+			throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max");
+		}
+		if (backoffRatio <= 0 || backoffRatio >= 1) {
+			throw new IllegalArgumentException("Backoff ratio must be between 0 and 1");
+		}
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.latencyThresholdNanos = latencyThresholdNanos;
+		this.backoffRatio = backoffRatio;
+		this.state = new AtomicReference<>(new State(initialLimit, Long.MIN_VALUE));
+	}
+
+	/**
+	 * Takes a slot, or returns false when the limit is reached. Every acquired slot must be given back through
+	 * {@link #release}.
+	 */
+	public boolean tryAcquire() {
+		while (true) {
+			int current = inflight.get();
+			if (current >= getLimit()) {
+				return false;
+			}
+			if (inflight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	public void release(long startNanos, long latencyNanos, boolean failed) {
+		int inflightBefore = inflight.getAndDecrement();
+		boolean backOff = failed || latencyNanos > latencyThresholdNanos;
+		while (true) {
+			State current = state.get();
+			State next;
+			if (backOff) {
+				if (startNanos <= current.lastBackoffNanos()) {
+					return;
+				}
+				next = new State(Math.max(minLimit, current.estimate() * backoffRatio), startNanos + latencyNanos);
+			} else if (inflightBefore * 2 >= current.estimate()) {
+				next = new State(Math.min(maxLimit, current.estimate() + 1 / current.estimate()),
+						current.lastBackoffNanos());
+			} else {
+				return;
+			}
+			if (state.compareAndSet(current, next)) {
+				return;
+			}
+		}
+	}
+
+	public int getLimit() {
+		return (int) state.get().estimate();
+	}
+
+	public int getInflight() {
+		return inflight.get();
+	}
+
+	// Fractional limit and the end of the request that last cut it
+	private record State(double estimate, long lastBackoffNanos) {
+	}
+}
@@ -0,0 +1,166 @@
+package com.mateusascacibas.device_api.web.filter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mateusascacibas.device_api.web.controller.NdjsonExportCondition;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Sheds load on the {@code /devices} routes before it queues up on Tomcat threads and the connection pool. Reads
+ * (GET and HEAD) and writes each have an {@link AimdConcurrencyLimit} that follows the latency they observe; a
+ * request over its limit is answered at once with 503 and {@code Retry-After}.
+ *
+ * <p>A request counts against the limit as failed when it throws or ends with 500 or 504; other statuses, including
+ * the 503 a full state-report queue answers with on purpose, are judged by latency alone.
+ *
+ * <p>The Server-Sent Events feed and NDJSON exports (GET on the list routes whose {@code Accept} ranks NDJSON first,
+ * as {@link NdjsonExportCondition} routes them) are left out: they stay open for as long as the client reads and
+ * would both hold slots and report that time as latency. Any other method on those routes is limited whatever it
+ * accepts. The filter is servlet-only; the reactive profile runs without these limits.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+	private static final String EVENTS_ROUTE = "/devices/events";
+	// GET /devices, /devices/brand/{brand} and /devices/state/{state}
+	private static final Pattern EXPORT_ROUTES = Pattern.compile("/devices(/(brand|state)/[^/]+)?/?");
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${device.concurrency-limit.enabled:true}")
+	private boolean enabled;
+
+	@Value("${device.concurrency-limit.read.initial-limit:50}")
+	private int readInitialLimit;
+
+	@Value("${device.concurrency-limit.read.min-limit:5}")
+	private int readMinLimit;
+
+	@Value("${device.concurrency-limit.read.max-limit:500}")
+	private int readMaxLimit;
+
+	@Value("${device.concurrency-limit.read.latency-threshold:500ms}")
+	private Duration readLatencyThreshold;
+
+	@Value("${device.concurrency-limit.write.initial-limit:20}")
+	private int writeInitialLimit;
+
+	@Value("${device.concurrency-limit.write.min-limit:2}")
+	private int writeMinLimit;
+
+	@Value("${device.concurrency-limit.write.max-limit:200}")
+	private int writeMaxLimit;
+
+	@Value("${device.concurrency-limit.write.latency-threshold:1s}")
+	private Duration writeLatencyThreshold;
+
+	@Value("${device.concurrency-limit.backoff-ratio:0.9}")
+	private double backoffRatio;
+
+	@Value("${device.concurrency-limit.retry-after:1s}")
+	private Duration retryAfter;
+
+	private AimdConcurrencyLimit readLimit;
+	private AimdConcurrencyLimit writeLimit;
+	private Counter readRejections;
+	private Counter writeRejections;
+
+	@PostConstruct
+	void init() {
+		readLimit = new AimdConcurrencyLimit(readInitialLimit, readMinLimit, readMaxLimit,
+				readLatencyThreshold.toNanos(), backoffRatio);
+		writeLimit = new AimdConcurrencyLimit(writeInitialLimit, writeMinLimit, writeMaxLimit,
+				writeLatencyThreshold.toNanos(), backoffRatio);
+		readRejections = register("read", readLimit);
+		writeRejections = register("write", writeLimit);
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		if (!enabled) {
+			return true;
+		}
+		if (!HttpMethod.GET.matches(request.getMethod())) {
+			return false;
+		}
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		return EVENTS_ROUTE.equals(path) || (EXPORT_ROUTES.matcher(path).matches() && NdjsonExportCondition.prefersNdjson(request));
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+		AimdConcurrencyLimit limit = read ? readLimit : writeLimit;
+		if (!limit.tryAcquire()) {
+			(read ? readRejections : writeRejections).increment();
+			reject(response);
+			return;
+		}
+
+		long start = System.nanoTime();
+		boolean failed = true;
+		try {
+			chain.doFilter(request, response);
+			failed = isOverload(response.getStatus());
+		} finally {
+			limit.release(start, System.nanoTime() - start, failed);
+		}
+	}
+
+	// Only unexpected errors and timeouts signal overload; a deliberate 503, such as a full state-report queue, does not
+	private static boolean isOverload(int status) {
+		return status == HttpStatus.INTERNAL_SERVER_ERROR.value() || status == HttpStatus.GATEWAY_TIMEOUT.value();
+	}
+
+	private void reject(HttpServletResponse response) throws IOException {
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("timestamp", LocalDateTime.now());
+		body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+		body.put("error", "Service Unavailable");
+		body.put("message", "Too many concurrent requests, retry later");
+
+		response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+		response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())));
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		objectMapper.writeValue(response.getOutputStream(), body);
+	}
+
+	private Counter register(String kind, AimdConcurrencyLimit limit) {
+		Gauge.builder("device.concurrency_limit.limit", limit, AimdConcurrencyLimit::getLimit).tag("kind", kind)
+				.description("Current adaptive concurrency limit").register(meterRegistry);
+		Gauge.builder("device.concurrency_limit.inflight", limit, AimdConcurrencyLimit::getInflight).tag("kind", kind)
+				.description("Requests currently holding a concurrency slot").register(meterRegistry);
+		return Counter.builder("device.concurrency_limit.rejected").tag("kind", kind)
+				.description("Requests answered 503 because the concurrency limit was reached").register(meterRegistry);
+	}
+}
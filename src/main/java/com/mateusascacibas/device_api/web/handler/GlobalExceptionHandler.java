@@ -6,16 +6,31 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
 
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.mateusascacibas.device_api.application.exception.ChangeTokenExpiredException;
 import com.mateusascacibas.device_api.application.exception.DeviceNotFoundException;
+import com.mateusascacibas.device_api.application.exception.DeviceVersionMismatchException;
+import com.mateusascacibas.device_api.application.exception.StateReportQueueFullException;
 
+/**
+ * Error bodies are always JSON, whatever format the client negotiated for the successful response. The same
+ * handlers serve the servlet controller and, in the reactive profile, the WebFlux one.
+ */
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
@@ -27,7 +42,7 @@ public class GlobalExceptionHandler {
         body.put("error", "Device Not Found");
         body.put("message", ex.getMessage());
 
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
@@ -38,7 +53,7 @@ public class GlobalExceptionHandler {
         body.put("error", "Bad Request");
         body.put("message", ex.getMessage());
 
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @ExceptionHandler(IllegalStateException.class)
@@ -49,14 +64,83 @@ public class GlobalExceptionHandler {
         body.put("error", "Conflict");
         body.put("message", ex.getMessage());
 
-        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+        return ResponseEntity.status(HttpStatus.CONFLICT).contentType(MediaType.APPLICATION_JSON).body(body);
     }
     
+    @ExceptionHandler(DeviceVersionMismatchException.class)
+    public ResponseEntity<Object> handleVersionMismatch(DeviceVersionMismatchException ex) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.PRECONDITION_FAILED.value());
+        body.put("error", "Precondition Failed");
+        body.put("message", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @ExceptionHandler(ChangeTokenExpiredException.class)
+    public ResponseEntity<Object> handleChangeTokenExpired(ChangeTokenExpiredException ex) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.GONE.value());
+        body.put("error", "Gone");
+        body.put("message", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.GONE).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @ExceptionHandler(StateReportQueueFullException.class)
+    public ResponseEntity<Object> handleStateReportQueueFull(StateReportQueueFullException ex) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        body.put("error", "Service Unavailable");
+        body.put("message", ex.getMessage());
+
+        long retryAfter = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter)).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", HttpStatus.CONFLICT.value());
+        body.put("error", "Conflict");
+        body.put("message", "Device was modified concurrently, retry with its latest version");
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<Map<String, Object>> handleInvalidJson(HttpMessageNotReadableException ex) {
-        Map<String, Object> response = new HashMap<>();
-        Throwable rootCause = ex.getMostSpecificCause();
+        return invalidRequestBody(ex.getMostSpecificCause());
+    }
+
+    // WebFlux (reactive profile) reports an unreadable body, a missing parameter and a path or query value of the
+    // wrong type alike. Only the first gets the "Invalid request body" answer; the rest go on to Spring Boot's
+    // error response, as they do on the servlet stack
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<Map<String, Object>> handleServerWebInput(ServerWebInputException ex) {
+        if (!(ex.getCause() instanceof DecodingException)) {
+            throw ex;
+        }
+        return invalidRequestBody(NestedExceptionUtils.getMostSpecificCause(ex));
+    }
 
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<Map<String, Object>> handleValidationErrors(MethodArgumentNotValidException ex) {
+        return validationFailed(ex.getBindingResult());
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Map<String, Object>> handleWebExchangeBind(WebExchangeBindException ex) {
+        return validationFailed(ex.getBindingResult());
+    }
+
+    private ResponseEntity<Map<String, Object>> invalidRequestBody(Throwable rootCause) {
+        Map<String, Object> response = new HashMap<>();
         response.put("timestamp", LocalDateTime.now());
         response.put("status", HttpStatus.BAD_REQUEST.value());
         response.put("error", "Invalid request body");
@@ -70,17 +154,16 @@ public class GlobalExceptionHandler {
             response.put("message", rootCause.getMessage());
         }
 
-        return ResponseEntity.badRequest().body(response);
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(response);
     }
     
-    @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<Map<String, Object>> handleValidationErrors(MethodArgumentNotValidException ex) {
+    private ResponseEntity<Map<String, Object>> validationFailed(BindingResult bindingResult) {
         Map<String, Object> response = new HashMap<>();
         response.put("timestamp", LocalDateTime.now());
         response.put("status", HttpStatus.BAD_REQUEST.value());
         response.put("error", "Validation failed");
 
-        List<Map<String, String>> fieldErrors = ex.getBindingResult()
+        List<Map<String, String>> fieldErrors = bindingResult
             .getFieldErrors()
             .stream()
             .map(error -> {
@@ -92,7 +175,7 @@ public class GlobalExceptionHandler {
 
         response.put("errors", fieldErrors);
 
-        return ResponseEntity.badRequest().body(response);
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(response);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,360 @@
+package com.mateusascacibas.device_api.web.sse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mateusascacibas.device_api.application.event.DeviceChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+/**
+ * Fans committed device changes out to the Server-Sent Events subscribers of {@code GET /devices/events}.
+ *
+ * <p>Every change is serialized once into an SSE frame whose ID is {@code <stream>-<sequence>}, and the last
+ * {@code device.events.replay-size} frames are kept in a ring so a reconnecting client resumes from its
+ * {@code Last-Event-ID}. A client whose ID is no longer in the ring, or comes from before a restart, gets a
+ * {@code reset} event and should reload the devices it tracks.
+ *
+ * <p>Subscribers are async requests and hold no thread while idle. Each has a bounded queue that a virtual
+ * thread drains only while frames are pending, so a slow client never blocks the committing request or the other
+ * subscribers. When a queue is full the subscriber is disconnected (it reconnects and catches up from the ring)
+ * or loses its oldest frames, which shows up as a gap in the event IDs.
+ *
+ * <p>Servlet subscribers get an {@link SseEmitter}; in the reactive profile {@link #stream} hands the same frames
+ * to WebFlux as a {@link Flux}, under the same queues and overflow policy.
+ */
+@Component
+public class DeviceEventBroadcaster {
+
+	public enum OverflowPolicy {
+		DISCONNECT, DROP_OLDEST
+	}
+
+	public static final String RESET_EVENT = "reset";
+
+	private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("keep-alive").build();
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${device.events.buffer-size:256}")
+	private int bufferSize;
+
+	@Value("${device.events.replay-size:1024}")
+	private int replaySize;
+
+	@Value("${device.events.overflow-policy:disconnect}")
+	private OverflowPolicy overflowPolicy;
+
+	@Value("${device.events.timeout:30m}")
+	private Duration timeout;
+
+	@Value("${device.events.reconnect-delay:3s}")
+	private Duration reconnectDelay;
+
+	private final String streamId = Long.toString(System.currentTimeMillis(), 36);
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+	private final Object publishLock = new Object();
+	private ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+	private Counter overflows;
+
+	// Guarded by publishLock
+	private Set<DataWithMediaType>[] ring;
+	private long sequence;
+
+	@PostConstruct
+	@SuppressWarnings("unchecked")
+	void init() {
+		ring = new Set[Math.max(1, replaySize)];
+		Gauge.builder("device.events.subscribers", subscribers, Set::size)
+				.description("Open GET /devices/events streams").register(meterRegistry);
+		overflows = Counter.builder("device.events.overflows")
+				.description("Subscriber buffers that filled up")
+				.tag("policy", overflowPolicy.name().toLowerCase(Locale.ROOT)).register(meterRegistry);
+	}
+
+	public SseEmitter subscribe(String lastEventId) {
+		SseEmitter emitter = new SseEmitter(timeout.toMillis());
+		Subscriber subscriber = register(new EmitterSink(emitter), lastEventId);
+		emitter.onCompletion(() -> subscribers.remove(subscriber));
+		emitter.onTimeout(() -> subscribers.remove(subscriber));
+		emitter.onError(ex -> subscribers.remove(subscriber));
+		return emitter;
+	}
+
+	/**
+	 * The reactive profile's subscription: the same frames as {@link #subscribe}, rendered as SSE text. Frames are
+	 * only emitted as the response requests them, so a slow client fills its queue and meets the overflow policy
+	 * just as a blocked servlet write would.
+	 */
+	public Flux<String> stream(String lastEventId) {
+		return Flux.<String>create(sink -> {
+			FluxFrameSink frames = new FluxFrameSink(sink);
+			sink.onRequest(requested -> frames.signalDemand());
+			Subscriber subscriber = register(frames, lastEventId);
+			sink.onDispose(() -> {
+				subscriber.closed = true;
+				subscribers.remove(subscriber);
+				frames.signalDemand();
+			});
+		}).take(timeout);
+	}
+
+	public int subscriberCount() {
+		return subscribers.size();
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onDeviceChanged(DeviceChangedEvent event) {
+		String json;
+		try {
+			json = objectMapper.writeValueAsString(event);
+		} catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Cannot serialize device event " + event, ex);
+		}
+		synchronized (publishLock) {
+			long id = ++sequence;
+			Set<DataWithMediaType> frame = SseEmitter.event().id(streamId + "-" + id)
+					.name(event.type().name().toLowerCase(Locale.ROOT)).data(json).build();
+			ring[(int) (id % ring.length)] = frame;
+			for (Subscriber subscriber : subscribers) {
+				subscriber.offer(frame);
+			}
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${device.events.heartbeat-interval:PT15S}")
+	public void sendHeartbeats() {
+		// Keeps idle connections open through proxies and surfaces clients that went away
+		synchronized (publishLock) {
+			for (Subscriber subscriber : subscribers) {
+				if (subscriber.isIdle()) {
+					subscriber.offer(HEARTBEAT);
+				}
+			}
+		}
+	}
+
+	@PreDestroy
+	void shutdown() {
+		for (Subscriber subscriber : subscribers) {
+			try {
+				subscriber.sink.complete(null);
+			} catch (IllegalStateException ex) {
+				// The container already recycled this response
+			}
+		}
+		senders.shutdown();
+	}
+
+	private Subscriber register(FrameSink sink, String lastEventId) {
+		synchronized (publishLock) {
+			List<Set<DataWithMediaType>> backlog = framesAfter(lastEventId);
+			Subscriber subscriber = new Subscriber(sink, bufferSize + (backlog != null ? backlog.size() : 1) + 1);
+
+			// The first frame commits the response headers and tells EventSource how long to wait before reconnecting
+			subscriber.offer(SseEmitter.event().reconnectTime(reconnectDelay.toMillis()).build());
+			if (backlog != null) {
+				backlog.forEach(subscriber::offer);
+			} else {
+				subscriber.offer(SseEmitter.event().id(streamId + "-" + sequence).name(RESET_EVENT).data("{}").build());
+			}
+			subscribers.add(subscriber);
+			return subscriber;
+		}
+	}
+
+	/**
+	 * Frames published after the given event ID, or null when they cannot be replayed because the ID is from
+	 * another stream or older than the ring.
+	 */
+	private List<Set<DataWithMediaType>> framesAfter(String lastEventId) {
+		if (lastEventId == null || lastEventId.isBlank()) {
+			return List.of();
+		}
+		String prefix = streamId + "-";
+		long last;
+		try {
+			last = lastEventId.startsWith(prefix) ? Long.parseLong(lastEventId.substring(prefix.length())) : -1;
+		} catch (NumberFormatException ex) {
+			last = -1;
+		}
+		if (last < 0 || last > sequence || sequence - last > ring.length) {
+			return null;
+		}
+		List<Set<DataWithMediaType>> frames = new ArrayList<>((int) (sequence - last));
+		for (long id = last + 1; id <= sequence; id++) {
+			frames.add(ring[(int) (id % ring.length)]);
+		}
+		return frames;
+	}
+
+	/**
+	 * Where a subscriber's frames are written: the servlet {@link SseEmitter} or the reactive response.
+	 */
+	private interface FrameSink {
+
+		// May block until the client takes the frame; runs on the subscriber's sender thread
+		void send(Set<DataWithMediaType> frame) throws IOException;
+
+		void complete(Throwable failure);
+	}
+
+	private record EmitterSink(SseEmitter emitter) implements FrameSink {
+
+		@Override
+		public void send(Set<DataWithMediaType> frame) throws IOException {
+			emitter.send(frame);
+		}
+
+		@Override
+		public void complete(Throwable failure) {
+			if (failure != null) {
+				emitter.completeWithError(failure);
+			} else {
+				emitter.complete();
+			}
+		}
+	}
+
+	private static final class FluxFrameSink implements FrameSink {
+
+		private final FluxSink<String> sink;
+		private final Lock lock = new ReentrantLock();
+		private final Condition demand = lock.newCondition();
+
+		FluxFrameSink(FluxSink<String> sink) {
+			this.sink = sink;
+		}
+
+		@Override
+		public void send(Set<DataWithMediaType> frame) throws IOException {
+			lock.lock();
+			try {
+				while (sink.requestedFromDownstream() == 0 && !sink.isCancelled()) {
+					demand.await();
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for the client", ex);
+			} finally {
+				lock.unlock();
+			}
+			if (sink.isCancelled()) {
+				throw new IOException("Client went away");
+			}
+			// The frame parts are the SSE lines and the JSON payload, all text
+			StringBuilder text = new StringBuilder();
+			frame.forEach(part -> text.append(part.getData()));
+			sink.next(text.toString());
+		}
+
+		@Override
+		public void complete(Throwable failure) {
+			if (failure != null) {
+				sink.error(failure);
+			} else {
+				sink.complete();
+			}
+		}
+
+		void signalDemand() {
+			lock.lock();
+			try {
+				demand.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private final class Subscriber {
+
+		private final FrameSink sink;
+		private final BlockingQueue<Set<DataWithMediaType>> queue;
+		private final AtomicBoolean sending = new AtomicBoolean();
+		private volatile boolean closed;
+
+		Subscriber(FrameSink sink, int capacity) {
+			this.sink = sink;
+			this.queue = new ArrayBlockingQueue<>(capacity);
+		}
+
+		boolean isIdle() {
+			return queue.isEmpty() && !sending.get();
+		}
+
+		// Called under publishLock, so it must never block
+		void offer(Set<DataWithMediaType> frame) {
+			if (closed) {
+				return;
+			}
+			if (!queue.offer(frame)) {
+				overflows.increment();
+				if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+					close(null);
+					return;
+				}
+				queue.poll();
+				queue.offer(frame);
+			}
+			if (sending.compareAndSet(false, true)) {
+				senders.execute(this::drain);
+			}
+		}
+
+		private void drain() {
+			do {
+				Set<DataWithMediaType> frame;
+				while (!closed && (frame = queue.poll()) != null) {
+					try {
+						sink.send(frame);
+					} catch (IOException | IllegalStateException ex) {
+						close(ex);
+					}
+				}
+				sending.set(false);
+			} while (!closed && !queue.isEmpty() && sending.compareAndSet(false, true));
+		}
+
+		private void close(Throwable failure) {
+			closed = true;
+			subscribers.remove(this);
+			queue.clear();
+			// Completing takes the emitter's lock, which a blocked send may hold; never do it on the publishing thread
+			senders.execute(() -> sink.complete(failure));
+		}
+	}
+}
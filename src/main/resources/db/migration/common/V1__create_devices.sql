@@ -0,0 +1,16 @@
+-- Devices schema. Written with IF NOT EXISTS so it also applies on databases that were
+-- created by Hibernate's ddl-auto=update before migrations were introduced.
+
+create sequence if not exists devices_seq start with 1 increment by 50;
+
+create table if not exists devices (
+    id bigint not null,
+    name varchar(255) not null,
+    brand varchar(255) not null,
+    state varchar(255) not null,
+    creation_time timestamp(6) not null,
+    version bigint default 0 not null,
+    primary key (id)
+);
+
+alter table devices add column if not exists version bigint default 0 not null;
@@ -0,0 +1,8 @@
+-- Keyset pages filter on brand or state and order by id, so id is the trailing column:
+-- "where brand = ? and id > ? order by id limit n" reads a single index range in order.
+-- They also serve plain brand or state equality lookups, so no single-column indexes are needed.
+create index if not exists idx_devices_brand_id on devices (brand, id);
+create index if not exists idx_devices_state_id on devices (state, id);
+
+-- Filters and counts on state and brand together.
+create index if not exists idx_devices_state_brand on devices (state, brand);
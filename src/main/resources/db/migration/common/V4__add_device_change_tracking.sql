@@ -0,0 +1,14 @@
+-- Delta sync (GET /devices/changes): every write stamps last_modified, and deletions leave a tombstone.
+-- Existing rows count as modified when the migration runs, so clients syncing from scratch still see them.
+alter table devices add column if not exists last_modified timestamp(6) with time zone default current_timestamp not null;
+
+-- Changes are read in (last_modified, id) order from a token position: one index range per page.
+create index if not exists idx_devices_last_modified_id on devices (last_modified, id);
+
+create table if not exists device_tombstones (
+    device_id bigint not null,
+    deleted_at timestamp(6) with time zone not null,
+    primary key (device_id)
+);
+
+create index if not exists idx_device_tombstones_deleted_at_id on device_tombstones (deleted_at, device_id);
@@ -0,0 +1,3 @@
+-- The negative-lookup filter polls for devices other instances created: one index range per refresh,
+-- however often existing devices are updated.
+create index if not exists idx_devices_creation_time_id on devices (creation_time, id);
@@ -0,0 +1,3 @@
+-- The negative-lookup filter now follows the (last_modified, id) change feed, whose stamps bulk inserts refresh
+-- right before they commit; creation_time is set when a row is persisted and was never safe to poll.
+drop index if exists idx_devices_creation_time_id;
@@ -0,0 +1,9 @@
+-- Databases created before the pooled devices_seq generator used an IDENTITY column.
+-- Hand out IDs from the sequence only, and move it past every ID already in use
+-- (never backwards, so blocks already reserved by a running instance stay valid).
+
+alter table devices alter column id drop identity if exists;
+
+select setval('devices_seq',
+        greatest((select coalesce(max(id), 0) from devices), (select last_value from devices_seq)) + 50,
+        false);
@@ -0,0 +1,252 @@
+package com.mateusascacibas.device_api.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.event.TransactionalEventListenerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mateusascacibas.device_api.application.dto.DeviceDeleteRequestDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceRequestDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceStateDTO;
+import com.mateusascacibas.device_api.application.dto.StateTransitionRequestDTO;
+import com.mateusascacibas.device_api.application.event.DeviceChangedEvent;
+import com.mateusascacibas.device_api.application.exception.DeviceNotFoundException;
+import com.mateusascacibas.device_api.application.mapper.DeviceMapper;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+import com.mateusascacibas.device_api.domain.model.Device;
+import com.mateusascacibas.device_api.infra.config.CacheConfig;
+import com.mateusascacibas.device_api.infra.repository.DeviceRepository;
+import com.mateusascacibas.device_api.infra.repository.DeviceTombstoneRepository;
+import com.mateusascacibas.device_api.infra.search.DeviceIdFilter;
+import com.mateusascacibas.device_api.infra.search.DeviceSearchIndex;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.Validator;
+
+@SpringJUnitConfig(DeviceServiceCacheTest.Config.class)
+class DeviceServiceCacheTest {
+
+	@Configuration
+	@Import({ CacheConfig.class, DeviceService.class, DeviceCache.class, SingleFlight.class })
+	static class Config {
+
+		@Bean
+		CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager(CacheConfig.DEVICES_CACHE);
+		}
+
+		// Defers @TransactionalEventListener methods to commit, as @EnableTransactionManagement does in the app
+		@Bean
+		static TransactionalEventListenerFactory transactionalEventListenerFactory() {
+			return new TransactionalEventListenerFactory();
+		}
+
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		static ConversionService conversionService() {
+			return ApplicationConversionService.getSharedInstance();
+		}
+	}
+
+	@MockBean
+	private DeviceRepository deviceRepository;
+
+	@MockBean
+	private DeviceTombstoneRepository deviceTombstoneRepository;
+
+	@MockBean
+	private EntityManagerFactory entityManagerFactory;
+
+	@MockBean
+	private Validator validator;
+
+	@MockBean
+	private DeviceSearchIndex deviceSearchIndex;
+
+	@MockBean
+	private DeviceIdFilter deviceIdFilter;
+
+	@MockBean
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private DeviceService deviceService;
+
+	@Autowired
+	private DeviceCache deviceCache;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@BeforeEach
+	void setUp() {
+		cacheManager.getCache(CacheConfig.DEVICES_CACHE).clear();
+	}
+
+	@Test
+	void shouldServeRepeatedLookupsFromCache() {
+		DeviceResponseDTO device = new DeviceResponseDTO(1L, "Phone", "Samsung", StateEnum.AVAILABLE, null, 0L);
+		when(deviceRepository.findDtoById(1L)).thenReturn(Optional.of(device));
+
+		deviceService.findDeviceByID(1L);
+		deviceService.findDeviceByID(1L);
+
+		verify(deviceRepository, times(1)).findDtoById(1L);
+	}
+
+	@Test
+	void shouldNotCacheARowReadBeforeAWriteThatCommittedDuringTheQuery() {
+		DeviceResponseDTO device = new DeviceResponseDTO(1L, "Phone", "Samsung", StateEnum.AVAILABLE, null, 0L);
+		when(deviceRepository.findDtoById(1L)).thenAnswer(invocation -> {
+			// The device is deleted after the query read it but before the reader caches it
+			eventPublisher.publishEvent(DeviceChangedEvent.deleted(1L));
+			return Optional.of(device);
+		}).thenReturn(Optional.empty());
+
+		assertEquals(device, deviceService.findDeviceByID(1L));
+
+		assertNull(cachedDevice(1L));
+		assertThrows(DeviceNotFoundException.class, () -> deviceService.findDeviceByID(1L));
+	}
+
+	@Test
+	void shouldRefreshCachedDeviceOnUpdate() {
+		Device device = new Device(1L, "Phone", "Samsung", StateEnum.AVAILABLE, null);
+		when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
+		when(deviceRepository.saveAndFlush(any(Device.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		when(deviceRepository.findDtoById(1L)).thenReturn(Optional.of(DeviceMapper.toDTO(device)));
+
+		deviceService.findDeviceByID(1L);
+		deviceService.updateDevice(1L, new DeviceRequestDTO("Tablet", "Samsung", StateEnum.AVAILABLE));
+
+		assertEquals("Tablet", deviceService.findDeviceByID(1L).name());
+		verify(deviceRepository, times(1)).findDtoById(1L);
+	}
+
+	@Test
+	void shouldEvictCachedDeviceOnDelete() {
+		Device device = new Device(1L, "Phone", "Samsung", StateEnum.AVAILABLE, null);
+		when(deviceRepository.deleteByIdUnlessInUse(1L)).thenReturn(1);
+		when(deviceRepository.findDtoById(1L)).thenReturn(Optional.of(DeviceMapper.toDTO(device)));
+
+		deviceService.findDeviceByID(1L);
+		deviceService.deleteDevice(1L);
+
+		assertNull(cacheManager.getCache(CacheConfig.DEVICES_CACHE).get(1L));
+	}
+
+	@Test
+	void shouldEvictDeletedDevicesOnlyAfterTheirChunkCommits() {
+		DeviceResponseDTO device = new DeviceResponseDTO(1L, "Phone", "Samsung", StateEnum.AVAILABLE, null, 0L);
+		when(deviceRepository.findDtoById(1L)).thenReturn(Optional.of(device));
+		when(deviceRepository.lockStatesByIdIn(List.of(1L)))
+				.thenReturn(List.of(new DeviceStateDTO(1L, "Samsung", StateEnum.AVAILABLE)));
+		when(deviceRepository.deleteByIdInUnlessInUse(List.of(1L))).thenReturn(1);
+		List<DeviceResponseDTO> cachedBeforeCommit = new ArrayList<>();
+		doAnswer(invocation -> {
+			inTransaction(() -> {
+				invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+				cachedBeforeCommit.add(cachedDevice(1L));
+			});
+			return null;
+		}).when(transactionTemplate).executeWithoutResult(any());
+
+		deviceService.findDeviceByID(1L);
+		deviceService.deleteDevices(new DeviceDeleteRequestDTO(List.of(1L), null, null));
+
+		assertEquals(List.of(device), cachedBeforeCommit);
+		assertNull(cachedDevice(1L));
+	}
+
+	@Test
+	void shouldRefreshCachedDeviceOnlyAfterStateTransitionCommits() {
+		DeviceResponseDTO device = new DeviceResponseDTO(1L, "Phone", "Samsung", StateEnum.AVAILABLE, null, 0L);
+		when(deviceRepository.findDtoById(1L)).thenReturn(Optional.of(device));
+		when(deviceRepository.lockStatesByIdIn(List.of(1L)))
+				.thenReturn(List.of(new DeviceStateDTO(1L, "Samsung", StateEnum.AVAILABLE)));
+		when(deviceRepository.updateStateByIdIn(eq(List.of(1L)), eq(null), eq(StateEnum.IN_USE), any())).thenReturn(1);
+		when(deviceRepository.findDtosByIdIn(List.of(1L)))
+				.thenReturn(List.of(new DeviceResponseDTO(1L, "Phone", "Samsung", StateEnum.IN_USE, null, 1L)));
+
+		deviceService.findDeviceByID(1L);
+		inTransaction(() -> {
+			deviceService.transitionStates(new StateTransitionRequestDTO(List.of(1L), null, null, StateEnum.IN_USE));
+			// Other transactions still read the old row until the write commits
+			assertEquals(StateEnum.AVAILABLE, cachedDevice(1L).state());
+		});
+
+		assertEquals(StateEnum.IN_USE, cachedDevice(1L).state());
+	}
+
+	@Test
+	void shouldNotReplaceCachedDeviceWithAnOlderCommittedUpdate() {
+		DeviceResponseDTO newer = new DeviceResponseDTO(1L, "Tablet", "Samsung", StateEnum.AVAILABLE, null, 2L);
+		cacheManager.getCache(CacheConfig.DEVICES_CACHE).put(1L, newer);
+
+		deviceCache.onDeviceChanged(DeviceChangedEvent.updated(
+				new DeviceResponseDTO(1L, "Phone", "Samsung", StateEnum.AVAILABLE, null, 1L)));
+
+		assertEquals(newer, cachedDevice(1L));
+	}
+
+	private DeviceResponseDTO cachedDevice(Long id) {
+		return cacheManager.getCache(CacheConfig.DEVICES_CACHE).get(id, DeviceResponseDTO.class);
+	}
+
+	// Stands in for the transaction manager: runs the work with synchronization active, then commits
+	private void inTransaction(Runnable work) {
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		try {
+			work.run();
+			List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+			TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+			TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+					TransactionSynchronization.STATUS_COMMITTED);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+			TransactionSynchronizationManager.setActualTransactionActive(false);
+		}
+	}
+}
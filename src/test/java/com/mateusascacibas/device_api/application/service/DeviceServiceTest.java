@@ -2,35 +2,122 @@ package com.mateusascacibas.device_api.application.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mateusascacibas.device_api.application.dto.BatchCreateResultDTO;
+import com.mateusascacibas.device_api.application.dto.BatchItemResultDTO.BatchItemStatus;
+import com.mateusascacibas.device_api.application.dto.BrandCountDTO;
+import com.mateusascacibas.device_api.application.dto.BrandStateCountDTO;
+import com.mateusascacibas.device_api.application.dto.ChangedDeviceDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceChangeToken;
+import com.mateusascacibas.device_api.application.dto.DeviceChangesDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceDeleteRequestDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceDeleteResultDTO;
+import com.mateusascacibas.device_api.application.dto.DevicePageDTO;
+import com.mateusascacibas.device_api.application.dto.DevicePatchDTO;
 import com.mateusascacibas.device_api.application.dto.DeviceRequestDTO;
 import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceStateDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceStatsDTO;
+import com.mateusascacibas.device_api.application.dto.StateCountDTO;
+import com.mateusascacibas.device_api.application.dto.StateTransitionItemDTO.TransitionStatus;
+import com.mateusascacibas.device_api.application.dto.StateTransitionRequestDTO;
+import com.mateusascacibas.device_api.application.dto.StateTransitionResultDTO;
+import com.mateusascacibas.device_api.application.event.DeviceChangedEvent;
+import com.mateusascacibas.device_api.application.exception.ChangeTokenExpiredException;
 import com.mateusascacibas.device_api.application.exception.DeviceNotFoundException;
+import com.mateusascacibas.device_api.application.exception.DeviceVersionMismatchException;
 import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
 import com.mateusascacibas.device_api.domain.model.Device;
+import com.mateusascacibas.device_api.domain.model.DeviceTombstone;
 import com.mateusascacibas.device_api.infra.repository.DeviceRepository;
+import com.mateusascacibas.device_api.infra.repository.DeviceTombstoneRepository;
+import com.mateusascacibas.device_api.infra.search.DeviceIdFilter;
+import com.mateusascacibas.device_api.infra.search.DeviceSearchIndex;
+
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 
 class DeviceServiceTest {
 
 	@Mock
 	private DeviceRepository deviceRepository;
 
+	@Mock
+	private DeviceTombstoneRepository deviceTombstoneRepository;
+
+	@Mock
+	private EntityManager entityManager;
+
+	@Spy
+	private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+	@Mock
+	private DeviceSearchIndex deviceSearchIndex;
+
+	@Mock
+	private DeviceIdFilter deviceIdFilter;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	@Mock
+	private SingleFlight singleFlight;
+
+	@Mock
+	private DeviceCache deviceCache;
+
 	@InjectMocks
 	private DeviceService deviceService;
 
 	@BeforeEach
 	void setUp() {
 		MockitoAnnotations.openMocks(this);
+		ReflectionTestUtils.setField(deviceService, "batchSize", 2);
+		ReflectionTestUtils.setField(deviceService, "changesSettleWindow", Duration.ofSeconds(5));
+		ReflectionTestUtils.setField(deviceService, "tombstoneRetention", Duration.ofDays(30));
+		when(transactionTemplate.execute(any())).thenAnswer(
+				invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		doCallRealMethod().when(transactionTemplate).executeWithoutResult(any());
+		when(singleFlight.execute(any(), any(), any()))
+				.thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
+		when(deviceCache.load(any(), any()))
+				.thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+	}
+
+	private ChangedDeviceDTO changedDto(Long id, Instant lastModified) {
+		return new ChangedDeviceDTO(id, "Device " + id, "Brand", StateEnum.AVAILABLE, null, 1L, lastModified);
 	}
 
 	private Device createDevice(String name, String brand, StateEnum state) {
@@ -41,6 +128,10 @@ class DeviceServiceTest {
 		return device;
 	}
 
+	private DeviceResponseDTO createDto(Long id, String name, String brand, StateEnum state) {
+		return new DeviceResponseDTO(id, name, brand, state, LocalDateTime.now(), 0L);
+	}
+
 	@Test
 	void shouldCreateDeviceSuccessfully() {
 		DeviceRequestDTO request = new DeviceRequestDTO("Phone", "Samsung", StateEnum.IN_USE);
@@ -53,6 +144,50 @@ class DeviceServiceTest {
 		assertNotNull(response);
 		assertEquals("Phone", response.name());
 		verify(deviceRepository, times(1)).save(any(Device.class));
+		verify(deviceIdFilter).add(saved.getId());
+	}
+
+	@Test
+	void shouldCreateValidDevicesAndRejectInvalidOnesInBatch() {
+		when(deviceRepository.save(any(Device.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		List<DeviceRequestDTO> requests = List.of(new DeviceRequestDTO("Phone", "Samsung", StateEnum.AVAILABLE),
+				new DeviceRequestDTO(" ", "Samsung", StateEnum.AVAILABLE),
+				new DeviceRequestDTO("Tablet", "Apple", StateEnum.IN_USE),
+				new DeviceRequestDTO("Laptop", "Dell", null));
+
+		BatchCreateResultDTO result = deviceService.createDevices(requests);
+
+		assertEquals(2, result.created());
+		assertEquals(2, result.rejected());
+		assertEquals(BatchItemStatus.CREATED, result.results().get(0).status());
+		assertEquals(BatchItemStatus.REJECTED, result.results().get(1).status());
+		assertEquals(List.of("name: Name cannot be blank"), result.results().get(1).errors());
+		assertEquals("Tablet", result.results().get(2).device().name());
+		assertEquals(3, result.results().get(3).index());
+		verify(deviceRepository, times(2)).save(any(Device.class));
+		verify(entityManager, times(1)).flush();
+		verify(entityManager, times(1)).clear();
+		// Both created rows are restamped as the last statement before the commit
+		verify(deviceRepository).stampLastModified(argThat(ids -> ids.size() == 2), any(Instant.class));
+	}
+
+	@Test
+	void shouldFlushEveryInsertWhenBatchSizeIsZero() {
+		ReflectionTestUtils.setField(deviceService, "batchSize", 0);
+		when(deviceRepository.save(any(Device.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		BatchCreateResultDTO result = deviceService.createDevices(List.of(
+				new DeviceRequestDTO("Phone", "Samsung", StateEnum.AVAILABLE),
+				new DeviceRequestDTO("Tablet", "Apple", StateEnum.AVAILABLE)));
+
+		assertEquals(2, result.created());
+		verify(entityManager, times(2)).flush();
+	}
+
+	@Test
+	void shouldThrowWhenBatchIsEmpty() {
+		assertThrows(IllegalArgumentException.class, () -> deviceService.createDevices(List.of()));
 	}
 
 	@Test
@@ -61,7 +196,7 @@ class DeviceServiceTest {
 		Device updated = createDevice("Tablet", "Samsung", StateEnum.AVAILABLE);
 
 		when(deviceRepository.findById(1L)).thenReturn(Optional.of(existing));
-		when(deviceRepository.save(any(Device.class))).thenReturn(updated);
+		when(deviceRepository.saveAndFlush(any(Device.class))).thenReturn(updated);
 
 		DeviceRequestDTO update = new DeviceRequestDTO("Tablet", "Samsung", StateEnum.AVAILABLE);
 		DeviceResponseDTO response = deviceService.updateDevice(1L, update);
@@ -70,6 +205,32 @@ class DeviceServiceTest {
 		assertEquals("Tablet", response.name());
 	}
 
+	@Test
+	void shouldThrowWhenExpectedVersionDoesNotMatch() {
+		Device existing = createDevice("Phone", "Samsung", StateEnum.AVAILABLE);
+		ReflectionTestUtils.setField(existing, "version", 3L);
+
+		when(deviceRepository.findById(1L)).thenReturn(Optional.of(existing));
+
+		DeviceRequestDTO update = new DeviceRequestDTO("Tablet", "Samsung", StateEnum.AVAILABLE);
+
+		assertThrows(DeviceVersionMismatchException.class, () -> deviceService.updateDevice(1L, update, 2L));
+		verify(deviceRepository, never()).saveAndFlush(any(Device.class));
+	}
+
+	@Test
+	void shouldUpdateWhenExpectedVersionMatches() {
+		Device existing = createDevice("Phone", "Samsung", StateEnum.AVAILABLE);
+		ReflectionTestUtils.setField(existing, "version", 3L);
+
+		when(deviceRepository.findById(1L)).thenReturn(Optional.of(existing));
+		when(deviceRepository.saveAndFlush(existing)).thenReturn(existing);
+
+		DeviceRequestDTO update = new DeviceRequestDTO("Tablet", "Samsung", StateEnum.AVAILABLE);
+
+		assertEquals("Tablet", deviceService.updateDevice(1L, update, 3L).name());
+	}
+
 	@Test
 	void shouldThrowWhenUpdatingNameOfInUseDevice() {
 		Device existing = createDevice("Phone", "Samsung", StateEnum.IN_USE);
@@ -83,41 +244,388 @@ class DeviceServiceTest {
 
 	@Test
 	void shouldDeleteDeviceSuccessfully() {
-		Device device = createDevice("Phone", "Samsung", StateEnum.INACTIVE);
-
-		when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
+		when(deviceRepository.deleteByIdUnlessInUse(1L)).thenReturn(1);
 
 		deviceService.deleteDevice(1L);
 
-		verify(deviceRepository, times(1)).delete(device);
+		verify(deviceRepository, never()).existsById(any());
+		verify(deviceTombstoneRepository).insert(eq(1L), any());
+		verify(eventPublisher).publishEvent(DeviceChangedEvent.deleted(1L));
 	}
 
 	@Test
 	void shouldThrowWhenDeletingInUseDevice() {
-		Device device = createDevice("Phone", "Samsung", StateEnum.IN_USE);
-
-		when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
+		when(deviceRepository.deleteByIdUnlessInUse(1L)).thenReturn(0);
+		when(deviceRepository.existsById(1L)).thenReturn(true);
 
 		assertThrows(IllegalArgumentException.class, () -> deviceService.deleteDevice(1L));
+		verify(deviceTombstoneRepository, never()).insert(any(), any());
+		verify(eventPublisher, never()).publishEvent(any());
+	}
+
+	@Test
+	void shouldThrowWhenDeletingMissingDevice() {
+		when(deviceRepository.deleteByIdUnlessInUse(1L)).thenReturn(0);
+		when(deviceRepository.existsById(1L)).thenReturn(false);
+
+		assertThrows(DeviceNotFoundException.class, () -> deviceService.deleteDevice(1L));
+	}
+
+	@Test
+	void shouldDeleteListedDevicesAndReportTheRest() {
+		List<Long> ids = List.of(1L, 2L, 3L, 1L);
+		when(deviceRepository.lockStatesByIdIn(List.of(1L, 2L, 3L))).thenReturn(List.of(
+				new DeviceStateDTO(1L, "Apple", StateEnum.INACTIVE),
+				new DeviceStateDTO(2L, "Apple", StateEnum.IN_USE)));
+		when(deviceRepository.deleteByIdInUnlessInUse(List.of(1L))).thenReturn(1);
+
+		DeviceDeleteResultDTO result = deviceService.deleteDevices(new DeviceDeleteRequestDTO(ids, null, null));
+
+		assertEquals(1, result.deleted());
+		assertEquals(2, result.rejected());
+		assertEquals(List.of(3L), result.notFound());
+		assertEquals(List.of(2L), result.inUse());
+		verify(deviceTombstoneRepository).insertForDeletableByIdIn(eq(List.of(1L)), any());
+		verify(eventPublisher).publishEvent(DeviceChangedEvent.deleted(1L));
+	}
+
+	@Test
+	void shouldDeleteDevicesMatchingFilterOneTransactionPerChunk() {
+		List<Long> firstChunk = new ArrayList<>();
+		for (long id = 1; id <= DeviceService.DELETE_CHUNK_SIZE; id++) {
+			firstChunk.add(id);
+		}
+		long last = DeviceService.DELETE_CHUNK_SIZE;
+		when(deviceRepository.findIdsForDeletion(eq("Nokia"), eq(StateEnum.INACTIVE), eq(0L), any(Limit.class)))
+				.thenReturn(firstChunk);
+		when(deviceRepository.findIdsForDeletion(eq("Nokia"), eq(StateEnum.INACTIVE), eq(last), any(Limit.class)))
+				.thenReturn(List.of(last + 1));
+		when(deviceRepository.lockStatesByIdIn(any())).thenAnswer(invocation -> {
+			List<Long> chunk = invocation.getArgument(0);
+			return chunk.stream().map(id -> new DeviceStateDTO(id, "Nokia", StateEnum.INACTIVE)).toList();
+		});
+		when(deviceRepository.deleteByIdInUnlessInUse(any()))
+				.thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+		DeviceDeleteResultDTO result = deviceService.deleteDevices(
+				new DeviceDeleteRequestDTO(null, "Nokia", StateEnum.INACTIVE));
+
+		assertEquals(DeviceService.DELETE_CHUNK_SIZE + 1, result.deleted());
+		assertEquals(0, result.rejected());
+		verify(transactionTemplate, times(2)).execute(any());
+	}
+
+	@Test
+	void shouldThrowWhenBulkDeleteTargetsInUseDevices() {
+		assertThrows(IllegalArgumentException.class,
+				() -> deviceService.deleteDevices(new DeviceDeleteRequestDTO(null, null, StateEnum.IN_USE)));
+		assertThrows(IllegalArgumentException.class,
+				() -> deviceService.deleteDevices(new DeviceDeleteRequestDTO(List.of(), " ", null)));
+		verify(deviceRepository, never()).findIdsForDeletion(any(), any(), any(), any());
 	}
 
 	@Test
 	void shouldReturnAllDevices() {
-		Device device = createDevice("Phone", "Samsung", StateEnum.IN_USE);
+		DeviceResponseDTO device = createDto(1L, "Phone", "Samsung", StateEnum.IN_USE);
+
+		when(deviceRepository.findDtoPage(0L, Limit.of(51))).thenReturn(List.of(device));
+
+		DevicePageDTO result = deviceService.findAllDevices(null, 50);
+
+		assertEquals(1, result.content().size());
+		assertEquals("Phone", result.content().get(0).name());
+		assertNull(result.nextCursor());
+	}
+
+	@Test
+	void shouldReturnNextCursorWhenMoreDevicesExist() {
+		DeviceResponseDTO device1 = createDto(11L, "Device A", "Brand X", StateEnum.AVAILABLE);
+		DeviceResponseDTO device2 = createDto(12L, "Device B", "Brand X", StateEnum.AVAILABLE);
+		DeviceResponseDTO device3 = createDto(13L, "Device C", "Brand X", StateEnum.AVAILABLE);
+
+		when(deviceRepository.findDtoPage(10L, Limit.of(3)))
+				.thenReturn(List.of(device1, device2, device3));
+
+		DevicePageDTO result = deviceService.findAllDevices(10L, 2);
+
+		assertEquals(2, result.content().size());
+		assertEquals(12L, result.nextCursor());
+	}
+
+	@Test
+	void shouldThrowWhenLimitIsOutOfRange() {
+		assertThrows(IllegalArgumentException.class, () -> deviceService.findAllDevices(null, 0));
+		assertThrows(IllegalArgumentException.class,
+				() -> deviceService.findAllDevices(null, DeviceService.MAX_PAGE_SIZE + 1));
+	}
+
+	@Test
+	void shouldComputeStatisticsFromGroupedCounts() {
+		when(deviceRepository.countGroupedByState()).thenReturn(
+				List.of(new StateCountDTO(StateEnum.AVAILABLE, 3L), new StateCountDTO(StateEnum.IN_USE, 2L)));
+		when(deviceRepository.countGroupedByBrand(Limit.of(1))).thenReturn(List.of(new BrandCountDTO("Apple", 4L)));
+		when(deviceRepository.countGroupedByBrandAndState(List.of("Apple")))
+				.thenReturn(List.of(new BrandStateCountDTO("Apple", StateEnum.AVAILABLE, 3L),
+						new BrandStateCountDTO("Apple", StateEnum.IN_USE, 1L)));
+
+		DeviceStatsDTO stats = deviceService.getStatistics(1);
+
+		assertEquals(5L, stats.total());
+		assertEquals(StateEnum.values().length, stats.byState().size());
+		assertEquals(new StateCountDTO(StateEnum.INACTIVE, 0L), stats.byState().get(2));
+		assertEquals("Apple", stats.byBrand().get(0).brand());
+		assertEquals(2, stats.byBrandAndState().size());
+	}
+
+	@Test
+	void shouldSkipBrandAndStateQueryWhenNoDevicesExist() {
+		when(deviceRepository.countGroupedByState()).thenReturn(List.of());
+		when(deviceRepository.countGroupedByBrand(Limit.of(10))).thenReturn(List.of());
+
+		DeviceStatsDTO stats = deviceService.getStatistics(10);
+
+		assertEquals(0L, stats.total());
+		assertTrue(stats.byBrandAndState().isEmpty());
+		verify(deviceRepository, never()).countGroupedByBrandAndState(any());
+	}
+
+	@Test
+	void shouldThrowWhenStatisticsTopIsOutOfRange() {
+		assertThrows(IllegalArgumentException.class, () -> deviceService.getStatistics(0));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void shouldWriteStateReportsOneStatementPerDistinctReport() {
+		DevicePatchDTO inUse = new DevicePatchDTO(null, null, StateEnum.IN_USE);
+		DevicePatchDTO inactive = new DevicePatchDTO(null, null, StateEnum.INACTIVE);
+		DeviceResponseDTO written = new DeviceResponseDTO(1L, "Phone", "Apple", StateEnum.IN_USE, null, 3L);
+		when(deviceRepository.patchDtosByIdIn(any(), eq(inUse))).thenReturn(List.of(written));
+		when(deviceRepository.patchDtosByIdIn(List.of(3L), inactive)).thenReturn(List.of());
+
+		int count = deviceService.applyStateReports(Map.of(1L, inUse, 2L, inUse, 3L, inactive));
+
+		assertEquals(1, count);
+		ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+		verify(deviceRepository).patchDtosByIdIn(ids.capture(), eq(inUse));
+		assertEquals(Set.of(1L, 2L), Set.copyOf(ids.getValue()));
+		verify(eventPublisher).publishEvent(DeviceChangedEvent.updated(written));
+	}
+
+	@Test
+	void shouldMergeChangesAndDeletionsInTokenOrder() {
+		Instant base = Device.now().minus(Duration.ofDays(1));
+		DeviceChangeToken since = new DeviceChangeToken(base, 1L);
+		when(deviceRepository.findChangesAfter(eq(base), eq(1L), any(), eq(Limit.of(4)))).thenReturn(List.of(
+				changedDto(3L, base.plusSeconds(1)), changedDto(2L, base.plusSeconds(3)),
+				changedDto(7L, base.plusSeconds(4))));
+		when(deviceTombstoneRepository.findAfter(eq(base), eq(1L), any(), eq(Limit.of(4)))).thenReturn(List.of(
+				new DeviceTombstone(5L, base.plusSeconds(2)), new DeviceTombstone(6L, base.plusSeconds(5))));
+
+		DeviceChangesDTO changes = deviceService.findChanges(since.encode(), 3);
+
+		assertEquals(List.of(3L, 2L), changes.changed().stream().map(ChangedDeviceDTO::id).toList());
+		assertEquals(List.of(5L), changes.deleted());
+		assertTrue(changes.hasMore());
+		assertEquals(new DeviceChangeToken(base.plusSeconds(3), 2L), DeviceChangeToken.parse(changes.nextToken()));
+	}
+
+	@Test
+	void shouldMoveTokenToSettleHorizonWhenCaughtUp() {
+		when(deviceRepository.findChangesAfter(any(), any(), any(), any())).thenReturn(List.of());
+		when(deviceTombstoneRepository.findAfter(any(), any(), any(), any())).thenReturn(List.of());
+
+		Instant before = Instant.now();
+		DeviceChangesDTO changes = deviceService.findChanges(null, 100);
+
+		DeviceChangeToken next = DeviceChangeToken.parse(changes.nextToken());
+		assertFalse(changes.hasMore());
+		assertEquals(Long.MAX_VALUE, next.id());
+		assertFalse(next.time().isAfter(Instant.now().minusSeconds(5)));
+		assertTrue(next.time().isAfter(before.minusSeconds(6)));
+		verify(deviceRepository).findChangesAfter(eq(Instant.EPOCH), eq(0L), eq(next.time()), eq(Limit.of(101)));
+	}
+
+	@Test
+	void shouldRejectChangeTokensOlderThanTombstoneRetention() {
+		String expired = new DeviceChangeToken(Instant.now().minus(Duration.ofDays(31)), 1L).encode();
+
+		assertThrows(ChangeTokenExpiredException.class, () -> deviceService.findChanges(expired, 100));
+		assertThrows(IllegalArgumentException.class, () -> deviceService.findChanges("not-a-token", 100));
+		verify(deviceRepository, never()).findChangesAfter(any(), any(), any(), any());
+	}
+
+	@Test
+	void shouldPatchDeviceWithSingleStatement() {
+		DevicePatchDTO patch = new DevicePatchDTO(null, null, StateEnum.INACTIVE);
+		DeviceResponseDTO patched = createDto(1L, "Phone", "Apple", StateEnum.INACTIVE);
+		when(deviceRepository.patchDtoById(1L, patch, 2L)).thenReturn(Optional.of(patched));
+
+		assertEquals(patched, deviceService.patchDevice(1L, patch, 2L));
+		verify(deviceRepository, never()).findDtoById(any());
+		verify(eventPublisher).publishEvent(DeviceChangedEvent.updated(patched));
+	}
+
+	@Test
+	void shouldReturnCurrentDeviceWhenPatchChangesNothing() {
+		DevicePatchDTO patch = new DevicePatchDTO("Phone", "Apple", null);
+		DeviceResponseDTO current = createDto(1L, "Phone", "Apple", StateEnum.IN_USE);
+		when(deviceRepository.patchDtoById(1L, patch, null)).thenReturn(Optional.empty());
+		when(deviceRepository.findDtoById(1L)).thenReturn(Optional.of(current));
+
+		assertEquals(current, deviceService.patchDevice(1L, patch, null));
+		verify(eventPublisher, never()).publishEvent(any());
+	}
+
+	@Test
+	void shouldThrowWhenPatchedDeviceNotFound() {
+		DevicePatchDTO patch = new DevicePatchDTO("Phone", null, null);
+		when(deviceRepository.patchDtoById(1L, patch, null)).thenReturn(Optional.empty());
+		when(deviceRepository.findDtoById(1L)).thenReturn(Optional.empty());
+
+		assertThrows(DeviceNotFoundException.class, () -> deviceService.patchDevice(1L, patch, null));
+	}
+
+	@Test
+	void shouldThrowWhenPatchChangesNameOfInUseDevice() {
+		DevicePatchDTO patch = new DevicePatchDTO("Tablet", null, StateEnum.AVAILABLE);
+		when(deviceRepository.patchDtoById(1L, patch, null)).thenReturn(Optional.empty());
+		when(deviceRepository.findDtoById(1L)).thenReturn(Optional.of(createDto(1L, "Phone", "Apple", StateEnum.IN_USE)));
+
+		IllegalStateException ex = assertThrows(IllegalStateException.class,
+				() -> deviceService.patchDevice(1L, patch, null));
+		assertEquals("Cannot update name or brand when device is IN_USE", ex.getMessage());
+	}
+
+	@Test
+	void shouldThrowWhenPatchVersionDoesNotMatch() {
+		DevicePatchDTO patch = new DevicePatchDTO(null, null, StateEnum.INACTIVE);
+		when(deviceRepository.patchDtoById(1L, patch, 1L)).thenReturn(Optional.empty());
+		when(deviceRepository.findDtoById(1L)).thenReturn(Optional.of(createDto(1L, "Phone", "Apple", StateEnum.AVAILABLE)));
+
+		assertThrows(DeviceVersionMismatchException.class, () -> deviceService.patchDevice(1L, patch, 1L));
+	}
+
+	@Test
+	void shouldThrowWhenDeviceChangesBetweenPatchAndRead() {
+		DevicePatchDTO patch = new DevicePatchDTO(null, null, StateEnum.INACTIVE);
+		when(deviceRepository.patchDtoById(1L, patch, null)).thenReturn(Optional.empty());
+		when(deviceRepository.findDtoById(1L)).thenReturn(Optional.of(createDto(1L, "Phone", "Apple", StateEnum.AVAILABLE)));
 
-		when(deviceRepository.findAll()).thenReturn(List.of(device));
+		assertThrows(OptimisticLockingFailureException.class, () -> deviceService.patchDevice(1L, patch, null));
+	}
+
+	@Test
+	void shouldTransitionListedDevicesAndReportEachOutcome() {
+		List<Long> ids = List.of(1L, 2L, 3L, 4L, 5L);
+		when(deviceRepository.lockStatesByIdIn(ids)).thenReturn(List.of(
+				new DeviceStateDTO(1L, "Apple", StateEnum.AVAILABLE),
+				new DeviceStateDTO(2L, "Apple", StateEnum.IN_USE),
+				new DeviceStateDTO(3L, "Apple", StateEnum.INACTIVE),
+				new DeviceStateDTO(5L, "Samsung", StateEnum.AVAILABLE)));
+		when(deviceRepository.updateStateByIdIn(eq(List.of(1L, 5L)), eq(StateEnum.AVAILABLE), eq(StateEnum.IN_USE), any()))
+				.thenReturn(2);
+		when(deviceRepository.findDtosByIdIn(List.of(1L, 5L))).thenReturn(List.of(
+				createDto(1L, "Phone", "Apple", StateEnum.IN_USE), createDto(5L, "Tab", "Samsung", StateEnum.IN_USE)));
+
+		StateTransitionResultDTO result = deviceService.transitionStates(
+				new StateTransitionRequestDTO(ids, null, StateEnum.AVAILABLE, StateEnum.IN_USE));
+
+		assertEquals(2, result.updated());
+		assertEquals(1, result.unchanged());
+		assertEquals(2, result.rejected());
+		assertEquals(List.of(TransitionStatus.UPDATED, TransitionStatus.UNCHANGED, TransitionStatus.PRECONDITION_FAILED,
+				TransitionStatus.NOT_FOUND, TransitionStatus.UPDATED),
+				result.results().stream().map(item -> item.status()).toList());
+		assertEquals(StateEnum.IN_USE, result.results().get(4).device().state());
+		verify(eventPublisher, times(2)).publishEvent(any(DeviceChangedEvent.class));
+	}
+
+	@Test
+	void shouldTransitionDevicesMatchingFilterInChunks() {
+		List<Long> ids = new ArrayList<>();
+		for (long id = 1; id <= DeviceService.TRANSITION_CHUNK_SIZE + 1; id++) {
+			ids.add(id);
+		}
+		when(deviceRepository.findIdsForStateTransition(eq("Apple"), eq(null), eq(StateEnum.INACTIVE), any(Limit.class)))
+				.thenReturn(ids);
+		when(deviceRepository.lockStatesByIdIn(any())).thenAnswer(invocation -> {
+			List<Long> chunk = invocation.getArgument(0);
+			return chunk.stream().map(id -> new DeviceStateDTO(id, "Apple", StateEnum.AVAILABLE)).toList();
+		});
+		when(deviceRepository.updateStateByIdIn(any(), eq(null), eq(StateEnum.INACTIVE), any()))
+				.thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+		StateTransitionResultDTO result = deviceService.transitionStates(
+				new StateTransitionRequestDTO(null, "Apple", null, StateEnum.INACTIVE));
+
+		assertEquals(ids.size(), result.updated());
+		verify(deviceRepository, times(2)).updateStateByIdIn(any(), eq(null), eq(StateEnum.INACTIVE), any());
+	}
+
+	@Test
+	void shouldThrowWhenTransitionHasNoIdsOrFilter() {
+		assertThrows(IllegalArgumentException.class, () -> deviceService.transitionStates(
+				new StateTransitionRequestDTO(List.of(), " ", null, StateEnum.INACTIVE)));
+		verifyNoInteractions(deviceRepository);
+	}
+
+	@Test
+	void shouldPublishCreatedEvent() {
+		Device saved = new Device(7L, "Phone", "Samsung", StateEnum.AVAILABLE, LocalDateTime.now());
+		when(deviceRepository.save(any(Device.class))).thenReturn(saved);
+
+		DeviceResponseDTO response = deviceService.createDevice(new DeviceRequestDTO("Phone", "Samsung", StateEnum.AVAILABLE));
+
+		verify(eventPublisher).publishEvent(DeviceChangedEvent.created(response));
+	}
+
+	@Test
+	void shouldReturnSearchResultsInIndexOrder() {
+		DeviceResponseDTO first = createDto(3L, "Galaxy Tab", "Samsung", StateEnum.AVAILABLE);
+		DeviceResponseDTO second = createDto(1L, "Galaxy S24", "Samsung", StateEnum.IN_USE);
 
-		List<DeviceResponseDTO> result = deviceService.findAllDevices();
+		when(deviceSearchIndex.search("gala", 10)).thenReturn(List.of(3L, 9L, 1L));
+		when(deviceRepository.findDtosByIdIn(List.of(3L, 9L, 1L))).thenReturn(List.of(second, first));
 
-		assertEquals(1, result.size());
-		assertEquals("Phone", result.get(0).name());
+		List<DeviceResponseDTO> result = deviceService.searchDevices("gala", 10);
+
+		assertEquals(List.of(first, second), result);
+	}
+
+	@Test
+	void shouldNotQueryDatabaseWhenSearchHasNoMatches() {
+		when(deviceSearchIndex.search("zzz", 20)).thenReturn(List.of());
+
+		assertTrue(deviceService.searchDevices("zzz", 20).isEmpty());
+		verifyNoInteractions(deviceRepository);
+	}
+
+	@Test
+	void shouldThrowWhenSearchQueryIsBlank() {
+		assertThrows(IllegalArgumentException.class, () -> deviceService.searchDevices(" ", 20));
+		assertThrows(IllegalArgumentException.class, () -> deviceService.searchDevices("phone", 0));
+	}
+
+	@Test
+	void shouldExportDevicesFromProjectionStream() {
+		DeviceResponseDTO device1 = createDto(1L, "Device A", "Brand X", StateEnum.AVAILABLE);
+		DeviceResponseDTO device2 = createDto(2L, "Device B", "Brand X", StateEnum.INACTIVE);
+
+		when(deviceRepository.streamDtosByBrand("Brand X")).thenReturn(Stream.of(device1, device2));
+
+		List<DeviceResponseDTO> exported = new ArrayList<>();
+		deviceService.exportDevices("Brand X", null, exported::add);
+
+		assertEquals(List.of(device1, device2), exported);
+		verifyNoInteractions(entityManager);
 	}
 
 	@Test
 	void shouldReturnDeviceById() {
-		Device device = createDevice("Phone", "Samsung", StateEnum.IN_USE);
+		DeviceResponseDTO device = createDto(1L, "Phone", "Samsung", StateEnum.IN_USE);
 
-		when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
+		when(deviceRepository.findDtoById(1L)).thenReturn(Optional.of(device));
 
 		DeviceResponseDTO result = deviceService.findDeviceByID(1L);
 
@@ -127,40 +635,55 @@ class DeviceServiceTest {
 	@Test
 	void shouldReturnDevicesByState() {
 		StateEnum state = StateEnum.IN_USE;
-		Device device1 = createDevice("Device A", "Brand X", state);
-		Device device2 = createDevice("Device B", "Brand Y", state);
+		DeviceResponseDTO device1 = createDto(1L, "Device A", "Brand X", state);
+		DeviceResponseDTO device2 = createDto(2L, "Device B", "Brand Y", state);
 
-		when(deviceRepository.findByState(state)).thenReturn(List.of(device1, device2));
+		when(deviceRepository.findDtoPageByState(state, 0L, Limit.of(51)))
+				.thenReturn(List.of(device1, device2));
 
-		List<DeviceResponseDTO> result = deviceService.findDevicesByState(state);
+		DevicePageDTO result = deviceService.findDevicesByState(state, null, 50);
 
-		assertEquals(2, result.size());
-		assertEquals("Device A", result.get(0).name());
-		assertEquals("Device B", result.get(1).name());
+		assertEquals(2, result.content().size());
+		assertEquals("Device A", result.content().get(0).name());
+		assertEquals("Device B", result.content().get(1).name());
 	}
 
 	@Test
 	void shouldReturnDevicesByBrand() {
 		String brand = "Test";
-		Device device1 = createDevice("Device A", brand, StateEnum.IN_USE);
-		Device device2 = createDevice("Device B", brand, StateEnum.IN_USE);
+		DeviceResponseDTO device1 = createDto(1L, "Device A", brand, StateEnum.IN_USE);
+		DeviceResponseDTO device2 = createDto(2L, "Device B", brand, StateEnum.IN_USE);
 
-		when(deviceRepository.findByBrand(brand)).thenReturn(List.of(device1, device2));
+		when(deviceRepository.findDtoPageByBrand(brand, 0L, Limit.of(51)))
+				.thenReturn(List.of(device1, device2));
 
-		List<DeviceResponseDTO> result = deviceService.findDevicesByBrand(brand);
+		DevicePageDTO result = deviceService.findDevicesByBrand(brand, null, 50);
 
-		assertEquals(2, result.size());
-		assertEquals("Device A", result.get(0).name());
-		assertEquals("Device B", result.get(1).name());
+		assertEquals(2, result.content().size());
+		assertEquals("Device A", result.content().get(0).name());
+		assertEquals("Device B", result.content().get(1).name());
 	}
 
 	@Test
 	void shouldThrowWhenDeviceNotFound() {
-		when(deviceRepository.findById(1L)).thenReturn(Optional.empty());
+		when(deviceRepository.findDtoById(1L)).thenReturn(Optional.empty());
 
 		assertThrows(DeviceNotFoundException.class, () -> deviceService.findDeviceByID(1L));
 	}
 
+	@Test
+	void shouldRejectIdsRuledOutByFilterWithoutQuerying() {
+		when(deviceIdFilter.definitelyAbsent(404L)).thenReturn(true);
+
+		DeviceNotFoundException ex = assertThrows(DeviceNotFoundException.class, () -> deviceService.findDeviceByID(404L));
+		assertThrows(DeviceNotFoundException.class,
+				() -> deviceService.patchDevice(404L, new DevicePatchDTO(null, null, StateEnum.INACTIVE), null));
+		assertThrows(DeviceNotFoundException.class, () -> deviceService.deleteDevice(404L));
+
+		verifyNoInteractions(deviceRepository);
+		assertEquals(0, ex.getStackTrace().length);
+	}
+
 	@Test
 	void shouldThrowWhenNameIsBlank() {
 		Device existing = createDevice("Phone", "Samsung", StateEnum.AVAILABLE);
@@ -196,7 +719,7 @@ class DeviceServiceTest {
 		Device existing = createDevice("Phone", "Samsung", StateEnum.IN_USE);
 
 		when(deviceRepository.findById(1L)).thenReturn(Optional.of(existing));
-		when(deviceRepository.save(any(Device.class))).thenReturn(existing);
+		when(deviceRepository.saveAndFlush(any(Device.class))).thenReturn(existing);
 
 		DeviceRequestDTO update = new DeviceRequestDTO(null, null, StateEnum.IN_USE);
 
@@ -235,24 +758,26 @@ class DeviceServiceTest {
 	}
 
 	@Test
-	void shouldReturnAccurateDtoFromEntity() {
-		Device device = createDevice("Phone", "Samsung", StateEnum.IN_USE);
-		when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
-
+	void shouldReturnAccurateDtoFromProjection() {
 		DeviceResponseDTO expected = new DeviceResponseDTO(1L, "Phone", "Samsung", StateEnum.IN_USE,
-				device.getCreationTime());
+				LocalDateTime.now(), 0L);
+		when(deviceRepository.findDtoById(1L)).thenReturn(Optional.of(expected));
+
 		DeviceResponseDTO actual = deviceService.findDeviceByID(1L);
 
+		assertEquals(expected.id(), actual.id());
 		assertEquals(expected.name(), actual.name());
 		assertEquals(expected.brand(), actual.brand());
 		assertEquals(expected.state(), actual.state());
+		assertEquals(expected.creationTime(), actual.creationTime());
+		verify(deviceRepository, never()).findById(any());
 	}
 	
 	@Test
 	void shouldIgnoreStateWhenNullInUpdate() {
 	    Device existing = createDevice("Phone", "Samsung", StateEnum.AVAILABLE);
 	    when(deviceRepository.findById(1L)).thenReturn(Optional.of(existing));
-	    when(deviceRepository.save(any(Device.class))).thenReturn(existing);
+	    when(deviceRepository.saveAndFlush(any(Device.class))).thenReturn(existing);
 
 	    DeviceRequestDTO update = new DeviceRequestDTO("Phone", "Samsung", null); // state null
 
@@ -0,0 +1,191 @@
+package com.mateusascacibas.device_api.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mateusascacibas.device_api.application.dto.DevicePatchDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceStateReportDTO;
+import com.mateusascacibas.device_api.application.exception.StateReportQueueFullException;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DeviceStateReportQueueTest {
+
+	@Mock
+	private DeviceService deviceService;
+
+	@InjectMocks
+	private DeviceStateReportQueue queue;
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+		ReflectionTestUtils.setField(queue, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(queue, "capacity", 2);
+		ReflectionTestUtils.setField(queue, "flushBatchSize", 1000);
+		ReflectionTestUtils.setField(queue, "flushInterval", Duration.ofSeconds(1));
+		ReflectionTestUtils.setField(queue, "maxAttempts", 2);
+		queue.init();
+	}
+
+	@Test
+	void shouldCoalesceReportsPerDeviceBeforeFlushing() {
+		queue.submit(List.of(report(1L, "Phone", StateEnum.AVAILABLE), report(2L, null, StateEnum.INACTIVE),
+				report(1L, null, StateEnum.IN_USE)));
+		when(deviceService.applyStateReports(any())).thenReturn(1);
+
+		queue.flush();
+
+		verify(deviceService).applyStateReports(Map.of(1L, new DevicePatchDTO("Phone", null, StateEnum.IN_USE), 2L,
+				new DevicePatchDTO(null, null, StateEnum.INACTIVE)));
+		assertEquals(0, queue.pendingCount());
+		assertEquals(3, meterRegistry.counter("device.state_reports.received").count());
+		assertEquals(1, meterRegistry.counter("device.state_reports.coalesced").count());
+		assertEquals(2, meterRegistry.counter("device.state_reports.flushed").count());
+		assertEquals(1, meterRegistry.counter("device.state_reports.written").count());
+	}
+
+	@Test
+	void shouldRejectNewDevicesWhenFullButKeepCoalescingPendingOnes() {
+		queue.submit(List.of(report(1L, null, StateEnum.AVAILABLE), report(2L, null, StateEnum.AVAILABLE)));
+
+		StateReportQueueFullException ex = assertThrows(StateReportQueueFullException.class,
+				() -> queue.submit(List.of(report(2L, null, StateEnum.IN_USE), report(3L, null, StateEnum.IN_USE))));
+
+		assertEquals(Duration.ofSeconds(1), ex.getRetryAfter());
+		assertEquals(2, queue.pendingCount());
+		assertEquals(1, meterRegistry.counter("device.state_reports.rejected").count());
+		queue.flush();
+		verify(deviceService).applyStateReports(Map.of(1L, new DevicePatchDTO(null, null, StateEnum.AVAILABLE), 2L,
+				new DevicePatchDTO(null, null, StateEnum.IN_USE)));
+	}
+
+	@Test
+	void shouldRequeueReportsOfFailedFlushBehindNewerOnes() {
+		queue.submit(List.of(report(1L, "Phone", StateEnum.AVAILABLE)));
+		when(deviceService.applyStateReports(any())).thenAnswer(invocation -> {
+			queue.submit(List.of(report(1L, null, StateEnum.INACTIVE)));
+			throw new QueryTimeoutException("timeout");
+		});
+
+		queue.flush();
+
+		assertEquals(1, queue.pendingCount());
+		doReturn(1).when(deviceService).applyStateReports(any());
+		queue.flush();
+		verify(deviceService).applyStateReports(Map.of(1L, new DevicePatchDTO("Phone", null, StateEnum.INACTIVE)));
+	}
+
+	@Test
+	void shouldRetryFailedChunkOneByOneAndDropReportThatKeepsFailing() {
+		queue.submit(List.of(report(1L, "Phone", null), report(2L, null, StateEnum.INACTIVE)));
+		when(deviceService.applyStateReports(any())).thenAnswer(invocation -> {
+			if (invocation.<Map<Long, DevicePatchDTO>>getArgument(0).containsKey(1L)) {
+				throw new DataIntegrityViolationException("check constraint");
+			}
+			return 1;
+		});
+
+		queue.flush();
+
+		verify(deviceService).applyStateReports(Map.of(2L, new DevicePatchDTO(null, null, StateEnum.INACTIVE)));
+		assertEquals(1, queue.pendingCount());
+		queue.flush();
+		assertEquals(0, queue.pendingCount());
+		assertEquals(1, meterRegistry.counter("device.state_reports.dropped").count());
+		assertEquals(1, meterRegistry.counter("device.state_reports.flushed").count());
+		queue.flush();
+		verify(deviceService, times(4)).applyStateReports(any());
+	}
+
+	@Test
+	void shouldStopFlushingAndKeepReportsWhenConsecutiveDevicesFail() {
+		queue.submit(List.of(report(1L, null, StateEnum.IN_USE), report(2L, null, StateEnum.INACTIVE)));
+		when(deviceService.applyStateReports(any())).thenThrow(new QueryTimeoutException("timeout"));
+
+		assertThrows(QueryTimeoutException.class, () -> queue.flush());
+
+		assertEquals(2, queue.pendingCount());
+		assertEquals(0, meterRegistry.counter("device.state_reports.dropped").count());
+	}
+
+	@Test
+	void shouldFlushPendingReportsOnShutdownAndRefuseNewOnes() {
+		queue.submit(List.of(report(1L, null, StateEnum.IN_USE)));
+
+		queue.shutdown();
+
+		verify(deviceService).applyStateReports(Map.of(1L, new DevicePatchDTO(null, null, StateEnum.IN_USE)));
+		assertThrows(StateReportQueueFullException.class, () -> queue.submit(List.of(report(4L, null, StateEnum.IN_USE))));
+	}
+
+	@Test
+	void shouldRetryOnShutdownWhenAFlushFails() {
+		queue.submit(List.of(report(1L, null, StateEnum.IN_USE)));
+		when(deviceService.applyStateReports(any())).thenThrow(new QueryTimeoutException("timeout")).thenReturn(1);
+
+		queue.shutdown();
+
+		verify(deviceService, times(2)).applyStateReports(Map.of(1L, new DevicePatchDTO(null, null, StateEnum.IN_USE)));
+		assertEquals(0, queue.pendingCount());
+		assertEquals(1, meterRegistry.counter("device.state_reports.flushed").count());
+		assertEquals(0, meterRegistry.counter("device.state_reports.dropped").count());
+	}
+
+	@Test
+	void shouldDropAndCountReportsStillPendingWhenTheDatabaseKeepsRefusingShutdownFlushes() {
+		ReflectionTestUtils.setField(queue, "capacity", 3);
+		queue.submit(List.of(report(1L, null, StateEnum.IN_USE), report(2L, null, StateEnum.INACTIVE),
+				report(3L, null, StateEnum.AVAILABLE)));
+		when(deviceService.applyStateReports(any())).thenThrow(new QueryTimeoutException("timeout"));
+
+		queue.shutdown();
+
+		// Two refused passes (max-attempts), each trying the chunk and then two devices on their own
+		verify(deviceService, times(6)).applyStateReports(any());
+		assertEquals(0, queue.pendingCount());
+		assertEquals(3, meterRegistry.counter("device.state_reports.dropped").count());
+		assertEquals(0, meterRegistry.counter("device.state_reports.flushed").count());
+	}
+
+	@Test
+	void shouldRejectInvalidReportsBeforeQueueingAny() {
+		assertThrows(IllegalArgumentException.class, () -> queue.submit(List.of()));
+		assertThrows(IllegalArgumentException.class,
+				() -> queue.submit(List.of(report(1L, null, StateEnum.IN_USE), report(null, null, StateEnum.IN_USE))));
+		assertThrows(IllegalArgumentException.class, () -> queue.submit(List.of(report(1L, null, null))));
+		assertThrows(IllegalArgumentException.class, () -> queue.submit(List.of(report(1L, " ", null))));
+		assertThrows(IllegalArgumentException.class, () -> queue.submit(List.of(report(1L, "x".repeat(256), null))));
+
+		assertEquals(0, queue.pendingCount());
+		queue.flush();
+		verify(deviceService, never()).applyStateReports(any());
+	}
+
+	private DeviceStateReportDTO report(Long id, String name, StateEnum state) {
+		return new DeviceStateReportDTO(id, name, null, state);
+	}
+}
@@ -0,0 +1,204 @@
+package com.mateusascacibas.device_api.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import com.mateusascacibas.device_api.application.dto.DeviceRequestDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.application.event.DeviceChangedEvent;
+import com.mateusascacibas.device_api.application.exception.DeviceNotFoundException;
+import com.mateusascacibas.device_api.application.exception.DeviceVersionMismatchException;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+import com.mateusascacibas.device_api.infra.repository.ReactiveDeviceRepository;
+import com.mateusascacibas.device_api.infra.search.DeviceIdFilter;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class ReactiveDeviceServiceTest {
+
+	@Mock
+	private ReactiveDeviceRepository deviceRepository;
+
+	@Mock
+	private TransactionalOperator transactionalOperator;
+
+	@Mock
+	private DeviceIdFilter deviceIdFilter;
+
+	@Mock
+	private DeviceCache deviceCache;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
+	@InjectMocks
+	private ReactiveDeviceService reactiveDeviceService;
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+		when(transactionalOperator.transactional(any(Mono.class)))
+				.thenAnswer(invocation -> invocation.getArgument(0));
+	}
+
+	private static DeviceResponseDTO device(Long id, StateEnum state, Long version) {
+		return new DeviceResponseDTO(id, "Phone", "Apple", state, LocalDateTime.now(), version);
+	}
+
+	@Test
+	void shouldAddTheIdToTheFilterBeforeInsertingAndPublishTheCreatedDevice() {
+		DeviceRequestDTO request = new DeviceRequestDTO("Phone", "Apple", StateEnum.AVAILABLE);
+		DeviceResponseDTO created = device(51L, StateEnum.AVAILABLE, 0L);
+		when(deviceRepository.nextId()).thenReturn(Mono.just(51L));
+		when(deviceRepository.insert(51L, "Phone", "Apple", StateEnum.AVAILABLE)).thenAnswer(invocation -> {
+			verify(deviceIdFilter).add(51L);
+			return Mono.just(created);
+		});
+
+		StepVerifier.create(reactiveDeviceService.createDevice(request)).expectNext(created).verifyComplete();
+
+		verify(eventPublisher).publishEvent(DeviceChangedEvent.created(created));
+	}
+
+	@Test
+	void shouldServeCachedDevicesWithoutAQuery() {
+		DeviceResponseDTO cached = device(1L, StateEnum.AVAILABLE, 3L);
+		when(deviceCache.get(1L)).thenReturn(cached);
+
+		StepVerifier.create(reactiveDeviceService.findDeviceByID(1L)).expectNext(cached).verifyComplete();
+
+		verify(deviceRepository, never()).findDtoById(anyLong());
+	}
+
+	@Test
+	void shouldCacheALoadedDeviceUnderTheEpochItsReadStartedIn() {
+		DeviceResponseDTO loaded = device(1L, StateEnum.AVAILABLE, 3L);
+		when(deviceCache.readStarted()).thenReturn(7L);
+		when(deviceRepository.findDtoById(1L)).thenReturn(Mono.just(loaded));
+
+		StepVerifier.create(reactiveDeviceService.findDeviceByID(1L)).expectNext(loaded).verifyComplete();
+
+		verify(deviceCache).putIfUnchanged(1L, loaded, 7L);
+	}
+
+	@Test
+	void shouldAnswerNotFoundWithoutAQueryWhenTheFilterRulesTheIdOut() {
+		when(deviceIdFilter.definitelyAbsent(99L)).thenReturn(true);
+
+		StepVerifier.create(reactiveDeviceService.findDeviceByID(99L)).verifyError(DeviceNotFoundException.class);
+
+		verify(deviceRepository, never()).findDtoById(anyLong());
+	}
+
+	@Test
+	void shouldBuildPagesFromOneExtraRow() {
+		List<DeviceResponseDTO> rows = List.of(device(1L, StateEnum.AVAILABLE, 0L), device(2L, StateEnum.AVAILABLE, 0L),
+				device(3L, StateEnum.AVAILABLE, 0L));
+		when(deviceRepository.findDtoPage(0L, 3)).thenReturn(Flux.fromIterable(rows));
+
+		StepVerifier.create(reactiveDeviceService.findAllDevices(null, 2)).assertNext(page -> {
+			assertEquals(2, page.content().size());
+			assertEquals(2L, page.nextCursor());
+		}).verifyComplete();
+	}
+
+	@Test
+	void shouldRejectPageSizesOutsideTheLimit() {
+		StepVerifier.create(reactiveDeviceService.findAllDevices(null, 0))
+				.verifyErrorMessage("Limit must be between 1 and 1000");
+	}
+
+	@Test
+	void shouldWriteTheUpdateAgainstTheVersionItWasValidatedOn() {
+		DeviceResponseDTO current = device(1L, StateEnum.AVAILABLE, 4L);
+		DeviceResponseDTO updated = new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.INACTIVE,
+				current.creationTime(), 5L);
+		when(deviceRepository.findDtoById(1L)).thenReturn(Mono.just(current));
+		when(deviceRepository.updateIfVersion(1L, 4L, "Tablet", "Apple", StateEnum.INACTIVE))
+				.thenReturn(Mono.just(updated));
+
+		StepVerifier.create(reactiveDeviceService.updateDevice(1L,
+				new DeviceRequestDTO("Tablet", null, StateEnum.INACTIVE), 4L)).expectNext(updated).verifyComplete();
+
+		verify(eventPublisher).publishEvent(DeviceChangedEvent.updated(updated));
+	}
+
+	@Test
+	void shouldFailTheUpdateWhenTheDeviceChangedAfterItWasRead() {
+		when(deviceRepository.findDtoById(1L)).thenReturn(Mono.just(device(1L, StateEnum.AVAILABLE, 4L)));
+		when(deviceRepository.updateIfVersion(eq(1L), eq(4L), any(), any(), any())).thenReturn(Mono.empty());
+
+		StepVerifier.create(reactiveDeviceService.updateDevice(1L,
+				new DeviceRequestDTO("Tablet", "Apple", StateEnum.AVAILABLE), null))
+				.verifyError(OptimisticLockingFailureException.class);
+
+		verify(eventPublisher, never()).publishEvent(any(Object.class));
+	}
+
+	@Test
+	void shouldRejectUpdatesBasedOnAnotherVersion() {
+		when(deviceRepository.findDtoById(1L)).thenReturn(Mono.just(device(1L, StateEnum.AVAILABLE, 4L)));
+
+		StepVerifier.create(reactiveDeviceService.updateDevice(1L,
+				new DeviceRequestDTO("Tablet", "Apple", StateEnum.AVAILABLE), 3L))
+				.verifyError(DeviceVersionMismatchException.class);
+
+		verify(deviceRepository, never()).updateIfVersion(anyLong(), anyLong(), any(), any(), any());
+	}
+
+	@Test
+	void shouldNotRenameDevicesInUse() {
+		when(deviceRepository.findDtoById(1L)).thenReturn(Mono.just(device(1L, StateEnum.IN_USE, 4L)));
+
+		StepVerifier.create(reactiveDeviceService.updateDevice(1L,
+				new DeviceRequestDTO("Tablet", "Apple", StateEnum.IN_USE), null))
+				.verifyErrorMessage("Cannot update name or brand when device is IN_USE");
+	}
+
+	@Test
+	void shouldDeleteWithATombstoneAndPublishTheDeletion() {
+		when(deviceRepository.deleteByIdUnlessInUse(1L)).thenReturn(Mono.just(1L));
+		when(deviceRepository.insertTombstone(eq(1L), any(Instant.class))).thenReturn(Mono.empty());
+
+		StepVerifier.create(reactiveDeviceService.deleteDevice(1L)).verifyComplete();
+
+		verify(transactionalOperator).transactional(any(Mono.class));
+		verify(deviceIdFilter).deleted(1);
+		verify(eventPublisher).publishEvent(DeviceChangedEvent.deleted(1L));
+	}
+
+	@Test
+	void shouldTellDevicesInUseFromMissingOnesWhenNothingWasDeleted() {
+		when(deviceRepository.deleteByIdUnlessInUse(1L)).thenReturn(Mono.just(0L));
+		when(deviceRepository.existsById(1L)).thenReturn(Mono.just(true));
+		when(deviceRepository.deleteByIdUnlessInUse(2L)).thenReturn(Mono.just(0L));
+		when(deviceRepository.existsById(2L)).thenReturn(Mono.just(false));
+
+		StepVerifier.create(reactiveDeviceService.deleteDevice(1L))
+				.verifyErrorMessage("Cannot delete device when state is IN_USE");
+		StepVerifier.create(reactiveDeviceService.deleteDevice(2L)).verifyError(DeviceNotFoundException.class);
+
+		verify(deviceRepository, never()).insertTombstone(anyLong(), any());
+		verify(eventPublisher, never()).publishEvent(any(Object.class));
+	}
+}
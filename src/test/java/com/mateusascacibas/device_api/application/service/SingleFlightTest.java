@@ -0,0 +1,148 @@
+package com.mateusascacibas.device_api.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mateusascacibas.device_api.application.event.DeviceChangedEvent;
+import com.mateusascacibas.device_api.application.exception.DeviceNotFoundException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SingleFlightTest {
+
+	private final SingleFlight singleFlight = new SingleFlight();
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final AtomicInteger queries = new AtomicInteger();
+	private final CountDownLatch leaderStarted = new CountDownLatch(1);
+	private final CountDownLatch releaseLeader = new CountDownLatch(1);
+	private final Map<CompletableFuture<String>, Thread> threads = new ConcurrentHashMap<>();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(singleFlight, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(singleFlight, "enabled", true);
+		ReflectionTestUtils.setField(singleFlight, "maxWait", Duration.ofSeconds(5));
+	}
+
+	@AfterEach
+	void tearDown() {
+		releaseLeader.countDown();
+	}
+
+	@Test
+	void shouldShareOneQueryBetweenConcurrentCallers() throws Exception {
+		CompletableFuture<String> leader = runInBackground(() -> slowQuery("devices"));
+		leaderStarted.await(5, TimeUnit.SECONDS);
+		CompletableFuture<String> follower = runInBackground(() -> countedQuery("devices"));
+		awaitWaiting(follower);
+
+		releaseLeader.countDown();
+
+		assertEquals("devices", leader.get(5, TimeUnit.SECONDS));
+		assertEquals("devices", follower.get(5, TimeUnit.SECONDS));
+		assertEquals(1, queries.get());
+		assertEquals(1, meterRegistry.counter("device.single_flight.coalesced", "operation", "find").count());
+	}
+
+	@Test
+	void shouldNotJoinAQueryStartedBeforeAWriteCommitted() throws Exception {
+		CompletableFuture<String> leader = runInBackground(() -> slowQuery("before write"));
+		leaderStarted.await(5, TimeUnit.SECONDS);
+
+		singleFlight.onDeviceChanged(DeviceChangedEvent.deleted(1L));
+
+		assertEquals("after write", singleFlight.execute("find", List.of(1L), () -> countedQuery("after write")));
+		releaseLeader.countDown();
+		assertEquals("before write", leader.get(5, TimeUnit.SECONDS));
+		assertEquals(2, queries.get());
+		assertEquals(0, meterRegistry.counter("device.single_flight.coalesced", "operation", "find").count());
+	}
+
+	@Test
+	void shouldRunOwnQueryAfterMaxWait() throws Exception {
+		ReflectionTestUtils.setField(singleFlight, "maxWait", Duration.ofMillis(10));
+		runInBackground(() -> slowQuery("slow"));
+		leaderStarted.await(5, TimeUnit.SECONDS);
+
+		assertEquals("own", singleFlight.execute("find", List.of(1L), () -> countedQuery("own")));
+		assertEquals(1, meterRegistry.counter("device.single_flight.wait_timeouts", "operation", "find").count());
+	}
+
+	@Test
+	void shouldShareTheLeadersException() throws Exception {
+		DeviceNotFoundException notFound = new DeviceNotFoundException(1L);
+		CompletableFuture<String> leader = runInBackground(() -> {
+			slowQuery("ignored");
+			throw notFound;
+		});
+		leaderStarted.await(5, TimeUnit.SECONDS);
+		CompletableFuture<String> follower = runInBackground(() -> countedQuery("ignored"));
+		awaitWaiting(follower);
+
+		releaseLeader.countDown();
+
+		assertSame(notFound, assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+		assertSame(notFound, assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+		assertEquals(1, queries.get());
+	}
+
+	private String slowQuery(String result) {
+		leaderStarted.countDown();
+		try {
+			releaseLeader.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return countedQuery(result);
+	}
+
+	private String countedQuery(String result) {
+		queries.incrementAndGet();
+		return result;
+	}
+
+	// Every caller uses the same operation and arguments
+	private CompletableFuture<String> runInBackground(Supplier<String> loader) {
+		CompletableFuture<String> result = new CompletableFuture<>();
+		Thread thread = new Thread(() -> {
+			try {
+				result.complete(singleFlight.execute("find", List.of(1L), loader));
+			} catch (RuntimeException e) {
+				result.completeExceptionally(e);
+			}
+		});
+		threads.put(result, thread);
+		thread.start();
+		return result;
+	}
+
+	// A follower parks in a timed wait on the leader's result
+	private void awaitWaiting(CompletableFuture<String> caller) throws InterruptedException {
+		Thread thread = threads.get(caller);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (thread.getState() != Thread.State.TIMED_WAITING) {
+			if (System.nanoTime() > deadline) {
+				fail("Caller never started waiting for the leader");
+			}
+			Thread.sleep(1);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package com.mateusascacibas.device_api.infra.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mateusascacibas.device_api.application.dto.DeviceRequestDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.application.exception.DeviceNotFoundException;
+import com.mateusascacibas.device_api.application.service.DeviceService;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DeviceServiceMetricsAspectTest {
+
+	private SimpleMeterRegistry meterRegistry;
+	private DeviceService target;
+	private DeviceService proxy;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		target = mock(DeviceService.class);
+		AspectJProxyFactory factory = new AspectJProxyFactory(target);
+		factory.setProxyTargetClass(true);
+		DeviceServiceMetricsAspect aspect = new DeviceServiceMetricsAspect();
+		ReflectionTestUtils.setField(aspect, "meterRegistry", meterRegistry);
+		factory.addAspect(aspect);
+		proxy = factory.getProxy();
+	}
+
+	@Test
+	void shouldRecordSuccessfulCalls() {
+		when(target.findDeviceByID(1L))
+				.thenReturn(new DeviceResponseDTO(1L, "Phone", "Samsung", StateEnum.AVAILABLE, null, 0L));
+
+		proxy.findDeviceByID(1L);
+
+		assertEquals(1, timerCount("findDeviceByID", "success"));
+	}
+
+	@Test
+	void shouldTagNotFoundOutcome() {
+		when(target.findDeviceByID(1L)).thenThrow(new DeviceNotFoundException(1L));
+
+		assertThrows(DeviceNotFoundException.class, () -> proxy.findDeviceByID(1L));
+
+		assertEquals(1, timerCount("findDeviceByID", "not_found"));
+	}
+
+	@Test
+	void shouldTagConflictOutcome() {
+		DeviceRequestDTO request = new DeviceRequestDTO("Tablet", "Samsung", StateEnum.IN_USE);
+		when(target.updateDevice(1L, request)).thenThrow(new IllegalStateException("in use"));
+
+		assertThrows(IllegalStateException.class, () -> proxy.updateDevice(1L, request));
+
+		assertEquals(1, timerCount("updateDevice", "conflict"));
+	}
+
+	private long timerCount(String method, String outcome) {
+		return meterRegistry.get(DeviceServiceMetricsAspect.METRIC_NAME).tag("method", method)
+				.tag("outcome", outcome).timer().count();
+	}
+}
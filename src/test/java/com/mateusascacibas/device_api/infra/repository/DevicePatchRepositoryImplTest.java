@@ -0,0 +1,96 @@
+package com.mateusascacibas.device_api.infra.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import com.mateusascacibas.device_api.application.dto.DevicePatchDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+import com.mateusascacibas.device_api.domain.model.Device;
+
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:patch;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+		"spring.datasource.username=sa", "spring.datasource.password=",
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class DevicePatchRepositoryImplTest {
+
+	@Autowired
+	private DeviceRepository deviceRepository;
+
+	private Long available;
+	private Long inUse;
+
+	@BeforeEach
+	void setUp() {
+		available = deviceRepository.saveAndFlush(new Device(null, "Phone", "Apple", StateEnum.AVAILABLE, null)).getId();
+		inUse = deviceRepository.saveAndFlush(new Device(null, "Tablet", "Apple", StateEnum.IN_USE, null)).getId();
+	}
+
+	@Test
+	void shouldWriteOnlyPatchedFieldsAndBumpVersion() {
+		Optional<DeviceResponseDTO> patched = deviceRepository.patchDtoById(available,
+				new DevicePatchDTO("Phone 2", null, null), null);
+
+		assertEquals("Phone 2", patched.orElseThrow().name());
+		assertEquals("Apple", patched.get().brand());
+		assertEquals(StateEnum.AVAILABLE, patched.get().state());
+		assertEquals(1L, patched.get().version());
+	}
+
+	@Test
+	void shouldNotWriteWhenPatchChangesNothing() {
+		assertTrue(deviceRepository.patchDtoById(available, new DevicePatchDTO("Phone", "Apple", StateEnum.AVAILABLE), null)
+				.isEmpty());
+		assertEquals(0L, deviceRepository.findVersionById(available).orElseThrow());
+	}
+
+	@Test
+	void shouldNotRenameInUseDevice() {
+		assertTrue(deviceRepository.patchDtoById(inUse, new DevicePatchDTO("Tablet 2", null, StateEnum.AVAILABLE), null)
+				.isEmpty());
+		assertEquals(StateEnum.IN_USE, deviceRepository.findDtoById(inUse).orElseThrow().state());
+	}
+
+	@Test
+	void shouldChangeStateOfInUseDeviceWhenNameAndBrandAreKept() {
+		Optional<DeviceResponseDTO> patched = deviceRepository.patchDtoById(inUse,
+				new DevicePatchDTO("Tablet", "Apple", StateEnum.AVAILABLE), null);
+
+		assertEquals(StateEnum.AVAILABLE, patched.orElseThrow().state());
+	}
+
+	@Test
+	void shouldNotWriteWhenVersionDoesNotMatch() {
+		assertTrue(deviceRepository.patchDtoById(available, new DevicePatchDTO(null, null, StateEnum.INACTIVE), 5L)
+				.isEmpty());
+		assertEquals(StateEnum.INACTIVE, deviceRepository
+				.patchDtoById(available, new DevicePatchDTO(null, null, StateEnum.INACTIVE), 0L).orElseThrow().state());
+	}
+
+	@Test
+	void shouldNotWriteMissingDevice() {
+		assertTrue(deviceRepository.patchDtoById(-1L, new DevicePatchDTO("Phone", null, null), null).isEmpty());
+	}
+
+	@Test
+	void shouldPatchListedDevicesThatChangeAndAreNotRenamedWhileInUse() {
+		Long unchanged = deviceRepository.saveAndFlush(new Device(null, "Laptop", "Dell", StateEnum.INACTIVE, null)).getId();
+
+		List<DeviceResponseDTO> patched = deviceRepository.patchDtosByIdIn(List.of(available, unchanged, -1L),
+				new DevicePatchDTO(null, null, StateEnum.INACTIVE));
+
+		assertEquals(List.of(available), patched.stream().map(DeviceResponseDTO::id).toList());
+		assertEquals(1L, patched.get(0).version());
+		assertTrue(deviceRepository.patchDtosByIdIn(List.of(inUse), new DevicePatchDTO("Tablet 2", null, null)).isEmpty());
+	}
+}
@@ -0,0 +1,152 @@
+package com.mateusascacibas.device_api.infra.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+
+/**
+ * Runs the Flyway migrations on H2 (PostgreSQL mode), captures the SQL Hibernate generates for each repository
+ * query and checks with EXPLAIN that it is answered from an index rather than a table scan.
+ */
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:explain;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+		"spring.datasource.username=sa", "spring.datasource.password=",
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+				+ "com.mateusascacibas.device_api.infra.repository.DeviceRepositoryIndexTest$SqlRecorder" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class DeviceRepositoryIndexTest {
+
+	public static class SqlRecorder implements StatementInspector {
+
+		static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			STATEMENTS.add(sql);
+			return sql;
+		}
+	}
+
+	@Autowired
+	private DeviceRepository deviceRepository;
+
+	@Autowired
+	private DeviceTombstoneRepository deviceTombstoneRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		SqlRecorder.STATEMENTS.clear();
+	}
+
+	@Test
+	void findDtoById_UsesPrimaryKey() {
+		deviceRepository.findDtoById(1L);
+
+		assertIndexScan(explain(1L), "PRIMARY_KEY");
+	}
+
+	@Test
+	void findDtoPage_UsesPrimaryKeyRange() {
+		deviceRepository.findDtoPage(0L, Limit.of(50));
+
+		assertIndexScan(explain(0L, 0, 50), "PRIMARY_KEY");
+	}
+
+	@Test
+	void findDtoPageByBrand_UsesBrandIdIndex() {
+		deviceRepository.findDtoPageByBrand("Apple", 0L, Limit.of(50));
+
+		assertIndexScan(explain("Apple", 0L, 0, 50), "idx_devices_brand_id");
+	}
+
+	@Test
+	void findDtoPageByState_UsesStateIdIndex() {
+		deviceRepository.findDtoPageByState(StateEnum.IN_USE, 0L, Limit.of(50));
+
+		assertIndexScan(explain(StateEnum.IN_USE.name(), 0L, 0, 50), "idx_devices_state_id");
+	}
+
+	@Test
+	void streamDtosByBrand_UsesBrandIdIndex() {
+		try (Stream<DeviceResponseDTO> devices = deviceRepository.streamDtosByBrand("Apple")) {
+			devices.count();
+		}
+
+		assertIndexScan(explain("Apple"), "idx_devices_brand_id");
+	}
+
+	@Test
+	void streamDtosByState_UsesStateIdIndex() {
+		try (Stream<DeviceResponseDTO> devices = deviceRepository.streamDtosByState(StateEnum.AVAILABLE)) {
+			devices.count();
+		}
+
+		assertIndexScan(explain(StateEnum.AVAILABLE.name()), "idx_devices_state_id");
+	}
+
+	@Test
+	void countGroupedByBrandAndState_UsesBrandIdIndex() {
+		deviceRepository.countGroupedByBrandAndState(List.of("Apple", "Samsung"));
+
+		assertIndexScan(explain("Apple", "Samsung"), "idx_devices_brand_id");
+	}
+
+	@Test
+	void findChangesAfter_UsesLastModifiedIdIndex() {
+		Instant time = Instant.parse("2024-01-01T00:00:00Z");
+		deviceRepository.findChangesAfter(time, 5L, Instant.now(), Limit.of(100));
+
+		OffsetDateTime at = time.atOffset(ZoneOffset.UTC);
+		assertIndexScan(explain(at, at, 5L, OffsetDateTime.now(), 0, 100), "idx_devices_last_modified_id");
+	}
+
+	@Test
+	void findChangeTokensAfter_UsesLastModifiedIdIndex() {
+		Instant time = Instant.parse("2024-01-01T00:00:00Z");
+		deviceRepository.findChangeTokensAfter(time, 5L, Instant.now(), Limit.of(100));
+
+		OffsetDateTime at = time.atOffset(ZoneOffset.UTC);
+		assertIndexScan(explain(at, at, 5L, OffsetDateTime.now(), 0, 100), "idx_devices_last_modified_id");
+	}
+
+	@Test
+	void findTombstonesAfter_UsesDeletedAtIdIndex() {
+		Instant time = Instant.parse("2024-01-01T00:00:00Z");
+		deviceTombstoneRepository.findAfter(time, 5L, Instant.now(), Limit.of(100));
+
+		OffsetDateTime at = time.atOffset(ZoneOffset.UTC);
+		assertIndexScan(explain(at, at, 5L, OffsetDateTime.now(), 0, 100), "idx_device_tombstones_deleted_at_id");
+	}
+
+	private String explain(Object... parameters) {
+		String sql = SqlRecorder.STATEMENTS.get(SqlRecorder.STATEMENTS.size() - 1);
+		return String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class, parameters));
+	}
+
+	private static void assertIndexScan(String plan, String index) {
+		assertTrue(plan.contains(index), () -> "Expected " + index + " in plan:\n" + plan);
+		assertFalse(plan.contains("tableScan"), () -> "Unexpected table scan in plan:\n" + plan);
+	}
+}
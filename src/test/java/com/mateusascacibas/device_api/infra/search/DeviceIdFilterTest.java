@@ -0,0 +1,151 @@
+package com.mateusascacibas.device_api.infra.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mateusascacibas.device_api.application.dto.DeviceChangeToken;
+import com.mateusascacibas.device_api.infra.repository.DeviceRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DeviceIdFilterTest {
+
+	@Mock
+	private DeviceRepository deviceRepository;
+
+	@InjectMocks
+	private DeviceIdFilter filter;
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+		ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(filter, "enabled", true);
+		ReflectionTestUtils.setField(filter, "expectedDevices", 10000L);
+		ReflectionTestUtils.setField(filter, "falsePositiveRate", 0.01);
+		ReflectionTestUtils.setField(filter, "settleWindow", Duration.ofSeconds(5));
+		filter.init();
+	}
+
+	@Test
+	void shouldRuleOutNothingUntilBuilt() {
+		assertFalse(filter.definitelyAbsent(42L));
+
+		filter.refresh();
+
+		assertFalse(filter.definitelyAbsent(42L));
+		verify(deviceRepository, times(0)).findChangeTokensAfter(any(), any(), any(), any());
+	}
+
+	@Test
+	void shouldKeepEveryStoredIdAndRuleOutMostUnknownOnes() {
+		// Two full rebuild pages and a partial one
+		List<Long> stored = LongStream.rangeClosed(1, 2 * DeviceIdFilter.REBUILD_PAGE_SIZE + 5).boxed().toList();
+		when(deviceRepository.count()).thenReturn((long) stored.size());
+		when(deviceRepository.findIdPage(any(), any(Limit.class))).thenAnswer(invocation -> {
+			long after = invocation.getArgument(0);
+			return stored.stream().filter(id -> id > after).limit(DeviceIdFilter.REBUILD_PAGE_SIZE).toList();
+		});
+
+		filter.rebuild();
+
+		assertTrue(stored.stream().noneMatch(filter::definitelyAbsent));
+		long ruledOut = LongStream.rangeClosed(1_000_000, 1_009_999).filter(filter::definitelyAbsent).count();
+		assertTrue(ruledOut > 9800, "ruled out " + ruledOut);
+		assertEquals(ruledOut, meterRegistry.counter("device.id_filter.short_circuits").count());
+		assertTrue(filter.falsePositiveRate() < 0.01);
+	}
+
+	@Test
+	void shouldAcceptAddedAndRefreshedIds() {
+		when(deviceRepository.findIdPage(eq(0L), any(Limit.class))).thenReturn(List.of(1L));
+		filter.rebuild();
+		assertTrue(filter.definitelyAbsent(2L));
+		assertTrue(filter.definitelyAbsent(3L));
+
+		filter.add(2L);
+		// Created by another instance
+		when(deviceRepository.findChangeTokensAfter(any(), any(), any(), any()))
+				.thenReturn(List.of(new DeviceChangeToken(Instant.now(), 3L)));
+		filter.refresh();
+
+		assertFalse(filter.definitelyAbsent(2L));
+		assertFalse(filter.definitelyAbsent(3L));
+	}
+
+	@Test
+	void shouldFollowTheChangeFeedFromWhereTheLastRefreshStopped() {
+		when(deviceRepository.findIdPage(eq(0L), any(Limit.class))).thenReturn(List.of(1L));
+		Instant rebuiltAt = Instant.now();
+		filter.rebuild();
+
+		// A full page and a partial one, read up to the settle window before now
+		Instant stamped = Instant.parse("2024-01-01T00:00:00Z");
+		List<DeviceChangeToken> firstPage = LongStream.range(0, DeviceIdFilter.REFRESH_PAGE_SIZE)
+				.mapToObj(index -> new DeviceChangeToken(stamped, 100 + index)).toList();
+		DeviceChangeToken last = new DeviceChangeToken(stamped.plusSeconds(1), 7L);
+		when(deviceRepository.findChangeTokensAfter(any(), any(), any(), any())).thenReturn(firstPage, List.of(last),
+				List.of());
+		filter.refresh();
+		filter.refresh();
+
+		ArgumentCaptor<Instant> times = ArgumentCaptor.forClass(Instant.class);
+		ArgumentCaptor<Long> ids = ArgumentCaptor.forClass(Long.class);
+		ArgumentCaptor<Instant> horizons = ArgumentCaptor.forClass(Instant.class);
+		verify(deviceRepository, times(3)).findChangeTokensAfter(times.capture(), ids.capture(), horizons.capture(),
+				any());
+		assertTrue(times.getAllValues().get(0).isBefore(rebuiltAt.minusSeconds(4)));
+		assertEquals(new DeviceChangeToken(stamped, 100 + DeviceIdFilter.REFRESH_PAGE_SIZE - 1),
+				new DeviceChangeToken(times.getAllValues().get(1), ids.getAllValues().get(1)));
+		assertEquals(last, new DeviceChangeToken(times.getAllValues().get(2), ids.getAllValues().get(2)));
+		assertTrue(horizons.getAllValues().get(2).isBefore(Instant.now().minusSeconds(4)));
+		assertFalse(filter.definitelyAbsent(7L));
+		assertFalse(filter.definitelyAbsent(100L));
+	}
+
+	@Test
+	void shouldRebuildOnceDeletionsMakeItStale() {
+		when(deviceRepository.findIdPage(eq(0L), any(Limit.class))).thenReturn(List.of(1L, 2L), List.of(2L));
+		filter.rebuild();
+		assertFalse(filter.definitelyAbsent(1L));
+
+		filter.deleted(DeviceIdFilter.MIN_REBUILD_DELETIONS + 1);
+		filter.refresh();
+
+		assertTrue(filter.definitelyAbsent(1L));
+		assertFalse(filter.definitelyAbsent(2L));
+	}
+
+	@Test
+	void shouldStayEmptyWhenDisabled() {
+		ReflectionTestUtils.setField(filter, "enabled", false);
+
+		filter.rebuild();
+
+		assertFalse(filter.definitelyAbsent(42L));
+		verify(deviceRepository, times(0)).count();
+	}
+}
@@ -0,0 +1,131 @@
+package com.mateusascacibas.device_api.infra.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.mateusascacibas.device_api.application.dto.ChangedDeviceDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.application.event.DeviceChangedEvent;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+import com.mateusascacibas.device_api.domain.model.DeviceTombstone;
+import com.mateusascacibas.device_api.infra.repository.DeviceRepository;
+import com.mateusascacibas.device_api.infra.repository.DeviceTombstoneRepository;
+
+class DeviceSearchIndexTest {
+
+	private DeviceSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new DeviceSearchIndex();
+		index.index(1L, "Galaxy S24", "Samsung");
+		index.index(2L, "iPhone 15", "Apple");
+		index.index(3L, "Pixel Galaxy Edition", "Google");
+		index.index(4L, "Tab Galaxy", "Samsung");
+		index.index(5L, "MegaGalaxy Pro", "Acme");
+		index.index(6L, "ThinkPad X1", "Lenovo");
+	}
+
+	@Test
+	void shouldRankPrefixThenWordThenSubstringMatches() {
+		// Name prefix, then later words starting with the query (in index order), then plain substring
+		assertEquals(List.of(1L, 3L, 4L, 5L), index.search("galaxy", 10));
+	}
+
+	@Test
+	void shouldRankNameMatchesAboveBrandMatches() {
+		index.index(7L, "Samsung Charger", "Anker");
+
+		assertEquals(List.of(7L, 1L, 4L), index.search("Samsung", 10));
+	}
+
+	@Test
+	void shouldBeCaseInsensitiveAndApplyLimit() {
+		assertEquals(List.of(1L, 3L), index.search("  GALAXY ", 2));
+	}
+
+	@Test
+	void shouldMatchWordPrefixesForShortQueries() {
+		assertEquals(List.of(6L), index.search("th", 10));
+		assertEquals(List.of(6L), index.search("x", 10));
+		// "ad" is inside "ThinkPad" but does not start a word
+		assertTrue(index.search("ad", 10).isEmpty());
+	}
+
+	@Test
+	void shouldMatchSubstringsInBrand() {
+		assertEquals(List.of(3L), index.search("oogl", 10));
+	}
+
+	@Test
+	void shouldReturnEmptyWhenNothingMatches() {
+		assertTrue(index.search("nokia", 10).isEmpty());
+		assertTrue(index.search("", 10).isEmpty());
+	}
+
+	@Test
+	void shouldReindexUpdatedDevice() {
+		index.onDeviceChanged(DeviceChangedEvent.updated(
+				new DeviceResponseDTO(2L, "Galaxy Fold", "Samsung", StateEnum.AVAILABLE, LocalDateTime.now(), 1L)));
+
+		assertTrue(index.search("iphone", 10).isEmpty());
+		assertEquals(List.of(1L, 2L), index.search("galaxy", 2));
+		assertEquals(6, index.size());
+	}
+
+	@Test
+	void shouldRemoveDeletedDeviceAndReuseItsSlot() {
+		index.onDeviceChanged(DeviceChangedEvent.deleted(1L));
+
+		assertEquals(List.of(3L, 4L, 5L), index.search("galaxy", 10));
+		assertEquals(List.of(4L), index.search("samsung", 10));
+
+		index.index(8L, "Galaxy Buds", "Samsung");
+
+		assertEquals(List.of(8L, 3L, 4L, 5L), index.search("galaxy", 10));
+		assertEquals(6, index.size());
+	}
+
+	@Test
+	void shouldApplyChangesAndDeletionsFromOtherInstancesOnRefresh() {
+		DeviceRepository deviceRepository = mock(DeviceRepository.class);
+		DeviceTombstoneRepository deviceTombstoneRepository = mock(DeviceTombstoneRepository.class);
+		ReflectionTestUtils.setField(index, "deviceRepository", deviceRepository);
+		ReflectionTestUtils.setField(index, "deviceTombstoneRepository", deviceTombstoneRepository);
+		ReflectionTestUtils.setField(index, "settleWindow", Duration.ofSeconds(5));
+		when(deviceRepository.streamDtos()).thenReturn(Stream.empty());
+		index.refresh();
+		verify(deviceRepository, never()).findChangesAfter(any(), any(), any(), any());
+
+		index.rebuild();
+		Instant changedAt = Instant.now().minusSeconds(10);
+		when(deviceRepository.findChangesAfter(any(), any(), any(), any())).thenReturn(List.of(
+				new ChangedDeviceDTO(9L, "Galaxy Fold", "Samsung", StateEnum.AVAILABLE, null, 0L, changedAt),
+				// Older than the version this instance indexed from its own event
+				new ChangedDeviceDTO(8L, "Old name", "Samsung", StateEnum.AVAILABLE, null, 1L, changedAt)));
+		when(deviceTombstoneRepository.findAfter(any(), any(), any(), any()))
+				.thenReturn(List.of(new DeviceTombstone(1L, changedAt)));
+		index.onDeviceChanged(DeviceChangedEvent.updated(
+				new DeviceResponseDTO(8L, "Galaxy Buds", "Samsung", StateEnum.AVAILABLE, null, 2L)));
+
+		index.refresh();
+
+		assertEquals(List.of(8L, 9L, 3L, 4L, 5L), index.search("galaxy", 10));
+		assertEquals(List.of(), index.search("old name", 10));
+	}
+}
@@ -0,0 +1,272 @@
+package com.mateusascacibas.device_api.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.Resource;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mateusascacibas.device_api.application.dto.BatchCreateResultDTO;
+import com.mateusascacibas.device_api.application.dto.BatchItemResultDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceRequestDTO;
+import com.mateusascacibas.device_api.application.service.DeviceService;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+
+/**
+ * Boots the API against H2 in PostgreSQL mode, seeds devices and drives a mixed workload over HTTP at a fixed
+ * arrival rate. Latency is measured from each request's scheduled start, so a slow server cannot hide queueing
+ * delay by sending fewer requests. Run with {@code mvn -Pload-test test}.
+ */
+@Tag("load")
+@ActiveProfiles("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class DeviceLoadTest {
+
+	private static final Logger log = LoggerFactory.getLogger(DeviceLoadTest.class);
+	private static final int BRANDS = 50;
+	private static final int BATCH_SIZE = 20;
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private DeviceService deviceService;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${loadtest.seed-devices}")
+	private int seedDevices;
+
+	@Value("${loadtest.rate}")
+	private int rate;
+
+	@Value("${loadtest.warmup}")
+	private Duration warmup;
+
+	@Value("${loadtest.duration}")
+	private Duration duration;
+
+	@Value("${loadtest.mix}")
+	private String mix;
+
+	@Value("${loadtest.baseline}")
+	private Resource baseline;
+
+	@Value("${loadtest.regression-threshold}")
+	private double regressionThreshold;
+
+	@Value("${loadtest.latency-slack-ms}")
+	private double latencySlackMs;
+
+	@Value("${loadtest.max-error-rate}")
+	private double maxErrorRate;
+
+	@Value("${loadtest.max-rate-shortfall}")
+	private double maxRateShortfall;
+
+	@Value("${loadtest.min-tail-samples}")
+	private int minTailSamples;
+
+	@Value("${loadtest.report}")
+	private Path reportPath;
+
+	private final HttpClient httpClient = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+
+	private final List<Long> seededIds = new ArrayList<>();
+	private final Queue<Long> deletableIds = new ConcurrentLinkedQueue<>();
+
+	@Test
+	void mixedWorkloadStaysWithinBaseline() throws Exception {
+		seed();
+		Map<String, Integer> weights = parseMix(mix);
+
+		LoadTestReport report = new LoadTestReport();
+		run(weights, warmup, report);
+		run(weights, duration, report);
+
+		report.write(reportPath);
+		log.info("Load test report written to {}: {}", reportPath, new TreeMap<>(report.toProperties()));
+
+		Properties expected = new Properties();
+		if (baseline.exists()) {
+			try (InputStream in = baseline.getInputStream()) {
+				expected.load(in);
+			}
+		}
+		List<String> regressions = report.compare(expected, regressionThreshold, latencySlackMs, maxErrorRate,
+				maxRateShortfall, minTailSamples);
+		assertTrue(regressions.isEmpty(), "Performance regressed against " + baseline + ": " + regressions);
+	}
+
+	private void seed() {
+		StateEnum[] states = { StateEnum.AVAILABLE, StateEnum.INACTIVE };
+		for (int offset = 0; offset < seedDevices; offset += DeviceService.MAX_BATCH_SIZE) {
+			List<DeviceRequestDTO> devices = new ArrayList<>();
+			for (int i = offset; i < Math.min(seedDevices, offset + DeviceService.MAX_BATCH_SIZE); i++) {
+				devices.add(new DeviceRequestDTO("Device " + i, brand(i), states[i % states.length]));
+			}
+			BatchCreateResultDTO result = deviceService.createDevices(devices);
+			for (BatchItemResultDTO item : result.results()) {
+				seededIds.add(item.device().id());
+			}
+		}
+	}
+
+	private void run(Map<String, Integer> weights, Duration length, LoadTestReport report) throws InterruptedException {
+		String[] schedule = schedule(weights);
+		long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+		long requests = length.toNanos() / intervalNanos;
+
+		report.start(requests, requests * intervalNanos);
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			long start = System.nanoTime();
+			for (long i = 0; i < requests; i++) {
+				long intendedStart = start + i * intervalNanos;
+				long wait = intendedStart - System.nanoTime();
+				if (wait > 0) {
+					LockSupport.parkNanos(wait);
+				}
+				String operation = schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+				executor.execute(() -> {
+					boolean success = execute(operation);
+					report.record(operation, System.nanoTime() - intendedStart, success);
+				});
+			}
+		}
+		report.stop();
+	}
+
+	private boolean execute(String operation) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		try {
+			return switch (operation) {
+			case "create" -> {
+				HttpResponse<String> response = send(post("/devices", newDevice(random)));
+				if (response.statusCode() == 201) {
+					deletableIds.add(objectMapper.readTree(response.body()).get("id").asLong());
+				}
+				yield response.statusCode() == 201;
+			}
+			case "create-batch" -> {
+				List<DeviceRequestDTO> devices = new ArrayList<>();
+				for (int i = 0; i < BATCH_SIZE; i++) {
+					devices.add(newDevice(random));
+				}
+				yield send(post("/devices/batch", devices)).statusCode() == 201;
+			}
+			case "get" -> send(get("/devices/" + randomSeededId(random))).statusCode() == 200;
+			case "list" -> send(get("/devices?limit=50&after=" + randomSeededId(random))).statusCode() == 200;
+			case "list-by-brand" -> send(get("/devices/brand/" + brand(random.nextInt(BRANDS)) + "?limit=50")).statusCode() == 200;
+			case "list-by-state" -> send(get("/devices/state/" + StateEnum.INACTIVE + "?limit=50&after=" + randomSeededId(random))).statusCode() == 200;
+			case "stats" -> send(get("/devices/stats")).statusCode() == 200;
+			case "export" -> send(request("/devices/brand/" + brand(random.nextInt(BRANDS)))
+					.header("Accept", "application/x-ndjson").GET().build()).statusCode() == 200;
+			case "update" -> {
+				DeviceRequestDTO update = new DeviceRequestDTO("Renamed " + random.nextInt(1000), null,
+						random.nextBoolean() ? StateEnum.AVAILABLE : StateEnum.INACTIVE);
+				yield send(put("/devices/" + randomSeededId(random), update)).statusCode() == 200;
+			}
+			case "delete" -> {
+				Long id = deletableIds.poll();
+				if (id == null) {
+					yield execute("create");
+				}
+				yield send(request("/devices/" + id).DELETE().build()).statusCode() == 204;
+			}
+			default -> throw new IllegalArgumentException("Unknown load-test operation: " + operation);
+			};
+		} catch (IOException ex) {
+			return false;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+		return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	private HttpRequest.Builder request(String path) {
+		return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).timeout(Duration.ofSeconds(30));
+	}
+
+	private HttpRequest get(String path) {
+		return request(path).GET().build();
+	}
+
+	private HttpRequest post(String path, Object body) throws IOException {
+		return request(path).header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))).build();
+	}
+
+	private HttpRequest put(String path, Object body) throws IOException {
+		return request(path).header("Content-Type", "application/json")
+				.PUT(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))).build();
+	}
+
+	private Long randomSeededId(ThreadLocalRandom random) {
+		return seededIds.get(random.nextInt(seededIds.size()));
+	}
+
+	private static DeviceRequestDTO newDevice(ThreadLocalRandom random) {
+		return new DeviceRequestDTO("Load " + random.nextInt(1_000_000), brand(random.nextInt(BRANDS)), StateEnum.AVAILABLE);
+	}
+
+	private static String brand(int index) {
+		return "Brand" + (index % BRANDS);
+	}
+
+	private static Map<String, Integer> parseMix(String mix) {
+		Map<String, Integer> weights = new LinkedHashMap<>();
+		for (String entry : mix.split(",")) {
+			String[] parts = entry.trim().split(":");
+			weights.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+		}
+		return weights;
+	}
+
+	private static String[] schedule(Map<String, Integer> weights) {
+		List<String> schedule = new ArrayList<>();
+		weights.forEach((operation, weight) -> {
+			for (int i = 0; i < weight; i++) {
+				schedule.add(operation);
+			}
+		});
+		return schedule.toArray(String[]::new);
+	}
+}
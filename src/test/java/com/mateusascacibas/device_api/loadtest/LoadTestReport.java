@@ -0,0 +1,164 @@
+package com.mateusascacibas.device_api.loadtest;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies and errors per operation of one load-test run, and their comparison against a stored baseline.
+ */
+class LoadTestReport {
+
+	private static final double[] PERCENTILES = { 50, 95, 99 };
+
+	private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+	private long startNanos;
+	private long endNanos;
+	private long offeredRequests;
+	private long offeredNanos;
+
+	/**
+	 * Starts a run that schedules {@code requests} requests evenly over {@code lengthNanos}.
+	 */
+	void start(long requests, long lengthNanos) {
+		recorders.clear();
+		offeredRequests = requests;
+		offeredNanos = lengthNanos;
+		startNanos = System.nanoTime();
+	}
+
+	// Called once the last request completed, so requests still queued at the end of the schedule count as time
+	void stop() {
+		endNanos = System.nanoTime();
+	}
+
+	void record(String operation, long latencyNanos, boolean success) {
+		recorders.computeIfAbsent(operation, key -> new Recorder()).add(latencyNanos, success);
+	}
+
+	Properties toProperties() {
+		Properties properties = new Properties();
+		long total = 0;
+		long errors = 0;
+		for (Map.Entry<String, Recorder> entry : new TreeMap<>(recorders).entrySet()) {
+			Recorder recorder = entry.getValue();
+			long[] latencies = recorder.sortedLatencies();
+			String operation = entry.getKey();
+			properties.setProperty(operation + ".count", String.valueOf(latencies.length));
+			properties.setProperty(operation + ".errors", String.valueOf(recorder.errors));
+			for (double percentile : PERCENTILES) {
+				properties.setProperty(operation + ".p" + (int) percentile, format(toMillis(percentile(latencies, percentile))));
+			}
+			properties.setProperty(operation + ".max", format(toMillis(latencies.length == 0 ? 0 : latencies[latencies.length - 1])));
+			total += latencies.length;
+			errors += recorder.errors;
+		}
+		double seconds = (endNanos - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+		properties.setProperty("offered-rate", format(offeredRequests / (offeredNanos / (double) TimeUnit.SECONDS.toNanos(1))));
+		properties.setProperty("achieved-rate", format(total / seconds));
+		properties.setProperty("error-rate", format(total == 0 ? 0 : errors / (double) total));
+		return properties;
+	}
+
+	void write(Path path) throws IOException {
+		Files.createDirectories(path.toAbsolutePath().getParent());
+		try (Writer writer = Files.newBufferedWriter(path)) {
+			toProperties().store(writer, "Device API load test: latencies in ms, rates in requests/s");
+		}
+	}
+
+	/**
+	 * Returns one message per metric that regressed past the baseline; empty when the run is within bounds.
+	 * A percentile is only compared when at least {@code minTailSamples} requests of the operation lie beyond it
+	 * (p95 of 200 requests, p99 of 1000 with the default of 10); fewer would make it the value of a handful of
+	 * outliers.
+	 * Under a fixed arrival rate the request count is set by the schedule, so instead of throughput the rate the
+	 * server kept up with is checked against the offered rate.
+	 */
+	List<String> compare(Properties baseline, double threshold, double latencySlackMs, double maxErrorRate,
+			double maxRateShortfall, int minTailSamples) {
+		Properties current = toProperties();
+		List<String> regressions = new ArrayList<>();
+
+		double errorRate = Double.parseDouble(current.getProperty("error-rate"));
+		if (errorRate > maxErrorRate) {
+			regressions.add("error-rate " + format(errorRate) + " > " + format(maxErrorRate));
+		}
+
+		double offeredRate = Double.parseDouble(current.getProperty("offered-rate"));
+		double achievedRate = Double.parseDouble(current.getProperty("achieved-rate"));
+		if (achievedRate < offeredRate * (1 - maxRateShortfall)) {
+			regressions.add("achieved-rate " + format(achievedRate) + " req/s < offered-rate " + format(offeredRate)
+					+ " req/s minus " + format(maxRateShortfall * 100) + "%");
+		}
+
+		for (String key : new TreeSet<>(current.stringPropertyNames())) {
+			if (!key.endsWith(".p95") && !key.endsWith(".p99")) {
+				continue;
+			}
+			String operation = key.substring(0, key.lastIndexOf('.'));
+			String expected = baseline.getProperty(key);
+			double percentile = Double.parseDouble(key.substring(key.lastIndexOf('.') + 2));
+			long count = Long.parseLong(current.getProperty(operation + ".count"));
+			if (expected == null || count * (100 - percentile) / 100 < minTailSamples) {
+				continue;
+			}
+			double limit = Double.parseDouble(expected) * (1 + threshold) + latencySlackMs;
+			double actual = Double.parseDouble(current.getProperty(key));
+			if (actual > limit) {
+				regressions.add(key + " " + format(actual) + " ms > " + format(limit) + " ms (baseline " + expected + " ms)");
+			}
+		}
+		return regressions;
+	}
+
+	private static long percentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+
+	private static class Recorder {
+
+		private long[] latencies = new long[1024];
+		private int size;
+		private long errors;
+
+		synchronized void add(long latencyNanos, boolean success) {
+			if (size == latencies.length) {
+				latencies = Arrays.copyOf(latencies, size * 2);
+			}
+			latencies[size++] = latencyNanos;
+			if (!success) {
+				errors++;
+			}
+		}
+
+		synchronized long[] sortedLatencies() {
+			long[] sorted = Arrays.copyOf(latencies, size);
+			Arrays.sort(sorted);
+			return sorted;
+		}
+	}
+}
@@ -1,27 +1,71 @@
 package com.mateusascacibas.device_api.web.controller;
 
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.mateusascacibas.device_api.application.dto.BatchCreateResultDTO;
+import com.mateusascacibas.device_api.application.dto.BatchItemResultDTO;
+import com.mateusascacibas.device_api.application.dto.BrandCountDTO;
+import com.mateusascacibas.device_api.application.dto.BrandStateCountDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceChangesDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceDeleteRequestDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceDeleteResultDTO;
+import com.mateusascacibas.device_api.application.dto.DevicePageDTO;
+import com.mateusascacibas.device_api.application.dto.DevicePatchDTO;
 import com.mateusascacibas.device_api.application.dto.DeviceRequestDTO;
 import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceStateReportDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceStatsDTO;
+import com.mateusascacibas.device_api.application.dto.StateCountDTO;
+import com.mateusascacibas.device_api.application.dto.StateTransitionItemDTO;
+import com.mateusascacibas.device_api.application.dto.StateTransitionItemDTO.TransitionStatus;
+import com.mateusascacibas.device_api.application.dto.StateTransitionRequestDTO;
+import com.mateusascacibas.device_api.application.dto.StateTransitionResultDTO;
+import com.mateusascacibas.device_api.application.exception.ChangeTokenExpiredException;
+import com.mateusascacibas.device_api.application.exception.DeviceNotFoundException;
+import com.mateusascacibas.device_api.application.exception.StateReportQueueFullException;
 import com.mateusascacibas.device_api.application.service.DeviceService;
+import com.mateusascacibas.device_api.application.service.DeviceStateReportQueue;
 import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+import com.mateusascacibas.device_api.infra.config.WebConfig;
+import com.mateusascacibas.device_api.web.converter.DeviceProtobufHttpMessageConverter;
+import com.mateusascacibas.device_api.web.converter.DeviceProtos;
+import com.mateusascacibas.device_api.web.handler.GlobalExceptionHandler;
+import com.mateusascacibas.device_api.web.sse.DeviceEventBroadcaster;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
 class DeviceControllerTest {
@@ -31,22 +75,31 @@ class DeviceControllerTest {
 	@Mock
 	private DeviceService deviceService;
 
+	@Mock
+	private DeviceEventBroadcaster deviceEventBroadcaster;
+
+	@Mock
+	private DeviceStateReportQueue deviceStateReportQueue;
+
 	@InjectMocks
 	private DeviceController deviceController;
 
-	private final ObjectMapper objectMapper = new ObjectMapper();
+	@Spy
+	private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
 
 	@BeforeEach
 	void setUp() {
 		MockitoAnnotations.openMocks(this);
-		mockMvc = MockMvcBuilders.standaloneSetup(deviceController).build();
+		mockMvc = MockMvcBuilders.standaloneSetup(deviceController).setControllerAdvice(new GlobalExceptionHandler())
+				.setCustomHandlerMapping(() -> new WebConfig().ndjsonExportRegistrations().getRequestMappingHandlerMapping())
+				.build();
 	}
 
 	@Test
 	void shouldCreateDeviceSuccessfully() throws Exception {
 		DeviceRequestDTO request = new DeviceRequestDTO("Tablet", "Apple", StateEnum.AVAILABLE);
 		DeviceResponseDTO response = new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE,
-				LocalDateTime.now());
+				LocalDateTime.now(), 0L);
 
 		when(deviceService.createDevice(request)).thenReturn(response);
 
@@ -55,61 +108,329 @@ class DeviceControllerTest {
 				.andExpect(header().string("Location", "/devices/1")).andExpect(jsonPath("$.id").value(1));
 	}
 
+	@Test
+	void shouldReturnMultiStatusWhenBatchHasRejectedDevices() throws Exception {
+		List<DeviceRequestDTO> requests = List.of(new DeviceRequestDTO("Tablet", "Apple", StateEnum.AVAILABLE),
+				new DeviceRequestDTO("", "Apple", StateEnum.AVAILABLE));
+		BatchCreateResultDTO response = new BatchCreateResultDTO(1, 1,
+				List.of(BatchItemResultDTO.created(0,
+						new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE, null, 0L)),
+						BatchItemResultDTO.rejected(1, List.of("name: Name cannot be blank"))));
+
+		when(deviceService.createDevices(requests)).thenReturn(response);
+
+		mockMvc.perform(post("/devices/batch").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(requests))).andExpect(status().isMultiStatus())
+				.andExpect(jsonPath("$.results[0].device.id").value(1))
+				.andExpect(jsonPath("$.results[1].status").value("REJECTED"));
+	}
+
 	@Test
 	void shouldUpdateDeviceSuccessfully() throws Exception {
 		DeviceRequestDTO request = new DeviceRequestDTO("Tablet", "Apple", StateEnum.AVAILABLE);
 		DeviceResponseDTO response = new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE,
-				LocalDateTime.now());
+				LocalDateTime.now(), 0L);
 
-		when(deviceService.updateDevice(1L, request)).thenReturn(response);
+		when(deviceService.updateDevice(1L, request, null)).thenReturn(response);
 
 		mockMvc.perform(put("/devices/1").contentType(MediaType.APPLICATION_JSON)
 				.content(objectMapper.writeValueAsString(request))).andExpect(status().isOk())
 				.andExpect(jsonPath("$.name").value("Tablet"));
 	}
 
+	@Test
+	void shouldPassIfMatchVersionWhenUpdating() throws Exception {
+		DeviceRequestDTO request = new DeviceRequestDTO("Tablet", "Apple", StateEnum.AVAILABLE);
+		DeviceResponseDTO response = new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE,
+				LocalDateTime.now(), 4L);
+
+		when(deviceService.updateDevice(1L, request, 3L)).thenReturn(response);
+
+		mockMvc.perform(put("/devices/1").header("If-Match", "\"3\"").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(request))).andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"4\""));
+	}
+
+	@Test
+	void shouldPatchDeviceWithOnlyTheSentFields() throws Exception {
+		DevicePatchDTO patch = new DevicePatchDTO(null, null, StateEnum.INACTIVE);
+		DeviceResponseDTO response = new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.INACTIVE,
+				LocalDateTime.now(), 4L);
+
+		when(deviceService.patchDevice(1L, patch, 3L)).thenReturn(response);
+
+		mockMvc.perform(patch("/devices/1").header("If-Match", "\"3\"").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"state\":\"INACTIVE\"}")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.state").value("INACTIVE")).andExpect(header().string("ETag", "\"4\""));
+	}
+
+	@Test
+	void shouldRejectPatchWithBlankName() throws Exception {
+		mockMvc.perform(patch("/devices/1").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\" \"}"))
+				.andExpect(status().isBadRequest());
+
+		verify(deviceService, never()).patchDevice(any(), any(), any());
+	}
+
 	@Test
 	void shouldFindDeviceByIdSuccessfully() throws Exception {
 		DeviceResponseDTO response = new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE,
-				LocalDateTime.now());
+				LocalDateTime.now(), 0L);
 
 		when(deviceService.findDeviceByID(1L)).thenReturn(response);
 
 		mockMvc.perform(get("/devices/1")).andExpect(status().isOk())
-				.andExpect(jsonPath("$.id").value(1));
+				.andExpect(jsonPath("$.id").value(1)).andExpect(header().string("ETag", "\"0\""));
+	}
+
+	@Test
+	void shouldReturnNotModifiedFromCachedDeviceWhenETagMatches() throws Exception {
+		when(deviceService.findDeviceByID(1L))
+				.thenReturn(new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE, null, 2L));
+
+		mockMvc.perform(get("/devices/1").header("If-None-Match", "\"2\"")).andExpect(status().isNotModified())
+				.andExpect(header().string("ETag", "\"2\"")).andExpect(content().string(""));
+	}
+
+	@Test
+	void shouldReturnDeviceWhenETagIsStale() throws Exception {
+		DeviceResponseDTO response = new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE,
+				LocalDateTime.now(), 3L);
+
+		when(deviceService.findDeviceByID(1L)).thenReturn(response);
+
+		mockMvc.perform(get("/devices/1").header("If-None-Match", "\"2\"")).andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"3\""));
+	}
+
+	@Test
+	void shouldReturnNotModifiedWhenPageETagMatches() throws Exception {
+		DevicePageDTO page = new DevicePageDTO(
+				List.of(new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE, null, 0L)), null);
+
+		when(deviceService.findAllDevices(null, 50)).thenReturn(page);
+
+		String etag = mockMvc.perform(get("/devices")).andExpect(status().isOk()).andReturn().getResponse()
+				.getHeader("ETag");
+
+		mockMvc.perform(get("/devices").header("If-None-Match", etag)).andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+	}
+
+	@Test
+	void shouldChangePageETagWhenADeviceGetsANewVersion() throws Exception {
+		DevicePageDTO page = new DevicePageDTO(
+				List.of(new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE, null, 0L)), null);
+		DevicePageDTO updated = new DevicePageDTO(
+				List.of(new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.IN_USE, null, 1L)), null);
+
+		when(deviceService.findAllDevices(null, 50)).thenReturn(page, updated);
+
+		String etag = mockMvc.perform(get("/devices")).andExpect(status().isOk()).andReturn().getResponse()
+				.getHeader("ETag");
+
+		mockMvc.perform(get("/devices").header("If-None-Match", etag)).andExpect(status().isOk())
+				.andExpect(header().string("ETag", matchesPattern("W/\"p[0-9a-f]{32}\"")))
+				.andExpect(header().string("ETag", not(etag)));
+	}
+
+	@Test
+	void shouldRejectMalformedIfMatch() throws Exception {
+		DeviceRequestDTO request = new DeviceRequestDTO("Tablet", "Apple", StateEnum.AVAILABLE);
+
+		mockMvc.perform(put("/devices/1").header("If-Match", "\"3").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(request))).andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void shouldFailPreconditionForWeakOrForeignIfMatch() throws Exception {
+		DeviceRequestDTO request = new DeviceRequestDTO("Tablet", "Apple", StateEnum.AVAILABLE);
+
+		for (String ifMatch : List.of("W/\"3\"", "\"p1f\"", "W/\"3\", \"abc\"")) {
+			mockMvc.perform(put("/devices/1").header("If-Match", ifMatch).contentType(MediaType.APPLICATION_JSON)
+					.content(objectMapper.writeValueAsString(request))).andExpect(status().isPreconditionFailed());
+		}
+		verify(deviceService, never()).updateDevice(any(), any(), any());
+	}
+
+	@Test
+	void shouldApplyWriteToTheCurrentVersionOfSeveralIfMatchTags() throws Exception {
+		DeviceRequestDTO request = new DeviceRequestDTO("Tablet", "Apple", StateEnum.AVAILABLE);
+		DeviceResponseDTO current = new DeviceResponseDTO(1L, "Phone", "Apple", StateEnum.AVAILABLE, null, 3L);
+		when(deviceService.findDeviceByID(1L)).thenReturn(current);
+		when(deviceService.updateDevice(1L, request, 3L))
+				.thenReturn(new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE, null, 4L));
+
+		mockMvc.perform(put("/devices/1").header("If-Match", "\"2\", \"3\"").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(request))).andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"4\""));
 	}
 
 	@Test
 	void shouldReturnAllDevices() throws Exception {
 		List<DeviceResponseDTO> devices = List.of(
-				new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE, LocalDateTime.now()),
-				new DeviceResponseDTO(2L, "Phone", "Samsung", StateEnum.IN_USE, LocalDateTime.now()));
+				new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE, LocalDateTime.now(), 0L),
+				new DeviceResponseDTO(2L, "Phone", "Samsung", StateEnum.IN_USE, LocalDateTime.now(), 0L));
 
-		when(deviceService.findAllDevices()).thenReturn(devices);
+		when(deviceService.findAllDevices(null, 50)).thenReturn(new DevicePageDTO(devices, null));
 
-		mockMvc.perform(get("/devices")).andExpect(status().isOk()).andExpect(jsonPath("$.length()").value(2));
+		mockMvc.perform(get("/devices")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.content.length()").value(2));
+	}
+
+	@Test
+	void shouldNegotiateBinaryFormatsForDevicePages() throws Exception {
+		DevicePageDTO page = new DevicePageDTO(
+				List.of(new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE, LocalDateTime.now(), 0L)), 1L);
+		when(deviceService.findAllDevices(null, 50)).thenReturn(page);
+		// Same converter order as the application: JSON, Smile, CBOR, then Protobuf
+		MockMvc negotiating = MockMvcBuilders.standaloneSetup(deviceController)
+				.setControllerAdvice(new GlobalExceptionHandler()).setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper),
+						new MappingJackson2SmileHttpMessageConverter(), new MappingJackson2CborHttpMessageConverter(),
+						new DeviceProtobufHttpMessageConverter())
+				.build();
+
+		mockMvc.perform(get("/devices").accept(MediaType.ALL)).andExpect(content().contentType(MediaType.APPLICATION_JSON));
+		byte[] cbor = negotiating.perform(get("/devices").accept("application/cbor"))
+				.andExpect(content().contentType("application/cbor")).andReturn().getResponse().getContentAsByteArray();
+		assertEquals("Tablet", new CBORMapper().readTree(cbor).at("/content/0/name").asText());
+		byte[] smile = negotiating.perform(get("/devices").accept("application/x-jackson-smile"))
+				.andExpect(status().isOk()).andReturn().getResponse().getContentAsByteArray();
+		assertEquals(1L, new SmileMapper().readTree(smile).at("/nextCursor").asLong());
+		byte[] protobuf = negotiating.perform(get("/devices").accept("application/x-protobuf"))
+				.andExpect(content().contentType("application/x-protobuf")).andReturn().getResponse()
+				.getContentAsByteArray();
+		assertEquals("Apple", DeviceProtos.DevicePage.parseFrom(protobuf).getContent(0).getBrand());
+		negotiating.perform(get("/devices").accept(MediaType.ALL)).andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(header().string("Vary", "Accept"));
+
+		// Errors have no Protobuf schema and stay JSON even when the client accepts nothing else
+		when(deviceService.findDeviceByID(9L)).thenThrow(new DeviceNotFoundException(9L));
+		negotiating.perform(get("/devices/9").accept("application/x-protobuf")).andExpect(status().isNotFound())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON)).andExpect(jsonPath("$.status").value(404));
+	}
+
+	@Test
+	void shouldPassCursorAndLimitWhenListingDevices() throws Exception {
+		List<DeviceResponseDTO> devices = List
+				.of(new DeviceResponseDTO(11L, "Tablet", "Apple", StateEnum.AVAILABLE, LocalDateTime.now(), 0L));
+
+		when(deviceService.findAllDevices(10L, 1)).thenReturn(new DevicePageDTO(devices, 11L));
+
+		mockMvc.perform(get("/devices").param("after", "10").param("limit", "1")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.content[0].id").value(11)).andExpect(jsonPath("$.nextCursor").value(11));
 	}
 
 	@Test
 	void shouldReturnDevicesByBrand() throws Exception {
 		List<DeviceResponseDTO> devices = List
-				.of(new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE, LocalDateTime.now()));
+				.of(new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE, LocalDateTime.now(), 0L));
 
-		when(deviceService.findDevicesByBrand("Apple")).thenReturn(devices);
+		when(deviceService.findDevicesByBrand("Apple", null, 50)).thenReturn(new DevicePageDTO(devices, null));
 
 		mockMvc.perform(get("/devices/brand/Apple")).andExpect(status().isOk())
-				.andExpect(jsonPath("$[0].brand").value("Apple"));
+				.andExpect(jsonPath("$.content[0].brand").value("Apple"));
 	}
 
 	@Test
 	void shouldReturnDevicesByState() throws Exception {
 		List<DeviceResponseDTO> devices = List
-				.of(new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE, LocalDateTime.now()));
+				.of(new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE, LocalDateTime.now(), 0L));
 
-		when(deviceService.findDevicesByState(StateEnum.AVAILABLE)).thenReturn(devices);
+		when(deviceService.findDevicesByState(StateEnum.AVAILABLE, null, 50)).thenReturn(new DevicePageDTO(devices, null));
 
 		mockMvc.perform(get("/devices/state/AVAILABLE")).andExpect(status().isOk())
-				.andExpect(jsonPath("$[0].state").value("AVAILABLE"));
+				.andExpect(jsonPath("$.content[0].state").value("AVAILABLE"));
+	}
+
+	@Test
+	void shouldReturnDeviceStatistics() throws Exception {
+		DeviceStatsDTO stats = new DeviceStatsDTO(3L, List.of(new StateCountDTO(StateEnum.AVAILABLE, 3L)),
+				List.of(new BrandCountDTO("Apple", 3L)),
+				List.of(new BrandStateCountDTO("Apple", StateEnum.AVAILABLE, 3L)));
+
+		when(deviceService.getStatistics(5)).thenReturn(stats);
+
+		mockMvc.perform(get("/devices/stats").param("top", "5")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.total").value(3)).andExpect(jsonPath("$.byBrand[0].brand").value("Apple"))
+				.andExpect(jsonPath("$.byBrandAndState[0].state").value("AVAILABLE"));
+	}
+
+	@Test
+	void shouldReturnMultiStatusWhenSomeTransitionsAreRejected() throws Exception {
+		StateTransitionRequestDTO request = new StateTransitionRequestDTO(List.of(1L, 2L), null, null, StateEnum.INACTIVE);
+		DeviceResponseDTO device = new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.INACTIVE, LocalDateTime.now(), 1L);
+		StateTransitionResultDTO result = new StateTransitionResultDTO(1, 0, 1, List.of(
+				StateTransitionItemDTO.updated(device), StateTransitionItemDTO.of(2L, TransitionStatus.NOT_FOUND)));
+
+		when(deviceService.transitionStates(request)).thenReturn(result);
+
+		mockMvc.perform(post("/devices/state-transitions").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(request))).andExpect(status().isMultiStatus())
+				.andExpect(jsonPath("$.updated").value(1)).andExpect(jsonPath("$.results[1].status").value("NOT_FOUND"));
+	}
+
+	@Test
+	void shouldRejectTransitionWithoutTargetState() throws Exception {
+		mockMvc.perform(post("/devices/state-transitions").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"ids\":[1]}")).andExpect(status().isBadRequest());
+
+		verify(deviceService, never()).transitionStates(any());
+	}
+
+	@Test
+	void shouldAcceptStateReports() throws Exception {
+		List<DeviceStateReportDTO> reports = List.of(new DeviceStateReportDTO(1L, null, null, StateEnum.IN_USE));
+
+		mockMvc.perform(post("/devices/state-reports").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(reports))).andExpect(status().isAccepted());
+
+		verify(deviceStateReportQueue).submit(reports);
+	}
+
+	@Test
+	void shouldAskToRetryStateReportsWhenQueueIsFull() throws Exception {
+		when(deviceStateReportQueue.submit(any())).thenThrow(new StateReportQueueFullException(0, 1, Duration.ofMillis(1500)));
+
+		mockMvc.perform(post("/devices/state-reports").contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"id\":1,\"state\":\"IN_USE\"}]")).andExpect(status().isServiceUnavailable())
+				.andExpect(header().string("Retry-After", "2"));
+	}
+
+	@Test
+	void shouldReturnChangesSinceToken() throws Exception {
+		when(deviceService.findChanges("abc", 1000)).thenReturn(new DeviceChangesDTO(List.of(), List.of(4L), "def", false));
+
+		mockMvc.perform(get("/devices/changes").param("since", "abc")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.deleted[0]").value(4)).andExpect(jsonPath("$.nextToken").value("def"));
+	}
+
+	@Test
+	void shouldReturnGoneForExpiredChangeToken() throws Exception {
+		when(deviceService.findChanges("old", 1000)).thenThrow(new ChangeTokenExpiredException("old"));
+
+		mockMvc.perform(get("/devices/changes").param("since", "old")).andExpect(status().isGone());
+	}
+
+	@Test
+	void shouldOpenEventStreamFromLastEventId() throws Exception {
+		when(deviceEventBroadcaster.subscribe("abc-7")).thenReturn(new SseEmitter());
+
+		mockMvc.perform(get("/devices/events").header("Last-Event-ID", "abc-7").accept(MediaType.TEXT_EVENT_STREAM))
+				.andExpect(request().asyncStarted());
+
+		verify(deviceEventBroadcaster).subscribe("abc-7");
+	}
+
+	@Test
+	void shouldSearchDevices() throws Exception {
+		List<DeviceResponseDTO> devices = List.of(
+				new DeviceResponseDTO(4L, "Galaxy Tab", "Samsung", StateEnum.AVAILABLE, LocalDateTime.now(), 0L));
+
+		when(deviceService.searchDevices("gal", 20)).thenReturn(devices);
+
+		mockMvc.perform(get("/devices/search").param("q", "gal")).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].id").value(4)).andExpect(jsonPath("$[0].name").value("Galaxy Tab"));
 	}
 
 	@Test
@@ -118,4 +439,63 @@ class DeviceControllerTest {
 
 		mockMvc.perform(delete("/devices/1")).andExpect(status().isNoContent());
 	}
+
+	@Test
+	void shouldReportDevicesLeftByBulkDelete() throws Exception {
+		DeviceDeleteRequestDTO request = new DeviceDeleteRequestDTO(List.of(1L, 2L, 3L), null, null);
+
+		when(deviceService.deleteDevices(request)).thenReturn(DeviceDeleteResultDTO.of(1, List.of(3L), List.of(2L)));
+
+		mockMvc.perform(delete("/devices").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(request))).andExpect(status().isMultiStatus())
+				.andExpect(jsonPath("$.deleted").value(1)).andExpect(jsonPath("$.rejected").value(2))
+				.andExpect(jsonPath("$.inUse[0]").value(2));
+	}
+
+	@Test
+	void shouldStreamDevicesAsNdjson() throws Exception {
+		doAnswer(invocation -> {
+			Consumer<DeviceResponseDTO> consumer = invocation.getArgument(2);
+			consumer.accept(new DeviceResponseDTO(1L, "Tablet", "Apple", StateEnum.AVAILABLE, null, 0L));
+			consumer.accept(new DeviceResponseDTO(2L, "Phone", "Apple", StateEnum.IN_USE, null, 0L));
+			return null;
+		}).when(deviceService).exportDevices(eq("Apple"), eq(null), any());
+
+		MvcResult result = mockMvc.perform(get("/devices/brand/Apple").accept(MediaType.APPLICATION_NDJSON))
+				.andExpect(request().asyncStarted()).andReturn();
+
+		String body = mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_NDJSON)).andReturn().getResponse()
+				.getContentAsString();
+
+		String[] lines = body.split("\n");
+		assertEquals(2, lines.length);
+		assertEquals(1L, objectMapper.readTree(lines[0]).get("id").asLong());
+		assertEquals("Phone", objectMapper.readTree(lines[1]).get("name").asText());
+		assertTrue(body.endsWith("\n"));
+	}
+
+	@Test
+	void shouldExportNdjsonOnlyWhenItRanksFirst() throws Exception {
+		when(deviceService.findAllDevices(null, 50)).thenReturn(new DevicePageDTO(List.of(), null));
+
+		for (String accept : List.of("application/x-ndjson;q=0.5, application/json", "*/*, application/x-ndjson;q=0.9",
+				"application/x-ndjson;q=0, application/json")) {
+			mockMvc.perform(get("/devices").header("Accept", accept)).andExpect(status().isOk())
+					.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+		}
+		mockMvc.perform(get("/devices").header("Accept", "application/x-ndjson;q=0"))
+				.andExpect(status().isNotAcceptable());
+		mockMvc.perform(get("/devices").header("Accept", "application/json;q=0.5, application/x-ndjson"))
+				.andExpect(request().asyncStarted());
+		verify(deviceService, never()).exportDevices(any(), any(), any());
+	}
+
+	@Test
+	void shouldKeepJsonPageAsDefaultRepresentation() throws Exception {
+		when(deviceService.findAllDevices(null, 50)).thenReturn(new DevicePageDTO(List.of(), null));
+
+		mockMvc.perform(get("/devices").accept(MediaType.ALL)).andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+	}
 }
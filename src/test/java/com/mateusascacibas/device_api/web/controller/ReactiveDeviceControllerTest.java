@@ -0,0 +1,227 @@
+package com.mateusascacibas.device_api.web.controller;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.boot.web.reactive.context.AnnotationConfigReactiveWebApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.config.WebFluxConfigurationSupport;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mateusascacibas.device_api.application.dto.BatchCreateResultDTO;
+import com.mateusascacibas.device_api.application.dto.BatchItemResultDTO;
+import com.mateusascacibas.device_api.application.dto.DevicePageDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceRequestDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.application.exception.DeviceNotFoundException;
+import com.mateusascacibas.device_api.application.service.DeviceService;
+import com.mateusascacibas.device_api.application.service.DeviceStateReportQueue;
+import com.mateusascacibas.device_api.application.service.ReactiveDeviceService;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+import com.mateusascacibas.device_api.infra.config.ReactiveConfig;
+import com.mateusascacibas.device_api.web.handler.GlobalExceptionHandler;
+import com.mateusascacibas.device_api.web.sse.DeviceEventBroadcaster;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class ReactiveDeviceControllerTest {
+
+	private WebTestClient webTestClient;
+
+	private AnnotationConfigReactiveWebApplicationContext context;
+
+	@Mock
+	private ReactiveDeviceService reactiveDeviceService;
+
+	@Mock
+	private DeviceService deviceService;
+
+	@Mock
+	private DeviceStateReportQueue deviceStateReportQueue;
+
+	@Mock
+	private DeviceEventBroadcaster deviceEventBroadcaster;
+
+	@Spy
+	private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+	@InjectMocks
+	private ReactiveDeviceController reactiveDeviceController;
+
+	// WebFlux with the handler mapping the reactive profile registers, so NDJSON is routed as in production
+	@Configuration
+	static class TestWebFluxConfig extends WebFluxConfigurationSupport {
+
+		@Override
+		protected RequestMappingHandlerMapping createRequestMappingHandlerMapping() {
+			return new ReactiveConfig().reactiveNdjsonExportRegistrations().getRequestMappingHandlerMapping();
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		MockitoAnnotations.openMocks(this);
+		context = new AnnotationConfigReactiveWebApplicationContext();
+		context.register(TestWebFluxConfig.class);
+		// Registered as ready instances so the context keeps the injected mocks
+		context.getBeanFactory().registerSingleton("reactiveDeviceController", reactiveDeviceController);
+		context.getBeanFactory().registerSingleton("globalExceptionHandler", new GlobalExceptionHandler());
+		context.refresh();
+		webTestClient = WebTestClient.bindToApplicationContext(context).build();
+	}
+
+	@AfterEach
+	void tearDown() {
+		context.close();
+	}
+
+	private static DeviceResponseDTO device(Long id, Long version) {
+		return new DeviceResponseDTO(id, "Tablet", "Apple", StateEnum.AVAILABLE, LocalDateTime.now(), version);
+	}
+
+	@Test
+	void shouldCreateDeviceSuccessfully() {
+		DeviceRequestDTO request = new DeviceRequestDTO("Tablet", "Apple", StateEnum.AVAILABLE);
+		when(reactiveDeviceService.createDevice(request)).thenReturn(Mono.just(device(1L, 0L)));
+
+		webTestClient.post().uri("/devices").contentType(MediaType.APPLICATION_JSON).bodyValue(request).exchange()
+				.expectStatus().isCreated()
+				.expectHeader().valueEquals("Location", "/devices/1")
+				.expectBody().jsonPath("$.id").isEqualTo(1);
+	}
+
+	@Test
+	void shouldAnswerValidationErrorsWithTheServletErrorBody() {
+		webTestClient.post().uri("/devices").contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"name\":\"\",\"brand\":\"Apple\",\"state\":\"AVAILABLE\"}").exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("$.error").isEqualTo("Validation failed")
+				.jsonPath("$.errors[0].field").isEqualTo("name")
+				.jsonPath("$.errors[0].message").isEqualTo("Name cannot be blank");
+		verify(reactiveDeviceService, never()).createDevice(any());
+	}
+
+	@Test
+	void shouldAnswerUnreadableBodiesWithTheServletErrorBody() {
+		webTestClient.post().uri("/devices").contentType(MediaType.APPLICATION_JSON)
+				.bodyValue("{\"name\":\"Tablet\",\"brand\":\"Apple\",\"state\":\"BROKEN\"}").exchange()
+				.expectStatus().isBadRequest()
+				.expectBody()
+				.jsonPath("$.error").isEqualTo("Invalid request body")
+				.jsonPath("$.message").value(matchesPattern("Invalid value for field 'state': 'BROKEN'.*"));
+	}
+
+	@Test
+	void shouldAnswerNotFoundWithTheServletErrorBody() {
+		when(reactiveDeviceService.findDeviceByID(9L)).thenReturn(Mono.error(new DeviceNotFoundException(9L)));
+
+		webTestClient.get().uri("/devices/9").exchange()
+				.expectStatus().isNotFound()
+				.expectBody().jsonPath("$.error").isEqualTo("Device Not Found");
+	}
+
+	@Test
+	void shouldReturnNotModifiedWhenIfNoneMatchHoldsTheCurrentETag() {
+		when(reactiveDeviceService.findDeviceByID(1L)).thenReturn(Mono.just(device(1L, 3L)));
+
+		webTestClient.get().uri("/devices/1").header("If-None-Match", "\"3\"").exchange()
+				.expectStatus().isNotModified()
+				.expectHeader().valueEquals("ETag", "\"3\"");
+		webTestClient.get().uri("/devices/1").header("If-None-Match", "\"2\"").exchange()
+				.expectStatus().isOk()
+				.expectBody().jsonPath("$.version").isEqualTo(3);
+	}
+
+	@Test
+	void shouldUpdateAgainstTheVersionInIfMatch() {
+		DeviceRequestDTO request = new DeviceRequestDTO("Tablet", "Apple", StateEnum.INACTIVE);
+		when(reactiveDeviceService.updateDevice(1L, request, 3L)).thenReturn(Mono.just(device(1L, 4L)));
+
+		webTestClient.put().uri("/devices/1").header("If-Match", "\"3\"").contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(request).exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals("ETag", "\"4\"");
+	}
+
+	@Test
+	void shouldRejectWeakIfMatchTagsWithPreconditionFailed() {
+		webTestClient.put().uri("/devices/1").header("If-Match", "W/\"3\"").contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(new DeviceRequestDTO("Tablet", "Apple", StateEnum.INACTIVE)).exchange()
+				.expectStatus().isEqualTo(412);
+		verify(reactiveDeviceService, never()).updateDevice(any(), any(), any());
+	}
+
+	@Test
+	void shouldReturnPagesWithAWeakETag() {
+		when(reactiveDeviceService.findAllDevices(null, 50))
+				.thenReturn(Mono.just(new DevicePageDTO(List.of(device(1L, 0L)), null)));
+
+		webTestClient.get().uri("/devices").accept(MediaType.APPLICATION_JSON).exchange()
+				.expectStatus().isOk()
+				.expectHeader().value("ETag", matchesPattern("W/\"p[0-9a-f]{32}\""))
+				.expectBody().jsonPath("$.content[0].id").isEqualTo(1);
+	}
+
+	@Test
+	void shouldStreamNdjsonExports() {
+		when(reactiveDeviceService.exportDevices(null, StateEnum.AVAILABLE))
+				.thenReturn(Flux.just(device(1L, 0L), device(2L, 0L)));
+
+		String body = webTestClient.get().uri("/devices/state/AVAILABLE").accept(MediaType.APPLICATION_NDJSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+				.expectBody(String.class).returnResult().getResponseBody();
+
+		String[] lines = body.split("\n");
+		assertEquals(2, lines.length);
+		assertTrue(lines[1].contains("\"id\":2"));
+	}
+
+	@Test
+	void shouldExportNdjsonOnlyWhenItRanksFirst() {
+		when(reactiveDeviceService.findAllDevices(null, 50)).thenReturn(Mono.just(new DevicePageDTO(List.of(), null)));
+
+		for (String accept : List.of("application/x-ndjson;q=0.5, application/json", "*/*, application/x-ndjson;q=0.9",
+				"application/x-ndjson;q=0, application/json")) {
+			webTestClient.get().uri("/devices").header("Accept", accept).exchange()
+					.expectStatus().isOk()
+					.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON);
+		}
+		verify(reactiveDeviceService, never()).exportDevices(any(), any());
+	}
+
+	@Test
+	void shouldRunBulkEndpointsOnTheBlockingService() {
+		List<DeviceRequestDTO> requests = List.of(new DeviceRequestDTO("Tablet", "Apple", StateEnum.AVAILABLE));
+		when(deviceService.createDevices(requests)).thenReturn(new BatchCreateResultDTO(1, 0,
+				List.of(BatchItemResultDTO.created(0, device(1L, 0L)))));
+
+		webTestClient.post().uri("/devices/batch").contentType(MediaType.APPLICATION_JSON).bodyValue(requests)
+				.exchange()
+				.expectStatus().isCreated()
+				.expectBody().jsonPath("$.results[0].device.id").isEqualTo(1);
+		verify(deviceService).createDevices(eq(requests));
+	}
+}
@@ -0,0 +1,65 @@
+package com.mateusascacibas.device_api.web.converter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import com.mateusascacibas.device_api.application.dto.DevicePageDTO;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+
+class DeviceProtobufHttpMessageConverterTest {
+
+	private final DeviceProtobufHttpMessageConverter converter = new DeviceProtobufHttpMessageConverter();
+
+	@Test
+	void shouldWritePageMatchingTheProtoSchema() throws Exception {
+		DeviceResponseDTO device = new DeviceResponseDTO(7L, "Phone", "Apple", StateEnum.IN_USE,
+				LocalDateTime.of(1970, 1, 1, 0, 0, 1, 500_000_000), 3L);
+		MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+		converter.write(new DevicePageDTO(List.of(device), 7L), DevicePageDTO.class,
+				DeviceProtobufHttpMessageConverter.PROTOBUF, output);
+
+		DeviceProtos.DevicePage page = DeviceProtos.DevicePage.parseFrom(output.getBodyAsBytes());
+		assertEquals(7L, page.getNextCursor());
+		DeviceProtos.Device written = page.getContent(0);
+		assertEquals(7L, written.getId());
+		assertEquals("Phone", written.getName());
+		assertEquals("Apple", written.getBrand());
+		assertEquals(DeviceProtos.State.IN_USE, written.getState());
+		assertEquals(1_500_000L, written.getCreationTimeMicros());
+		assertEquals(3L, written.getVersion());
+		assertEquals(DeviceProtobufHttpMessageConverter.PROTOBUF, output.getHeaders().getContentType());
+	}
+
+	@Test
+	void shouldLeaveNextCursorUnsetOnLastPage() throws Exception {
+		MockHttpOutputMessage output = new MockHttpOutputMessage();
+
+		converter.write(new DevicePageDTO(List.of(), null), DevicePageDTO.class, null, output);
+
+		assertFalse(DeviceProtos.DevicePage.parseFrom(output.getBodyAsBytes()).hasNextCursor());
+	}
+
+	@Test
+	void shouldOnlyWriteDeviceResponses() {
+		Type devices = new ParameterizedTypeReference<List<DeviceResponseDTO>>() { }.getType();
+		Type strings = new ParameterizedTypeReference<List<String>>() { }.getType();
+
+		assertTrue(converter.canWrite(devices, List.class, DeviceProtobufHttpMessageConverter.PROTOBUF));
+		assertTrue(converter.canWrite(DeviceResponseDTO.class, DeviceResponseDTO.class, null));
+		assertFalse(converter.canWrite(strings, List.class, DeviceProtobufHttpMessageConverter.PROTOBUF));
+		assertFalse(converter.canWrite(DevicePageDTO.class, DevicePageDTO.class, MediaType.APPLICATION_JSON));
+		assertFalse(converter.canRead(DevicePageDTO.class, null, DeviceProtobufHttpMessageConverter.PROTOBUF));
+	}
+}
@@ -0,0 +1,91 @@
+package com.mateusascacibas.device_api.web.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class AimdConcurrencyLimitTest {
+
+	private static final long THRESHOLD = 100;
+
+	@Test
+	void shouldRejectOnceLimitIsInUse() {
+		AimdConcurrencyLimit limit = new AimdConcurrencyLimit(2, 1, 10, THRESHOLD, 0.5);
+
+		assertTrue(limit.tryAcquire());
+		assertTrue(limit.tryAcquire());
+		assertFalse(limit.tryAcquire());
+
+		limit.release(0, 10, false);
+		assertTrue(limit.tryAcquire());
+	}
+
+	@Test
+	void shouldGrowByAboutOnePerLimitOfFastRequestsWhileBusy() {
+		AimdConcurrencyLimit limit = new AimdConcurrencyLimit(4, 1, 5, THRESHOLD, 0.5);
+
+		// Three in flight keeps at least half the limit busy; 4 + 1/4 + 1/4.25 + ... crosses 5 on the fifth round
+		for (int round = 0; round < 4; round++) {
+			busyRound(limit, round);
+		}
+		assertEquals(4, limit.getLimit());
+		busyRound(limit, 4);
+		assertEquals(5, limit.getLimit());
+
+		// Never past the maximum
+		for (int round = 5; round < 25; round++) {
+			busyRound(limit, round);
+		}
+		assertEquals(5, limit.getLimit());
+	}
+
+	@Test
+	void shouldNotGrowWhileMostlyIdle() {
+		AimdConcurrencyLimit limit = new AimdConcurrencyLimit(10, 1, 100, THRESHOLD, 0.5);
+
+		for (int request = 0; request < 100; request++) {
+			limit.tryAcquire();
+			limit.release(request, 10, false);
+		}
+
+		assertEquals(10, limit.getLimit());
+	}
+
+	@Test
+	void shouldBackOffOncePerSlowdownDownToMinimum() {
+		AimdConcurrencyLimit limit = new AimdConcurrencyLimit(8, 3, 10, THRESHOLD, 0.5);
+		for (int request = 0; request < 3; request++) {
+			limit.tryAcquire();
+		}
+
+		// Three requests queued behind the same slowdown: only the first one cuts the limit
+		limit.release(0, 500, false);
+		limit.release(1, 600, true);
+		limit.release(2, 700, false);
+		assertEquals(4, limit.getLimit());
+
+		// A request started after that cut may cut again, but not below the minimum
+		limit.tryAcquire();
+		limit.release(1000, 500, true);
+		assertEquals(3, limit.getLimit());
+		assertEquals(0, limit.getInflight());
+	}
+
+	@Test
+	void shouldRejectInconsistentSettings() {
+		assertThrows(IllegalArgumentException.class, () -> new AimdConcurrencyLimit(20, 1, 10, THRESHOLD, 0.5));
+		assertThrows(IllegalArgumentException.class, () -> new AimdConcurrencyLimit(5, 1, 10, THRESHOLD, 1.0));
+	}
+
+	private static void busyRound(AimdConcurrencyLimit limit, long start) {
+		for (int request = 0; request < 3; request++) {
+			limit.tryAcquire();
+		}
+		for (int request = 0; request < 3; request++) {
+			limit.release(start, 10, false);
+		}
+	}
+}
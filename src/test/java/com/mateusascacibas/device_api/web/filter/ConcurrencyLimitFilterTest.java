@@ -0,0 +1,167 @@
+package com.mateusascacibas.device_api.web.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+
+class ConcurrencyLimitFilterTest {
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private ConcurrencyLimitFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		filter = new ConcurrencyLimitFilter();
+		ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+		ReflectionTestUtils.setField(filter, "enabled", true);
+		ReflectionTestUtils.setField(filter, "readInitialLimit", 1);
+		ReflectionTestUtils.setField(filter, "readMinLimit", 1);
+		ReflectionTestUtils.setField(filter, "readMaxLimit", 10);
+		ReflectionTestUtils.setField(filter, "readLatencyThreshold", Duration.ofSeconds(1));
+		ReflectionTestUtils.setField(filter, "writeInitialLimit", 1);
+		ReflectionTestUtils.setField(filter, "writeMinLimit", 1);
+		ReflectionTestUtils.setField(filter, "writeMaxLimit", 10);
+		ReflectionTestUtils.setField(filter, "writeLatencyThreshold", Duration.ofSeconds(1));
+		ReflectionTestUtils.setField(filter, "backoffRatio", 0.9);
+		ReflectionTestUtils.setField(filter, "retryAfter", Duration.ofSeconds(2));
+		filter.init();
+	}
+
+	@Test
+	void shouldShedReadsOverTheLimitWithoutAffectingWrites() throws Exception {
+		MockHttpServletResponse[] nested = new MockHttpServletResponse[2];
+		// The read holding the only read slot issues another read and a write while it runs
+		FilterChain holdingChain = (request, response) -> {
+			nested[0] = perform("GET", "/devices/1", null);
+			nested[1] = perform("PUT", "/devices/1", null);
+		};
+		MockHttpServletResponse holder = new MockHttpServletResponse();
+		filter.doFilter(request("GET", "/devices/1", null), holder, holdingChain);
+
+		assertEquals(200, holder.getStatus());
+		assertEquals(503, nested[0].getStatus());
+		assertEquals("2", nested[0].getHeader("Retry-After"));
+		assertTrue(nested[0].getContentAsString().contains("\"status\":503"));
+		assertEquals(200, nested[1].getStatus());
+		assertEquals(1, meterRegistry.get("device.concurrency_limit.rejected").tag("kind", "read").counter().count());
+		assertEquals(0, meterRegistry.get("device.concurrency_limit.rejected").tag("kind", "write").counter().count());
+		assertEquals(0, meterRegistry.get("device.concurrency_limit.inflight").tag("kind", "read").gauge().value());
+		// The holder finished fast with the whole limit in use, so the read limit grew
+		assertEquals(2, meterRegistry.get("device.concurrency_limit.limit").tag("kind", "read").gauge().value());
+	}
+
+	@Test
+	void shouldLeaveEventStreamsAndExportsUnlimited() throws Exception {
+		FilterChain holdingChain = (request, response) -> {
+			assertEquals(200, perform("GET", "/devices/events", null).getStatus());
+			assertEquals(200, perform("GET", "/devices", "application/x-ndjson").getStatus());
+			assertEquals(200, perform("GET", "/devices/brand/Apple", "application/json;q=0.5, application/x-ndjson")
+					.getStatus());
+		};
+
+		filter.doFilter(request("GET", "/devices", null), new MockHttpServletResponse(), holdingChain);
+
+		assertEquals(0, meterRegistry.get("device.concurrency_limit.rejected").tag("kind", "read").counter().count());
+	}
+
+	@Test
+	void shouldLimitWritesAndPagedReadsWhateverTheyAccept() throws Exception {
+		MockHttpServletResponse[] nested = new MockHttpServletResponse[3];
+		FilterChain holdingChain = (request, response) -> {
+			nested[0] = perform("DELETE", "/devices", "application/x-ndjson");
+			nested[1] = perform("POST", "/devices/events", "application/x-ndjson");
+			nested[2] = perform("GET", "/devices/1", "application/x-ndjson");
+		};
+
+		filter.doFilter(request("POST", "/devices/batch", "application/x-ndjson"), new MockHttpServletResponse(),
+				holdingChain);
+
+		assertEquals(503, nested[0].getStatus());
+		assertEquals(503, nested[1].getStatus());
+		assertEquals(200, nested[2].getStatus());
+		assertEquals(2, meterRegistry.get("device.concurrency_limit.rejected").tag("kind", "write").counter().count());
+		assertEquals(0, meterRegistry.get("device.concurrency_limit.inflight").tag("kind", "read").gauge().value());
+	}
+
+	@Test
+	void shouldLimitListReadsThatDoNotRankNdjsonFirst() throws Exception {
+		MockHttpServletResponse[] nested = new MockHttpServletResponse[4];
+		FilterChain holdingChain = (request, response) -> {
+			nested[0] = perform("GET", "/devices", "application/x-ndjson;q=0");
+			nested[1] = perform("GET", "/devices", "application/x-ndjson;q=0.5, application/json");
+			nested[2] = perform("GET", "/devices/state/IN_USE", "*/*, application/x-ndjson;q=0.9");
+			nested[3] = perform("GET", "/devices/brand/Apple", "application/*, application/x-ndjson");
+		};
+
+		filter.doFilter(request("GET", "/devices", null), new MockHttpServletResponse(), holdingChain);
+
+		assertEquals(503, nested[0].getStatus());
+		assertEquals(503, nested[1].getStatus());
+		assertEquals(503, nested[2].getStatus());
+		assertEquals(200, nested[3].getStatus());
+	}
+
+	@Test
+	void shouldCountOnlyErrorsAndTimeoutsAsOverload() throws Exception {
+		// Fresh gauges over a write limit with room to back off
+		MeterRegistry registry = new SimpleMeterRegistry();
+		ReflectionTestUtils.setField(filter, "meterRegistry", registry);
+		ReflectionTestUtils.setField(filter, "writeInitialLimit", 10);
+		filter.init();
+
+		// A full state-report queue answers 503 on purpose; that says nothing about overload
+		filter.doFilter(request("POST", "/devices/state-reports", null), new MockHttpServletResponse(),
+				(request, response) -> ((HttpServletResponse) response).setStatus(503));
+		assertEquals(10, registry.get("device.concurrency_limit.limit").tag("kind", "write").gauge().value());
+
+		filter.doFilter(request("PUT", "/devices/1", null), new MockHttpServletResponse(),
+				(request, response) -> ((HttpServletResponse) response).setStatus(500));
+		assertEquals(9, registry.get("device.concurrency_limit.limit").tag("kind", "write").gauge().value());
+
+		filter.doFilter(request("PUT", "/devices/1", null), new MockHttpServletResponse(),
+				(request, response) -> ((HttpServletResponse) response).setStatus(504));
+		assertEquals(8, registry.get("device.concurrency_limit.limit").tag("kind", "write").gauge().value());
+
+		assertThrows(IllegalStateException.class, () -> filter.doFilter(request("PUT", "/devices/1", null),
+				new MockHttpServletResponse(), (request, response) -> {
+					throw new IllegalStateException("boom");
+				}));
+		assertEquals(7, registry.get("device.concurrency_limit.limit").tag("kind", "write").gauge().value());
+		assertEquals(0, registry.get("device.concurrency_limit.inflight").tag("kind", "write").gauge().value());
+	}
+
+	private MockHttpServletResponse perform(String method, String uri, String accept) throws IOException, ServletException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request(method, uri, accept), response, new MockFilterChain());
+		return response;
+	}
+
+	private static MockHttpServletRequest request(String method, String uri, String accept) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+		if (accept != null) {
+			request.addHeader("Accept", accept);
+		}
+		return request;
+	}
+}
@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -17,6 +18,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import com.mateusascacibas.device_api.application.exception.DeviceNotFoundException;
+import com.mateusascacibas.device_api.application.exception.DeviceVersionMismatchException;
 
 public class GlobalExceptionHandlerTest {
 
@@ -60,6 +62,27 @@ public class GlobalExceptionHandlerTest {
         assertEquals("Conflict detected", body.get("message"));
     }
 
+    @Test
+    void shouldHandleVersionMismatchException() {
+        DeviceVersionMismatchException ex = new DeviceVersionMismatchException(1L, 2L, 3L);
+        ResponseEntity<Object> response = handler.handleVersionMismatch(ex);
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        Map<?, ?> body = (Map<?, ?>) response.getBody();
+        assertEquals("Precondition Failed", body.get("error"));
+        assertTrue(body.get("message").toString().contains("version 3"));
+    }
+
+    @Test
+    void shouldHandleOptimisticLockingFailure() {
+        ObjectOptimisticLockingFailureException ex = new ObjectOptimisticLockingFailureException("Device", 1L);
+        ResponseEntity<Object> response = handler.handleOptimisticLockingFailure(ex);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        Map<?, ?> body = (Map<?, ?>) response.getBody();
+        assertEquals("Conflict", body.get("error"));
+    }
+
     @Test
     void shouldHandleValidationErrors() {
         FieldError fieldError = new FieldError("deviceRequestDTO", "name", "cannot be blank");
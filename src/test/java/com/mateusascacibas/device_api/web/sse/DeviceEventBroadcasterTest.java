@@ -0,0 +1,209 @@
+package com.mateusascacibas.device_api.web.sse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mateusascacibas.device_api.application.dto.DeviceResponseDTO;
+import com.mateusascacibas.device_api.application.event.DeviceChangedEvent;
+import com.mateusascacibas.device_api.domain.enumerator.StateEnum;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import reactor.test.StepVerifier;
+
+class DeviceEventBroadcasterTest {
+
+	@RestController
+	static class EventsController {
+
+		private final DeviceEventBroadcaster broadcaster;
+
+		EventsController(DeviceEventBroadcaster broadcaster) {
+			this.broadcaster = broadcaster;
+		}
+
+		@GetMapping("/events")
+		SseEmitter events(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+			return broadcaster.subscribe(lastEventId);
+		}
+	}
+
+	private DeviceEventBroadcaster broadcaster;
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		broadcaster = new DeviceEventBroadcaster();
+		ReflectionTestUtils.setField(broadcaster, "objectMapper", new ObjectMapper().findAndRegisterModules());
+		ReflectionTestUtils.setField(broadcaster, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(broadcaster, "bufferSize", 2);
+		ReflectionTestUtils.setField(broadcaster, "replaySize", 4);
+		ReflectionTestUtils.setField(broadcaster, "overflowPolicy", DeviceEventBroadcaster.OverflowPolicy.DISCONNECT);
+		ReflectionTestUtils.setField(broadcaster, "timeout", Duration.ofMinutes(1));
+		ReflectionTestUtils.setField(broadcaster, "reconnectDelay", Duration.ofSeconds(3));
+		broadcaster.init();
+		mockMvc = MockMvcBuilders.standaloneSetup(new EventsController(broadcaster)).build();
+	}
+
+	@AfterEach
+	void tearDown() {
+		broadcaster.shutdown();
+	}
+
+	@Test
+	void shouldPushCommittedChangesToSubscribers() throws Exception {
+		MockHttpServletResponse response = subscribe(null);
+
+		broadcaster.onDeviceChanged(DeviceChangedEvent.updated(device(1L)));
+		broadcaster.onDeviceChanged(DeviceChangedEvent.deleted(2L));
+
+		String body = awaitBody(response, content -> content.contains("event:deleted"));
+		assertTrue(body.startsWith("retry:3000"));
+		assertTrue(body.contains("event:updated\ndata:{\"type\":\"UPDATED\",\"id\":1,\"device\":{\"id\":1,"));
+		assertTrue(body.contains("event:deleted\ndata:{\"type\":\"DELETED\",\"id\":2,\"device\":null}"));
+	}
+
+	@Test
+	void shouldReplayEventsAfterLastEventId() throws Exception {
+		MockHttpServletResponse first = subscribe(null);
+		broadcaster.onDeviceChanged(DeviceChangedEvent.created(device(1L)));
+		String lastEventId = eventIdsOf(awaitBody(first, content -> content.contains("event:created")))[0];
+		broadcaster.onDeviceChanged(DeviceChangedEvent.updated(device(1L)));
+		broadcaster.onDeviceChanged(DeviceChangedEvent.deleted(1L));
+
+		String body = awaitBody(subscribe(lastEventId), content -> content.contains("event:deleted"));
+
+		assertFalse(body.contains("event:created"));
+		assertTrue(body.indexOf("event:updated") < body.indexOf("event:deleted"));
+	}
+
+	@Test
+	void shouldSendResetWhenLastEventIdIsNoLongerReplayable() throws Exception {
+		for (long id = 1; id <= 6; id++) {
+			broadcaster.onDeviceChanged(DeviceChangedEvent.created(device(id)));
+		}
+		String staleId = eventIdsOf(awaitBody(subscribe("0"), content -> content.contains("event:reset")))[0];
+
+		assertTrue(staleId.endsWith("-6"));
+		String body = awaitBody(subscribe(staleId.replace("-6", "-1")), content -> content.contains("event:reset"));
+		assertFalse(body.contains("event:created"));
+	}
+
+	@Test
+	void shouldDisconnectSubscriberWhoseBufferFills() throws Exception {
+		ExecutorService senders = blockedSenders();
+		subscribe(null);
+		assertEquals(1, broadcaster.subscriberCount());
+
+		for (long id = 1; id <= 4; id++) {
+			broadcaster.onDeviceChanged(DeviceChangedEvent.updated(device(id)));
+		}
+
+		assertEquals(0, broadcaster.subscriberCount());
+		senders.shutdownNow();
+	}
+
+	@Test
+	void shouldDropOldestFramesWhenConfiguredTo() throws Exception {
+		ReflectionTestUtils.setField(broadcaster, "overflowPolicy", DeviceEventBroadcaster.OverflowPolicy.DROP_OLDEST);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService senders = Executors.newSingleThreadExecutor();
+		senders.execute(() -> awaitQuietly(release));
+		ReflectionTestUtils.setField(broadcaster, "senders", senders);
+		MockHttpServletResponse response = subscribe(null);
+
+		for (long id = 1; id <= 5; id++) {
+			broadcaster.onDeviceChanged(DeviceChangedEvent.updated(device(id)));
+		}
+		release.countDown();
+
+		String body = awaitBody(response, content -> content.contains("\"id\":5,"));
+		assertEquals(1, broadcaster.subscriberCount());
+		assertFalse(body.contains("\"id\":1,"));
+		assertFalse(body.contains("\"id\":2,"));
+		senders.shutdown();
+	}
+
+	@Test
+	void shouldStreamFramesAsTheReactiveSubscriberRequestsThem() {
+		StepVerifier.create(broadcaster.stream(null), 1)
+				.assertNext(frame -> assertTrue(frame.startsWith("retry:3000"), frame))
+				.then(() -> {
+					broadcaster.onDeviceChanged(DeviceChangedEvent.created(device(1L)));
+					broadcaster.onDeviceChanged(DeviceChangedEvent.deleted(1L));
+				})
+				.expectNoEvent(Duration.ofMillis(100))
+				.thenRequest(2)
+				.assertNext(frame -> assertTrue(frame.contains("event:created\n"), frame))
+				.assertNext(frame -> assertTrue(frame.contains("event:deleted\n"), frame))
+				.thenCancel()
+				.verify(Duration.ofSeconds(5));
+
+		assertEquals(0, broadcaster.subscriberCount());
+	}
+
+	private ExecutorService blockedSenders() {
+		ExecutorService senders = Executors.newSingleThreadExecutor();
+		senders.execute(() -> awaitQuietly(new CountDownLatch(1)));
+		ReflectionTestUtils.setField(broadcaster, "senders", senders);
+		return senders;
+	}
+
+	private MockHttpServletResponse subscribe(String lastEventId) throws Exception {
+		var builder = get("/events");
+		if (lastEventId != null) {
+			builder.header("Last-Event-ID", lastEventId);
+		}
+		return mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn().getResponse();
+	}
+
+	private static String awaitBody(MockHttpServletResponse response, Predicate<String> condition) throws Exception {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		String body = response.getContentAsString();
+		while (!condition.test(body) && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+			body = response.getContentAsString();
+		}
+		assertTrue(condition.test(body), body);
+		return body;
+	}
+
+	private static String[] eventIdsOf(String body) {
+		return body.lines().filter(line -> line.startsWith("id:")).map(line -> line.substring(3))
+				.toArray(String[]::new);
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static DeviceResponseDTO device(Long id) {
+		return new DeviceResponseDTO(id, "Phone", "Apple", StateEnum.AVAILABLE, null, 0L);
+	}
+}